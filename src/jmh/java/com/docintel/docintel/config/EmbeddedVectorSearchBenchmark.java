@@ -0,0 +1,126 @@
+package com.docintel.docintel.config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+import org.springframework.util.FileSystemUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retrieval from the {@link EmbeddedVectorStore} over a corpus of random 768-dimension vectors, unfiltered and
+ * scoped to one of ten document groups, next to the dot product it is built on. The embedding model is a stub
+ * that derives a vector from the text, so only the store is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EmbeddedVectorSearchBenchmark {
+
+    private static final int DIMENSIONS = 768;
+    private static final int GROUPS = 10;
+
+    @Param({"10000", "50000"})
+    int documents;
+
+    private Path root;
+    private EmbeddedVectorStore store;
+    private SearchRequest unfiltered;
+    private SearchRequest scoped;
+    private float[] a;
+    private float[] b;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        root = Files.createTempDirectory("embedded-vector-search");
+        store = new EmbeddedVectorStore(new StubEmbeddingModel(), List::of, root, 16_384);
+        List<Document> batch = new ArrayList<>();
+        for (int i = 0; i < documents; i++) {
+            batch.add(new Document("passage " + i, Map.of("document_group", "group-" + i % GROUPS,
+                    "page_number", i % 300)));
+            if (batch.size() == 1_000) {
+                store.add(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        store.add(batch);
+        unfiltered = SearchRequest.builder().query("question").topK(5).build();
+        scoped = SearchRequest.from(unfiltered)
+                .filterExpression(new FilterExpressionBuilder().eq("document_group", "group-3").build())
+                .build();
+        a = StubEmbeddingModel.vector("a");
+        b = StubEmbeddingModel.vector("b");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        store.close();
+        FileSystemUtils.deleteRecursively(root);
+    }
+
+    @Benchmark
+    public List<Document> search() {
+        return store.similaritySearch(unfiltered);
+    }
+
+    @Benchmark
+    public List<Document> searchScopedToGroup() {
+        return store.similaritySearch(scoped);
+    }
+
+    @Benchmark
+    public float dotProduct() {
+        return VectorSimilarity.dot(a, b);
+    }
+
+    @Benchmark
+    public float dotProductScalar() {
+        return VectorSimilarity.scalarDot(a, b);
+    }
+
+    private static final class StubEmbeddingModel implements EmbeddingModel {
+
+        static float[] vector(String text) {
+            Random random = new Random(text.hashCode());
+            float[] vector = new float[DIMENSIONS];
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] = (float) random.nextGaussian();
+            }
+            return vector;
+        }
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            List<Embedding> embeddings = new ArrayList<>();
+            for (String text : request.getInstructions()) {
+                embeddings.add(new Embedding(vector(text), embeddings.size()));
+            }
+            return new EmbeddingResponse(embeddings);
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return vector(document.getText());
+        }
+    }
+}
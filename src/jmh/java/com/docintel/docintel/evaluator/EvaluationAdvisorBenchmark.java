@@ -0,0 +1,111 @@
+package com.docintel.docintel.evaluator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.client.advisor.vectorstore.QuestionAnswerAdvisor;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.evaluation.EvaluationRequest;
+import org.springframework.ai.evaluation.EvaluationResponse;
+import org.springframework.ai.evaluation.Evaluator;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * What the advisor chain costs around a RAG call when the models answer instantly: retrieval augmentation alone,
+ * plus an {@link EvaluationRecursiveAdvisor} that accepts the first answer, and plus one that makes it retry once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EvaluationAdvisorBenchmark {
+
+    private static final String QUESTION = "How did the operating margin develop in the second quarter?";
+
+    private ChatClient augmentedOnly;
+    private ChatClient evaluated;
+    private ChatClient evaluatedWithRetry;
+
+    @Setup
+    public void setUp() {
+        ChatModel chatModel = prompt -> new ChatResponse(List.of(new Generation(
+                new AssistantMessage("The operating margin rose to 14% (Page 3, file: report.pdf)."))));
+        QuestionAnswerAdvisor questionAnswerAdvisor = QuestionAnswerAdvisor.builder(new FixedVectorStore())
+                .searchRequest(SearchRequest.builder().topK(3).build())
+                .order(5)
+                .build();
+        Evaluator accepting = request -> new EvaluationResponse(true, 1.0f, "", Map.of());
+        // rejects every other answer, so each call is answered twice
+        Evaluator rejectingFirst = new Evaluator() {
+            private long evaluations;
+
+            @Override
+            public EvaluationResponse evaluate(EvaluationRequest request) {
+                boolean pass = evaluations++ % 2 == 1;
+                return new EvaluationResponse(pass, pass ? 1.0f : 0.0f, "", Map.of());
+            }
+        };
+        augmentedOnly = ChatClient.builder(chatModel).defaultAdvisors(questionAnswerAdvisor).build();
+        evaluated = ChatClient.builder(chatModel)
+                .defaultAdvisors(questionAnswerAdvisor, new EvaluationRecursiveAdvisor(accepting, 3))
+                .build();
+        evaluatedWithRetry = ChatClient.builder(chatModel)
+                .defaultAdvisors(questionAnswerAdvisor, new EvaluationRecursiveAdvisor(rejectingFirst, 3))
+                .build();
+    }
+
+    @Benchmark
+    public ChatResponse augmentedOnly() {
+        return augmentedOnly.prompt().user(QUESTION).call().chatResponse();
+    }
+
+    @Benchmark
+    public ChatResponse evaluatedFirstAttempt() {
+        return evaluated.prompt().user(QUESTION).call().chatResponse();
+    }
+
+    @Benchmark
+    public ChatResponse evaluatedWithOneRetry() {
+        return evaluatedWithRetry.prompt().user(QUESTION).call().chatResponse();
+    }
+
+    /** Answers every search with the same three pages, so only the advisors are measured. */
+    private static final class FixedVectorStore implements VectorStore {
+        private final List<Document> pages = IntStream.rangeClosed(1, 3)
+                .mapToObj(p -> new Document("Page " + p + "\nText:\n" + "operating margin by quarter ".repeat(40),
+                        Map.of("page_number", p, "file_name", "report.pdf")))
+                .toList();
+
+        @Override
+        public void add(List<Document> documents) {
+        }
+
+        @Override
+        public void delete(List<String> idList) {
+        }
+
+        @Override
+        public void delete(Filter.Expression filterExpression) {
+        }
+
+        @Override
+        public List<Document> similaritySearch(SearchRequest request) {
+            return pages;
+        }
+    }
+}
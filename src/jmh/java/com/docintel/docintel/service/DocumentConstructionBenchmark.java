@@ -0,0 +1,59 @@
+package com.docintel.docintel.service;
+
+import com.google.genai.types.Schema;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.ai.document.Document;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Small objects built once per page, chunk or search hit: the extraction response schema, and Spring AI documents
+ * with the metadata ingestion attaches.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DocumentConstructionBenchmark {
+
+    private static final String CONTENT_HASH = "0".repeat(64);
+
+    private final String text = "Page 7\nText:\n" + "operating margin grew in every region ".repeat(60);
+    private final Document page = pageDocument(7);
+
+    @Benchmark
+    public Schema extractedPageSchema() {
+        return SchemaBuildingHelper.getGenAiSchemaForExtractedPage();
+    }
+
+    @Benchmark
+    public Document pageDocumentWithMetadata() {
+        return pageDocument(7);
+    }
+
+    private Document pageDocument(int pageNumber) {
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("tables", List.of("| a | b |"));
+        metadata.put("page_number", pageNumber);
+        metadata.put("file_name", "benchmark.pdf");
+        metadata.put("document_group", "default");
+        metadata.put("content_hash", CONTENT_HASH);
+        metadata.put("page_hash", ContentHashHelper.sha256(text));
+        return new Document(ContentHashHelper.pointId(CONTENT_HASH, pageNumber), text, metadata);
+    }
+
+    /** What every vector store does per hit: a copy of the stored document carrying its score. */
+    @Benchmark
+    public Document scoredCopy() {
+        Map<String, Object> metadata = new HashMap<>(page.getMetadata());
+        metadata.put("distance", 0.2);
+        return page.mutate().metadata(metadata).score(0.8).build();
+    }
+}
@@ -0,0 +1,137 @@
+package com.docintel.docintel.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.transformer.splitter.TokenTextSplitter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-page ingestion work that runs after Gemini answers: parsing the streamed extraction JSON, turning pages
+ * into documents and chunking them. Each operation covers a whole synthetic extraction of {@code pages} dense
+ * pages, so allocation figures read as bytes per extraction.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ExtractionTransformBenchmark {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    // the size of the text chunks Gemini streams back
+    private static final int STREAM_CHUNK_CHARS = 8 * 1024;
+
+    @Param({"50"})
+    int pages;
+
+    private String json;
+    private List<PageExtraction> extractions;
+    private List<Document> pageDocuments;
+    private PageChunker chunker;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        json = MAPPER.writeValueAsString(syntheticExtraction(pages, new Random(42)));
+        extractions = MAPPER.readValue(json, new TypeReference<>() {
+        });
+        chunker = new PageChunker(new TokenTextSplitter(), true, 800);
+        pageDocuments = new ArrayList<>();
+        for (PageExtraction page : extractions) {
+            pageDocuments.add(GenAiIMultiModalIngestionService.transformIntoDocument(
+                    page, "benchmark.pdf", "default", "0".repeat(64)));
+        }
+    }
+
+    @Benchmark
+    public int parseStreamedExtraction(Blackhole blackhole) throws Exception {
+        PageExtractionStreamParser parser = new PageExtractionStreamParser(MAPPER, blackhole::consume);
+        for (int start = 0; start < json.length(); start += STREAM_CHUNK_CHARS) {
+            parser.feed(json.substring(start, Math.min(start + STREAM_CHUNK_CHARS, json.length())));
+        }
+        return parser.finish();
+    }
+
+    @Benchmark
+    public void transformIntoDocument(Blackhole blackhole) throws Exception {
+        for (PageExtraction page : extractions) {
+            blackhole.consume(GenAiIMultiModalIngestionService.transformIntoDocument(
+                    page, "benchmark.pdf", "default", "0".repeat(64)));
+        }
+    }
+
+    @Benchmark
+    public void chunkPages(Blackhole blackhole) {
+        for (Document page : pageDocuments) {
+            blackhole.consume(chunker.chunk(page));
+        }
+    }
+
+    /**
+     * Pages shaped like real extractions of dense reports: prose, a few markdown tables, captioned images and
+     * nested JSON blocks.
+     */
+    static List<Map<String, Object>> syntheticExtraction(int pages, Random random) {
+        List<Map<String, Object>> extraction = new ArrayList<>(pages);
+        for (int p = 1; p <= pages; p++) {
+            Map<String, Object> page = new LinkedHashMap<>();
+            page.put("page_number", p);
+            List<String> tables = new ArrayList<>();
+            for (int t = 0; t < 3; t++) {
+                StringBuilder table = new StringBuilder("| Item | Q1 | Q2 | Q3 | Q4 |\n|---|---|---|---|---|\n");
+                for (int row = 0; row < 20; row++) {
+                    table.append("| ").append(words(random, 2)).append(" | ").append(random.nextInt(10_000))
+                            .append(" | ").append(random.nextInt(10_000)).append(" | ").append(random.nextInt(10_000))
+                            .append(" | ").append(random.nextInt(10_000)).append(" |\n");
+                }
+                tables.add(table.toString());
+            }
+            page.put("extracted_tables", tables);
+            List<Map<String, Object>> images = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                images.add(Map.of("caption", words(random, 12), "source", "figure-" + p + "-" + i));
+            }
+            page.put("images", images);
+            List<Object> blocks = new ArrayList<>();
+            for (int b = 0; b < 5; b++) {
+                blocks.add(Map.of("content", Map.of("raw", words(random, 40),
+                        "values", List.of(random.nextInt(100), random.nextInt(100), random.nextInt(100)))));
+            }
+            page.put("json_blocks", blocks);
+            StringBuilder text = new StringBuilder();
+            for (int paragraph = 0; paragraph < 6; paragraph++) {
+                text.append(words(random, 90)).append(".\n\n");
+            }
+            page.put("text_content", text.toString());
+            extraction.add(page);
+        }
+        return extraction;
+    }
+
+    private static String words(Random random, int count) {
+        String[] vocabulary = {"revenue", "margin", "segment", "growth", "operating", "capital", "forecast",
+                "quarter", "guidance", "cash", "flow", "expense", "customer", "region", "product", "demand"};
+        StringBuilder words = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                words.append(' ');
+            }
+            words.append(vocabulary[random.nextInt(vocabulary.length)]);
+        }
+        return words.toString();
+    }
+}
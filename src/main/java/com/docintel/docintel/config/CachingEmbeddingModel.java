@@ -0,0 +1,141 @@
+package com.docintel.docintel.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.BatchingStrategy;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.util.Assert;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Caches single-text embeddings, which is how the vector store embeds search queries, in front of a remote model.
+ * Bulk document embedding during ingestion passes straight through so it cannot flush hot queries out.
+ * Vectors live in one preallocated slab of {@code maxEntries} slots, on the heap or off it,
+ * and the least recently used slot is reused once the slab is full.
+ */
+public class CachingEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+    private final int maxEntries;
+    private final int dimensions;
+
+    /**
+     * Text to slot index, access-ordered so the first entry is the least recently used.
+     */
+    private final LinkedHashMap<String, Integer> slots = new LinkedHashMap<>(16, 0.75f, true);
+    private final FloatBuffer slab;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public CachingEmbeddingModel(EmbeddingModel delegate, int maxEntries, int dimensions, boolean offHeap,
+                                 MeterRegistry meterRegistry) {
+        Assert.isTrue(maxEntries > 0, "maxEntries must be greater than 0");
+        Assert.isTrue(dimensions > 0, "dimensions must be greater than 0");
+        this.delegate = delegate;
+        this.maxEntries = maxEntries;
+        this.dimensions = dimensions;
+        long bytes = slabBytes(maxEntries, dimensions);
+        this.slab = offHeap
+                ? ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder()).asFloatBuffer()
+                : FloatBuffer.wrap(new float[(int) (bytes / Float.BYTES)]);
+
+        this.hits = Counter.builder("docintel.embedding.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("docintel.embedding.cache.requests").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("docintel.embedding.cache.size", this, CachingEmbeddingModel::size).register(meterRegistry);
+        Gauge.builder("docintel.embedding.cache.hit_ratio", this, CachingEmbeddingModel::hitRatio)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public float[] embed(String text) {
+        synchronized (this) {
+            Integer slot = slots.get(text);
+            if (slot != null) {
+                hits.increment();
+                float[] vector = new float[dimensions];
+                slab.get(slot * dimensions, vector);
+                return vector;
+            }
+        }
+        misses.increment();
+        float[] vector = delegate.embed(text);
+        store(text, vector);
+        return vector;
+    }
+
+    private static long slabBytes(int maxEntries, int dimensions) {
+        long bytes = (long) maxEntries * dimensions * Float.BYTES;
+        Assert.isTrue(bytes <= Integer.MAX_VALUE, () -> "an embedding cache of " + maxEntries + " vectors of "
+                + dimensions + " dimensions exceeds 2 GB; lower docintel.embedding.cache.max-entries");
+        return bytes;
+    }
+
+    private synchronized void store(String text, float[] vector) {
+        if (vector.length != dimensions || slots.containsKey(text)) {
+            return;
+        }
+
+        int slot;
+        if (slots.size() < maxEntries) {
+            slot = slots.size();
+        } else {
+            Iterator<Map.Entry<String, Integer>> eldest = slots.entrySet().iterator();
+            slot = eldest.next().getValue();
+            eldest.remove();
+        }
+        slab.put(slot * dimensions, vector);
+        slots.put(text, slot);
+    }
+
+    public synchronized int size() {
+        return slots.size();
+    }
+
+    double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        return delegate.call(request);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return delegate.embed(document);
+    }
+
+    @Override
+    public List<float[]> embed(List<String> texts) {
+        return delegate.embed(texts);
+    }
+
+    @Override
+    public List<float[]> embed(List<Document> documents, EmbeddingOptions options, BatchingStrategy batchingStrategy) {
+        return delegate.embed(documents, options, batchingStrategy);
+    }
+
+    @Override
+    public EmbeddingResponse embedForResponse(List<String> texts) {
+        return delegate.embedForResponse(texts);
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+}
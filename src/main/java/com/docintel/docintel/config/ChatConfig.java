@@ -1,16 +1,30 @@
 package com.docintel.docintel.config;
 
+import ai.onnxruntime.OrtException;
+import com.docintel.docintel.service.DocumentScope;
 import com.google.genai.Client;
+import io.grpc.ManagedChannelBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.qdrant.client.ConditionFactory;
 import io.qdrant.client.QdrantClient;
 import io.qdrant.client.QdrantGrpcClient;
+import io.qdrant.client.ValueFactory;
+import io.qdrant.client.grpc.Collections.IntegerIndexParams;
+import io.qdrant.client.grpc.Collections.KeywordIndexParams;
+import io.qdrant.client.grpc.Collections.PayloadIndexParams;
+import io.qdrant.client.grpc.Collections.PayloadSchemaType;
+import io.qdrant.client.grpc.Points.Filter;
+import io.qdrant.client.grpc.Points.SearchParams;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.ChatClientRequest;
 import org.springframework.ai.chat.client.advisor.SimpleLoggerAdvisor;
 import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
 import org.springframework.ai.chat.memory.MessageWindowChatMemory;
 import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.embedding.EmbeddingModel;
-import org.springframework.ai.embedding.TokenCountBatchingStrategy;
 import org.springframework.ai.google.genai.GoogleGenAiChatModel;
 import org.springframework.ai.google.genai.GoogleGenAiChatOptions;
 import org.springframework.ai.google.genai.GoogleGenAiEmbeddingConnectionDetails;
@@ -25,22 +39,36 @@ import org.springframework.ai.retry.TransientAiException;
 import org.springframework.ai.transformer.splitter.TokenTextSplitter;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.ai.vectorstore.qdrant.QdrantVectorStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
 import org.springframework.retry.support.RetryTemplate;
 import org.springframework.retry.support.RetryTemplateBuilder;
+import org.springframework.util.Assert;
 import org.springframework.web.client.ResourceAccessException;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.function.Function;
 
 @Configuration
+@EnableConfigurationProperties(RetrievalProperties.class)
 public class ChatConfig {
+    private static final Logger logger = LoggerFactory.getLogger(ChatConfig.class);
 
 
     @Bean
@@ -107,8 +135,11 @@ public class ChatConfig {
     }
 
     @Bean
-    public ChatMemory chatMemory() {
-        return MessageWindowChatMemory.builder().maxMessages(60).build();
+    public ChatMemory chatMemory(ChatMemoryRepository chatMemoryRepository) {
+        return MessageWindowChatMemory.builder()
+                .chatMemoryRepository(chatMemoryRepository)
+                .maxMessages(60)
+                .build();
     }
 
     @Bean
@@ -127,32 +158,222 @@ public class ChatConfig {
 
     @Bean
     public EmbeddingModel embeddingModel(GoogleGenAiEmbeddingConnectionDetails googleGenAiEmbeddingConnectionDetails,
-                                         GoogleGenAiTextEmbeddingOptions googleGenAiTextEmbeddingOptions) {
-        return new GoogleGenAiTextEmbeddingModel(googleGenAiEmbeddingConnectionDetails, googleGenAiTextEmbeddingOptions);
+                                         GoogleGenAiTextEmbeddingOptions googleGenAiTextEmbeddingOptions,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${docintel.embedding.cache.max-entries:10000}") int maxEntries,
+                                         @Value("${docintel.embedding.cache.off-heap:false}") boolean offHeap) {
+        EmbeddingModel embeddingModel =
+                new GoogleGenAiTextEmbeddingModel(googleGenAiEmbeddingConnectionDetails, googleGenAiTextEmbeddingOptions);
+        // a max-entries of 0 turns the query embedding cache off
+        return maxEntries > 0
+                ? new CachingEmbeddingModel(embeddingModel, maxEntries,
+                        googleGenAiTextEmbeddingOptions.getDimensions(), offHeap, meterRegistry)
+                : embeddingModel;
     }
 
     @Bean
+    public QdrantCollectionSettings qdrantCollectionSettings(
+            @Value("${docintel.vectorstore.collection.quantization:none}") String quantization,
+            @Value("${docintel.vectorstore.collection.quantization-always-ram:true}") boolean quantizedAlwaysRam,
+            @Value("${docintel.vectorstore.collection.rescore:true}") boolean rescore,
+            @Value("${docintel.vectorstore.collection.oversampling:2.0}") double oversampling,
+            @Value("${docintel.vectorstore.collection.vectors-on-disk:false}") boolean vectorsOnDisk,
+            @Value("${docintel.vectorstore.collection.payload-on-disk:false}") boolean payloadOnDisk,
+            @Value("${docintel.vectorstore.collection.hnsw.m:0}") int hnswM,
+            @Value("${docintel.vectorstore.collection.hnsw.ef-construct:0}") int hnswEfConstruct,
+            @Value("${docintel.vectorstore.collection.hnsw.on-disk:false}") boolean hnswOnDisk,
+            @Value("${docintel.vectorstore.collection.search.hnsw-ef:0}") int searchHnswEf,
+            @Value("${docintel.vectorstore.collection.optimizer.indexing-threshold:0}") long indexingThreshold,
+            @Value("${docintel.vectorstore.collection.optimizer.memmap-threshold:0}") long memmapThreshold) {
+        return new QdrantCollectionSettings(QdrantCollectionSettings.Quantization.parse(quantization),
+                quantizedAlwaysRam, rescore, oversampling, vectorsOnDisk, payloadOnDisk, hnswM, hnswEfConstruct,
+                hnswOnDisk, searchHnswEf, indexingThreshold, memmapThreshold);
+    }
+
+    @Bean
+    @Profile("!embedded")
     public QdrantClient qdrantClient(
             @Value("${spring.ai.vectorstore.qdrant.host}") String host,
             @Value("${spring.ai.vectorstore.qdrant.port}") int port,
-            @Value("${spring.ai.vectorstore.qdrant.api-key}") String apiKey
+            @Value("${spring.ai.vectorstore.qdrant.api-key}") String apiKey,
+            QdrantCollectionSettings collectionSettings,
+            RetrievalProperties retrieval
     ) {
+        ManagedChannelBuilder<?> channel = ManagedChannelBuilder.forAddress(host, port)
+                .useTransportSecurity();
+        boolean twoStage = retrieval.strategy() == RetrievalProperties.Strategy.TWO_STAGE;
+        Assert.isTrue(!twoStage || collectionSettings.quantization() != QdrantCollectionSettings.Quantization.NONE
+                        && collectionSettings.rescore(),
+                "the two-stage strategy needs a quantized collection with rescore enabled");
+        SearchParams searchParams = collectionSettings.searchParams(twoStage);
+        if (searchParams != null) {
+            channel.intercept(new SearchParamsInterceptor(searchParams));
+        }
         QdrantGrpcClient.Builder grpcClientBuilder =
                 QdrantGrpcClient.newBuilder(
-                        host, port, true, false);
+                        channel.build(), true, false);
         grpcClientBuilder.withApiKey(apiKey);
 
         return new QdrantClient(grpcClientBuilder.build());
     }
 
     @Bean
-    public VectorStore vectorStore(QdrantClient qdrantClient, EmbeddingModel embeddingModel) {
+    @Profile("!embedded")
+    public QdrantVectorStore qdrantVectorStore(
+            QdrantClient qdrantClient,
+            EmbeddingModel embeddingModel,
+            QdrantCollectionSettings collectionSettings,
+            @Value("${docintel.vectorstore.write-behind.max-documents:96}") int maxDocuments,
+            @Value("${docintel.vectorstore.write-behind.max-tokens:20000}") int maxTokens)
+            throws ExecutionException, InterruptedException {
+        // the collection is created here rather than by the store, which only knows Qdrant's defaults
+        QdrantCollectionInitializer.ensureCollection(qdrantClient, QdrantVectorStore.DEFAULT_COLLECTION_NAME,
+                embeddingModel.dimensions(), collectionSettings);
+        createPayloadIndexes(qdrantClient, QdrantVectorStore.DEFAULT_COLLECTION_NAME);
+        backfillDocumentGroup(qdrantClient, QdrantVectorStore.DEFAULT_COLLECTION_NAME);
         return QdrantVectorStore.builder(qdrantClient, embeddingModel)
-                .initializeSchema(true)
-                .batchingStrategy(new TokenCountBatchingStrategy())
+                .initializeSchema(false)
+                .batchingStrategy(new CoalescedBatchingStrategy(maxDocuments, maxTokens))
                 .build();
     }
 
+    @Bean
+    @Profile("embedded")
+    public EmbeddedVectorStore embeddedVectorStore(
+            EmbeddingModel embeddingModel,
+            @Value("${docintel.vectorstore.embedded.directory:data/vector-store}") Path directory,
+            @Value("${docintel.vectorstore.embedded.segment-capacity:16384}") int segmentCapacity,
+            @Value("${docintel.vectorstore.write-behind.max-documents:96}") int maxDocuments,
+            @Value("${docintel.vectorstore.write-behind.max-tokens:20000}") int maxTokens) throws IOException {
+        return new EmbeddedVectorStore(embeddingModel, new CoalescedBatchingStrategy(maxDocuments, maxTokens),
+                directory, segmentCapacity);
+    }
+
+    /**
+     * Assembles retrieval on top of Qdrant, or on top of the embedded store under the {@code embedded} profile.
+     */
+    @Bean
+    @Primary
+    public VectorStore vectorStore(
+            ObjectProvider<QdrantVectorStore> qdrantVectorStore,
+            ObjectProvider<QdrantClient> qdrantClient,
+            ObjectProvider<EmbeddedVectorStore> embeddedVectorStore,
+            RetrievalProperties retrieval,
+            ObjectProvider<Reranker> reranker,
+            @Qualifier("rerankWorkers") ObjectProvider<ThreadPoolExecutor> rerankWorkers,
+            MeterRegistry meterRegistry) {
+        EmbeddedVectorStore embedded = embeddedVectorStore.getIfAvailable();
+        VectorStore vectorStore;
+        if (embedded != null) {
+            // every embedded search is already exact over the full vectors
+            Assert.isTrue(retrieval.strategy() == RetrievalProperties.Strategy.FULL,
+                    "the embedded vector store only supports the full strategy");
+            vectorStore = embedded;
+        } else {
+            // the strategy is carried by the search parameters of the Qdrant client
+            vectorStore = qdrantVectorStore.getObject();
+        }
+        if (retrieval.hybrid().enabled()) {
+            LexicalIndex lexicalIndex = new LexicalIndex();
+            if (embedded != null) {
+                lexicalIndex.indexIfAbsent(embedded.documents());
+            } else {
+                new QdrantLexicalIndexLoader(qdrantClient.getObject(), QdrantVectorStore.DEFAULT_COLLECTION_NAME,
+                        lexicalIndex).start();
+            }
+            vectorStore = new HybridSearchVectorStore(vectorStore, lexicalIndex, retrieval.hybrid().rrfK(),
+                    retrieval.hybrid().candidateMultiplier());
+        }
+        Reranker available = reranker.getIfAvailable();
+        if (available != null) {
+            RetrievalProperties.Rerank rerank = retrieval.rerank();
+            vectorStore = new RerankingVectorStore(vectorStore, available, rerank.candidates(), rerank.batchSize(),
+                    rerankWorkers.getObject(), rerank.budget(), meterRegistry);
+        }
+        if (retrieval.compression().enabled()) {
+            vectorStore = new CompressingVectorStore(
+                    vectorStore, new ContextCompressor(retrieval.compression().maxTokens()), meterRegistry);
+        }
+        return vectorStore;
+    }
+
+    /**
+     * Indexes the payload fields retrieval filters on, so a document-scoped search is narrowed by the index and
+     * Qdrant builds filter-aware HNSW links for them instead of scanning or post-filtering the whole collection.
+     * The document group is marked as the tenant field, which keeps each group's points together on disk.
+     * Creating an index that already exists is a no-op; a failure only costs filtered search speed.
+     */
+    private static void createPayloadIndexes(QdrantClient qdrantClient, String collection) {
+        Map<String, PayloadSchemaType> types = new LinkedHashMap<>();
+        Map<String, PayloadIndexParams> params = new LinkedHashMap<>();
+        types.put("document_group", PayloadSchemaType.Keyword);
+        params.put("document_group", PayloadIndexParams.newBuilder()
+                .setKeywordIndexParams(KeywordIndexParams.newBuilder().setIsTenant(true))
+                .build());
+        types.put("file_name", PayloadSchemaType.Keyword);
+        types.put("page_number", PayloadSchemaType.Integer);
+        params.put("page_number", PayloadIndexParams.newBuilder()
+                .setIntegerIndexParams(IntegerIndexParams.newBuilder().setLookup(true).setRange(true))
+                .build());
+
+        for (Map.Entry<String, PayloadSchemaType> field : types.entrySet()) {
+            try {
+                qdrantClient.createPayloadIndexAsync(collection, field.getKey(), field.getValue(),
+                        params.get(field.getKey()), true, null, null).get();
+                logger.info("payload index on {}.{} ({}) is in place", collection, field.getKey(), field.getValue());
+            } catch (ExecutionException e) {
+                logger.warn("could not create payload index on {}.{}", collection, field.getKey(), e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Puts points indexed before documents had groups into the default group, so that deleting or searching
+     * the default group's pages, which filters on the field, also reaches them. Once every point has a group
+     * this is a single indexed count.
+     */
+    private static void backfillDocumentGroup(QdrantClient qdrantClient, String collection) {
+        Filter ungrouped = Filter.newBuilder().addMust(ConditionFactory.isEmpty("document_group")).build();
+        try {
+            long count = qdrantClient.countAsync(collection, ungrouped, true).get();
+            if (count == 0) {
+                return;
+            }
+            qdrantClient.setPayloadAsync(collection,
+                    Map.of("document_group", ValueFactory.value(DocumentScope.DEFAULT_GROUP)),
+                    ungrouped, true, null, null).get();
+            logger.info("moved {} points of {} without a document group into the {} group",
+                    count, collection, DocumentScope.DEFAULT_GROUP);
+        } catch (ExecutionException e) {
+            logger.warn("could not backfill the document group of {}", collection, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "docintel.retrieval.rerank.enabled", havingValue = "true")
+    public OnnxCrossEncoderReranker reranker(RetrievalProperties retrieval) throws IOException, OrtException {
+        RetrievalProperties.Rerank rerank = retrieval.rerank();
+        Assert.notNull(rerank.modelPath(), "docintel.retrieval.rerank.model-path is required");
+        Assert.notNull(rerank.tokenizerPath(), "docintel.retrieval.rerank.tokenizer-path is required");
+        return new OnnxCrossEncoderReranker(rerank.modelPath(), rerank.tokenizerPath(), rerank.maxLength(),
+                rerank.intraOpThreads());
+    }
+
+    /**
+     * Scores rerank batches. It is a bean of its own so the context shuts it down; the reranking store that uses
+     * it is buried in the retrieval chain.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    @ConditionalOnProperty(name = "docintel.retrieval.rerank.enabled", havingValue = "true")
+    public ThreadPoolExecutor rerankWorkers(RetrievalProperties retrieval) {
+        return RerankingVectorStore.workerPool(retrieval.rerank().workers(), retrieval.rerank().queueCapacity());
+    }
+
     @Bean
     public OpenAiChatModel openAiChatModel(OpenAiApi openAiApi, RetryTemplate retryTemplate) {
         return OpenAiChatModel.builder()
@@ -0,0 +1,50 @@
+package com.docintel.docintel.config;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.BatchingStrategy;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sizes embedding requests with the same document and token limits the write-behind buffer flushes on,
+ * so a coalesced flush normally reaches the embedding model as exactly one request.
+ * Anything added to the store directly is still cut to those limits.
+ */
+public class CoalescedBatchingStrategy implements BatchingStrategy {
+
+    private final TokenCountEstimator tokenCounter = new JTokkitTokenCountEstimator();
+    private final int maxDocuments;
+    private final int maxTokens;
+
+    public CoalescedBatchingStrategy(int maxDocuments, int maxTokens) {
+        Assert.isTrue(maxDocuments > 0, "maxDocuments must be greater than 0");
+        Assert.isTrue(maxTokens > 0, "maxTokens must be greater than 0");
+        this.maxDocuments = maxDocuments;
+        this.maxTokens = maxTokens;
+    }
+
+    @Override
+    public List<List<Document>> batch(List<Document> documents) {
+        List<List<Document>> batches = new ArrayList<>();
+        List<Document> current = new ArrayList<>();
+        int currentTokens = 0;
+        for (Document document : documents) {
+            int tokens = document.getText() != null ? tokenCounter.estimate(document.getText()) : 0;
+            if (!current.isEmpty() && (current.size() >= maxDocuments || currentTokens + tokens > maxTokens)) {
+                batches.add(current);
+                current = new ArrayList<>();
+                currentTokens = 0;
+            }
+            current.add(document);
+            currentTokens += tokens;
+        }
+        if (!current.isEmpty()) {
+            batches.add(current);
+        }
+        return batches;
+    }
+}
@@ -0,0 +1,70 @@
+package com.docintel.docintel.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * {@link VectorStore} decorator that runs search results through a {@link ContextCompressor}, so only the
+ * parts of each retrieved document relevant to the query reach the prompt. Writes pass straight through.
+ */
+public class CompressingVectorStore implements VectorStore {
+    private static final Logger logger = LoggerFactory.getLogger(CompressingVectorStore.class);
+
+    private final VectorStore delegate;
+    private final ContextCompressor compressor;
+    private final Counter tokensRetrieved;
+    private final Counter tokensKept;
+
+    public CompressingVectorStore(VectorStore delegate, ContextCompressor compressor, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.compressor = compressor;
+        this.tokensRetrieved = meterRegistry.counter("docintel.retrieval.context.tokens", "stage", "retrieved");
+        this.tokensKept = meterRegistry.counter("docintel.retrieval.context.tokens", "stage", "compressed");
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        delegate.add(documents);
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        delegate.delete(idList);
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        delegate.delete(filterExpression);
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        List<Document> documents = delegate.similaritySearch(request);
+        List<Document> compressed = compressor.compress(request.getQuery(), documents);
+        int before = compressor.estimateTokens(documents);
+        int after = compressor.estimateTokens(compressed);
+        tokensRetrieved.increment(before);
+        tokensKept.increment(after);
+        logger.debug("compressed {} retrieved documents from {} to {} tokens", documents.size(), before, after);
+        return compressed;
+    }
+
+    @Override
+    public <T> Optional<T> getNativeClient() {
+        return delegate.getNativeClient();
+    }
+}
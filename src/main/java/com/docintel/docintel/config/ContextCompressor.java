@@ -0,0 +1,364 @@
+package com.docintel.docintel.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ContainerNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.MatchResult;
+import java.util.regex.Pattern;
+
+/**
+ * Query-focused compression of retrieved documents before they are put into the prompt.
+ * Each document is cut into units: sentences, table rows, caption lines, and the leaf values of
+ * large JSON blocks. Units are scored by the IDF-weighted query terms they contain, and the best ones
+ * are kept until {@code maxTokens} is spent across all documents. A document with no matching unit
+ * keeps its leading units within an even share of the budget, since dense retrieval found it for reasons
+ * word overlap cannot see. Kept units are reassembled in page order under their section headings and
+ * table headers, after a "Page N (file: name)" line so answers can still cite their source; JSON leaves are put
+ * back into the nesting they came from. A page none of whose units fit the budget is still listed by that line
+ * with an omission marker, so the model knows it was retrieved.
+ */
+public class ContextCompressor {
+    private static final Logger logger = LoggerFactory.getLogger(ContextCompressor.class);
+    static final String OMITTED = "[content omitted to fit the context budget]";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Set<String> SECTION_HEADINGS = Set.of("Tables:", "Images:", "JSON Blocks:", "Text:");
+    private static final Pattern PAGE_HEADER = Pattern.compile("Page \\d+.*");
+    private static final Pattern SENTENCE_END = Pattern.compile("(?<=[.!?])\\s+(?=[\\p{Lu}\\p{N}\"'(])");
+    private static final Pattern TABLE_SEPARATOR = Pattern.compile("\\|?\\s*:?-{3,}.*");
+    private static final Pattern JSON_PATH_SEGMENT = Pattern.compile("\\[\\d+]|[^.\\[]+");
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "can", "did", "do", "does", "for", "from", "how",
+            "i", "in", "is", "it", "its", "me", "of", "on", "or", "show", "tell", "that", "the", "this", "to",
+            "was", "were", "what", "when", "where", "which", "who", "why", "with", "you");
+    // JSON blocks up to this size are kept or dropped whole rather than split into leaves
+    private static final int JSON_BLOCK_UNIT_TOKENS = 60;
+    private static final int MIN_UNITS_FOR_COMMON_TERMS = 10;
+
+    private final TokenCountEstimator tokenCounter = new JTokkitTokenCountEstimator();
+    private final int maxTokens;
+
+    public ContextCompressor(int maxTokens) {
+        Assert.isTrue(maxTokens > 0, "max-tokens must be greater than 0");
+        this.maxTokens = maxTokens;
+    }
+
+    public List<Document> compress(String query, List<Document> documents) {
+        Set<String> queryTerms = new LinkedHashSet<>(LexicalIndex.tokenize(query));
+        queryTerms.removeAll(STOP_WORDS);
+        if (queryTerms.isEmpty() || documents.isEmpty()) {
+            return documents;
+        }
+
+        List<Page> pages = new ArrayList<>();
+        for (int i = 0; i < documents.size(); i++) {
+            pages.add(parse(i, documents.get(i)));
+        }
+        List<Unit> units = pages.stream().flatMap(p -> p.units().stream()).toList();
+        Map<String, Integer> documentFrequency = new HashMap<>();
+        units.forEach(u -> u.terms().stream().filter(queryTerms::contains)
+                .forEach(t -> documentFrequency.merge(t, 1, Integer::sum)));
+        // a term found in most units, such as a table's subject, cannot tell them apart
+        if (units.size() >= MIN_UNITS_FOR_COMMON_TERMS) {
+            documentFrequency.values().removeIf(df -> df > units.size() / 2);
+        }
+        Map<Unit, Double> scores = new HashMap<>();
+        for (Unit unit : units) {
+            double score = 0;
+            for (String term : documentFrequency.keySet()) {
+                if (unit.terms().contains(term)) {
+                    score += Math.log(1 + (double) units.size() / documentFrequency.get(term));
+                }
+            }
+            scores.put(unit, score);
+        }
+
+        Selection selection = new Selection();
+        units.stream()
+                .filter(u -> scores.get(u) > 0)
+                .sorted(Comparator.comparingDouble((Unit u) -> scores.get(u)).reversed()
+                        .thenComparingInt(Unit::page)
+                        .thenComparingInt(Unit::position))
+                .forEach(u -> selection.offer(u, maxTokens));
+        int share = maxTokens / pages.size();
+        for (Page page : pages) {
+            if (!selection.hasPage(page.index())) {
+                int limit = Math.min(maxTokens, selection.spent + share);
+                page.units().forEach(u -> selection.offer(u, limit));
+            }
+        }
+
+        List<Document> compressed = new ArrayList<>();
+        for (Page page : pages) {
+            if (selection.hasPage(page.index())) {
+                compressed.add(page.document().mutate().text(render(page, selection.units)).build());
+            } else if (!page.units().isEmpty()) {
+                logger.info("no part of retrieved page '{}' fit the {} token context budget", page.header(), maxTokens);
+                String omitted = page.header().isEmpty() ? OMITTED : page.header() + "\n" + OMITTED;
+                compressed.add(page.document().mutate().text(omitted).build());
+            }
+        }
+        return compressed;
+    }
+
+    int estimateTokens(List<Document> documents) {
+        return documents.stream().mapToInt(d -> d.getText() != null ? tokenCounter.estimate(d.getText()) : 0).sum();
+    }
+
+    private Page parse(int index, Document document) {
+        List<String> lines = document.getText() != null ? List.of(document.getText().split("\n")) : List.of();
+        int start = 0;
+        String header;
+        if (!lines.isEmpty() && PAGE_HEADER.matcher(lines.get(0).trim()).matches()) {
+            header = lines.get(0).trim();
+            start = 1;
+        } else {
+            Object pageNumber = document.getMetadata().get("page_number");
+            header = pageNumber != null ? "Page " + pageNumber : "";
+        }
+        Object fileName = document.getMetadata().get("file_name");
+        if (fileName != null) {
+            header = (header.isEmpty() ? "" : header + " ") + "(file: " + fileName + ")";
+        }
+
+        List<Unit> units = new ArrayList<>();
+        String section = null;
+        String tableHeader = null;
+        int group = 0;
+        for (int i = start; i < lines.size(); i++) {
+            String line = lines.get(i).strip();
+            if (line.isEmpty()) {
+                tableHeader = null;
+                continue;
+            }
+            if (SECTION_HEADINGS.contains(line)) {
+                section = line;
+                tableHeader = null;
+                continue;
+            }
+            if (line.startsWith("|")) {
+                if (tableHeader == null) {
+                    tableHeader = line;
+                    group++;
+                    if (i + 1 < lines.size() && TABLE_SEPARATOR.matcher(lines.get(i + 1).strip()).matches()) {
+                        tableHeader += "\n" + lines.get(++i).strip();
+                    }
+                    continue;
+                }
+                units.add(unit(index, units.size(), section, group, tableHeader, line, UnitKind.ROW));
+                continue;
+            }
+            tableHeader = null;
+            group++;
+            if ((line.startsWith("{") || line.startsWith("[")) && tokenCounter.estimate(line) > JSON_BLOCK_UNIT_TOKENS) {
+                List<String> leaves = jsonLeaves(line);
+                if (!leaves.isEmpty()) {
+                    for (String leaf : leaves) {
+                        units.add(unit(index, units.size(), section, group, null, leaf, UnitKind.JSON_LEAF));
+                    }
+                    continue;
+                }
+            }
+            for (String sentence : SENTENCE_END.split(line)) {
+                units.add(unit(index, units.size(), section, group, null, sentence, UnitKind.TEXT));
+            }
+        }
+        return new Page(index, document, header, units);
+    }
+
+    private Unit unit(int page, int position, String section, int group, String groupHeader, String text, UnitKind kind) {
+        String matched = text;
+        if (kind == UnitKind.JSON_LEAF) {
+            // a leaf matches on its own key and value; the path above it is shared by its siblings
+            int separator = text.indexOf('=');
+            String path = text.substring(0, separator);
+            int keyStart = Math.max(path.lastIndexOf('.'), path.lastIndexOf(']')) + 1;
+            matched = path.substring(keyStart) + " " + text.substring(separator + 1);
+        }
+        return new Unit(page, position, section, group, groupHeader, text, kind,
+                tokenCounter.estimate(text), new HashSet<>(LexicalIndex.tokenize(matched)));
+    }
+
+    /** Flattens a JSON block into "path=value" leaves, or returns nothing when it does not parse. */
+    private static List<String> jsonLeaves(String json) {
+        try {
+            List<String> leaves = new ArrayList<>();
+            flatten("", MAPPER.readTree(json), leaves);
+            return leaves;
+        } catch (JsonProcessingException e) {
+            return List.of();
+        }
+    }
+
+    private static void flatten(String path, JsonNode node, List<String> leaves) {
+        if (node.isObject()) {
+            node.properties().forEach(e -> flatten(path.isEmpty() ? e.getKey() : path + "." + e.getKey(), e.getValue(), leaves));
+        } else if (node.isArray()) {
+            for (int i = 0; i < node.size(); i++) {
+                flatten(path + "[" + i + "]", node.get(i), leaves);
+            }
+        } else {
+            leaves.add(path + "=" + node.asText());
+        }
+    }
+
+    private String render(Page page, Set<Unit> selected) {
+        StringBuilder sb = new StringBuilder(page.header());
+        String section = null;
+        int group = -1;
+        List<String> fragment = new ArrayList<>();
+        for (Unit unit : page.units()) {
+            if (!selected.contains(unit)) {
+                continue;
+            }
+            boolean newGroup = unit.group() != group;
+            if (newGroup && !fragment.isEmpty()) {
+                appendLine(sb, unflatten(fragment).toString());
+                fragment.clear();
+            }
+            if (unit.section() != null && !unit.section().equals(section)) {
+                appendLine(sb, unit.section());
+                section = unit.section();
+            }
+            if (newGroup && unit.groupHeader() != null) {
+                appendLine(sb, unit.groupHeader());
+            }
+            group = unit.group();
+            if (unit.kind() == UnitKind.JSON_LEAF) {
+                fragment.add(unit.text());
+            } else if (unit.kind() == UnitKind.TEXT && !newGroup) {
+                sb.append(' ').append(unit.text());
+            } else {
+                appendLine(sb, unit.text());
+            }
+        }
+        if (!fragment.isEmpty()) {
+            appendLine(sb, unflatten(fragment).toString());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Rebuilds the nesting of "path=value" leaves taken from one JSON block. Arrays keep only the elements that
+     * have a kept leaf, in their original order.
+     */
+    private static JsonNode unflatten(List<String> leaves) {
+        ContainerNode<?> root = null;
+        Map<String, ContainerNode<?>> containers = new HashMap<>();
+        for (String leaf : leaves) {
+            int separator = leaf.indexOf('=');
+            List<String> segments = JSON_PATH_SEGMENT.matcher(leaf.substring(0, separator)).results()
+                    .map(MatchResult::group)
+                    .toList();
+            if (root == null) {
+                root = container(segments.getFirst());
+            }
+            ContainerNode<?> parent = root;
+            String path = "";
+            for (int i = 0; i < segments.size(); i++) {
+                String segment = segments.get(i);
+                path += segment.startsWith("[") || path.isEmpty() ? segment : "." + segment;
+                if (i == segments.size() - 1) {
+                    attach(parent, segment, TextNode.valueOf(leaf.substring(separator + 1)));
+                    break;
+                }
+                ContainerNode<?> child = containers.get(path);
+                if (child == null) {
+                    child = container(segments.get(i + 1));
+                    attach(parent, segment, child);
+                    containers.put(path, child);
+                }
+                parent = child;
+            }
+        }
+        return root;
+    }
+
+    /** @return the container a path segment is looked up in: an array for an index, otherwise an object */
+    private static ContainerNode<?> container(String segment) {
+        return segment.startsWith("[") ? MAPPER.createArrayNode() : MAPPER.createObjectNode();
+    }
+
+    private static void attach(ContainerNode<?> parent, String segment, JsonNode child) {
+        if (parent instanceof ArrayNode array) {
+            array.add(child);
+        } else {
+            ((ObjectNode) parent).set(segment, child);
+        }
+    }
+
+    private static void appendLine(StringBuilder sb, String line) {
+        if (!sb.isEmpty()) {
+            sb.append('\n');
+        }
+        sb.append(line);
+    }
+
+    /**
+     * Tracks the kept units and the tokens they cost, counting each page header, section heading and
+     * table header once, the first time a unit needs it.
+     */
+    private final class Selection {
+        private final Set<Unit> units = new HashSet<>();
+        private final Set<Integer> pages = new HashSet<>();
+        private final Set<String> headings = new HashSet<>();
+        private int spent;
+
+        boolean hasPage(int page) {
+            return pages.contains(page);
+        }
+
+        void offer(Unit unit, int limit) {
+            if (units.contains(unit)) {
+                return;
+            }
+            int cost = unit.tokens();
+            String sectionKey = unit.page() + "/" + unit.section();
+            String groupKey = unit.page() + "#" + unit.group();
+            if (!pages.contains(unit.page())) {
+                cost += 8;
+            }
+            if (unit.section() != null && !headings.contains(sectionKey)) {
+                cost += 2;
+            }
+            if (unit.groupHeader() != null && !headings.contains(groupKey)) {
+                cost += tokenCounter.estimate(unit.groupHeader());
+            }
+            if (spent + cost > limit) {
+                return;
+            }
+            spent += cost;
+            units.add(unit);
+            pages.add(unit.page());
+            headings.add(sectionKey);
+            headings.add(groupKey);
+        }
+    }
+
+    private enum UnitKind {TEXT, ROW, JSON_LEAF}
+
+    private record Page(int index, Document document, String header, List<Unit> units) {
+    }
+
+    private record Unit(int page, int position, String section, int group, String groupHeader,
+                        String text, UnitKind kind, int tokens, Set<String> terms) {
+    }
+}
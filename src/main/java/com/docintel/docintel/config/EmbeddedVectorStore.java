@@ -0,0 +1,386 @@
+package com.docintel.docintel.config;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.DocumentMetadata;
+import org.springframework.ai.embedding.BatchingStrategy;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.util.Assert;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+/**
+ * In-process {@link VectorStore} for development, tests and small deployments, so retrieval needs no Qdrant.
+ * <p>
+ * Vectors are stored unit-length in memory-mapped {@link VectorSegment} files, off the heap, and every search
+ * is an exact scan of them with SIMD dot products, split across cores once the store is large. Document text
+ * and metadata are kept on the heap and in an append-only JSON-lines log the store is rebuilt from on startup;
+ * slots freed by deletes are reused, and the log is rewritten when mostly superseded. Each batch of added
+ * vectors is forced to disk before its log entries are written, so a crash cannot leave entries pointing at
+ * vectors that were never persisted. Filters are evaluated against the metadata the way Qdrant evaluates them.
+ */
+public class EmbeddedVectorStore implements VectorStore, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddedVectorStore.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String LOG_FILE = "documents.jsonl";
+    private static final String SEGMENT_SUFFIX = ".vec";
+    // slots scanned per task; below two of them a single thread is faster than the fork-join hand-off
+    private static final int SCAN_CHUNK_SLOTS = 4_096;
+
+    private final EmbeddingModel embeddingModel;
+    private final BatchingStrategy batchingStrategy;
+    private final Path root;
+    private final Path log;
+    private final int segmentCapacity;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final List<VectorSegment> segments = new ArrayList<>();
+    // document per slot, null where the slot is free
+    private final List<Document> slots = new ArrayList<>();
+    private final Map<String, Integer> slotById = new HashMap<>();
+    private final TreeSet<Integer> freeSlots = new TreeSet<>();
+    // 0 until the first vector is stored
+    private int dimensions;
+
+    public EmbeddedVectorStore(EmbeddingModel embeddingModel, BatchingStrategy batchingStrategy, Path root,
+                               int segmentCapacity) throws IOException {
+        Assert.isTrue(segmentCapacity > 0, "segment-capacity must be greater than 0");
+        this.embeddingModel = embeddingModel;
+        this.batchingStrategy = batchingStrategy;
+        this.root = root;
+        this.log = root.resolve(LOG_FILE);
+        this.segmentCapacity = segmentCapacity;
+        Files.createDirectories(root);
+        load();
+    }
+
+    private void load() throws IOException {
+        long started = System.currentTimeMillis();
+        for (int i = 0; Files.isRegularFile(segmentPath(i)); i++) {
+            VectorSegment segment = VectorSegment.open(segmentPath(i));
+            if (i > 0 && (segment.dimensions() != dimensions || segment.capacity() != segments.get(0).capacity())) {
+                throw new IOException(segmentPath(i) + " does not match the first segment of " + root);
+            }
+            dimensions = segment.dimensions();
+            segments.add(segment);
+        }
+        int entries = 0;
+        if (Files.isRegularFile(log)) {
+            try (BufferedReader reader = Files.newBufferedReader(log, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isBlank()) {
+                        replay(MAPPER.readValue(line, LogEntry.class));
+                        entries++;
+                    }
+                }
+            }
+        }
+        for (int slot = 0; slot < slots.size(); slot++) {
+            if (slots.get(slot) == null) {
+                freeSlots.add(slot);
+            }
+        }
+        if (entries > 2 * slotById.size() + 1_000) {
+            rewriteLog();
+        }
+        logger.info("embedded vector store loaded {} documents in {} segments from {} in {} ms (simd={})",
+                slotById.size(), segments.size(), root, System.currentTimeMillis() - started, VectorSimilarity.SIMD);
+    }
+
+    private void replay(LogEntry entry) {
+        if (entry.slot() == null) {
+            Integer slot = slotById.remove(entry.id());
+            if (slot != null) {
+                slots.set(slot, null);
+            }
+            return;
+        }
+        int slot = entry.slot();
+        if (slot >= segments.size() * capacity()) {
+            // the log never gets ahead of the segments; skip rather than read past them
+            logger.warn("ignoring {}: slot {} is beyond the segments in {}", entry.id(), slot, root);
+            return;
+        }
+        Integer previous = slotById.put(entry.id(), slot);
+        if (previous != null && previous != slot) {
+            slots.set(previous, null);
+        }
+        while (slots.size() <= slot) {
+            slots.add(null);
+        }
+        Document displaced = slots.set(slot, Document.builder()
+                .id(entry.id())
+                .text(entry.text())
+                .metadata(entry.metadata() != null ? entry.metadata() : Map.of())
+                .build());
+        if (displaced != null && !displaced.getId().equals(entry.id())) {
+            slotById.remove(displaced.getId(), slot);
+        }
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        List<float[]> embeddings = embeddingModel.embed(documents, EmbeddingOptions.builder().build(),
+                batchingStrategy);
+        lock.writeLock().lock();
+        try {
+            List<LogEntry> entries = new ArrayList<>(documents.size());
+            Set<VectorSegment> written = new LinkedHashSet<>();
+            for (int i = 0; i < documents.size(); i++) {
+                Document document = documents.get(i);
+                float[] vector = embeddings.get(i);
+                if (dimensions == 0) {
+                    dimensions = vector.length;
+                }
+                Assert.isTrue(vector.length == dimensions, () -> "the store holds " + dimensions
+                        + "-dimension vectors, got " + vector.length + " for " + document.getId());
+                Integer previous = slotById.remove(document.getId());
+                if (previous != null) {
+                    release(previous);
+                }
+                int slot = allocate();
+                VectorSegment segment = segments.get(slot / capacity());
+                segment.write(slot % capacity(), VectorSimilarity.normalized(vector));
+                written.add(segment);
+                Document stored = Document.builder()
+                        .id(document.getId())
+                        .text(document.getText())
+                        .metadata(document.getMetadata())
+                        .build();
+                slots.set(slot, stored);
+                slotById.put(stored.getId(), slot);
+                entries.add(new LogEntry(stored.getId(), slot, stored.getText(), stored.getMetadata()));
+            }
+            // the vectors reach the disk before the log entries that point at them
+            written.forEach(VectorSegment::force);
+            append(entries);
+        } catch (IOException e) {
+            throw new UncheckedIOException("could not store documents in " + root, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        lock.writeLock().lock();
+        try {
+            List<LogEntry> entries = new ArrayList<>();
+            for (String id : idList) {
+                Integer slot = slotById.remove(id);
+                if (slot != null) {
+                    release(slot);
+                    entries.add(new LogEntry(id, null, null, null));
+                }
+            }
+            append(entries);
+        } catch (IOException e) {
+            throw new UncheckedIOException("could not delete documents from " + root, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        Predicate<Document> filter = MetadataFilter.matching(filterExpression);
+        lock.writeLock().lock();
+        try {
+            delete(slots.stream().filter(d -> d != null && filter.test(d)).map(Document::getId).toList());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        lock.readLock().lock();
+        try {
+            if (slotById.isEmpty()) {
+                return List.of();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        float[] query = VectorSimilarity.normalized(embeddingModel.embed(request.getQuery()));
+        Predicate<Document> filter = MetadataFilter.matching(request.getFilterExpression());
+        lock.readLock().lock();
+        try {
+            if (query.length != dimensions) {
+                throw new IllegalStateException("the store holds " + dimensions
+                        + "-dimension vectors, the query has " + query.length);
+            }
+            // a scan is bound by memory bandwidth, so large stores are scanned by several cores at once
+            IntStream chunks = IntStream.range(0, (slots.size() + SCAN_CHUNK_SLOTS - 1) / SCAN_CHUNK_SLOTS);
+            if (slots.size() > SCAN_CHUNK_SLOTS) {
+                chunks = chunks.parallel();
+            }
+            List<Scored> best = chunks
+                    .mapToObj(c -> scan(c * SCAN_CHUNK_SLOTS, Math.min((c + 1) * SCAN_CHUNK_SLOTS, slots.size()),
+                            query, filter, request.getTopK(), request.getSimilarityThreshold()))
+                    .flatMap(Collection::stream)
+                    .sorted(Comparator.comparingDouble(Scored::score).reversed())
+                    .limit(request.getTopK())
+                    .toList();
+            List<Document> results = new ArrayList<>(best.size());
+            for (Scored scored : best) {
+                Document document = slots.get(scored.slot());
+                Map<String, Object> metadata = new HashMap<>(document.getMetadata());
+                metadata.put(DocumentMetadata.DISTANCE.value(), 1 - scored.score());
+                results.add(document.mutate().metadata(metadata).score(scored.score()).build());
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The best {@code topK} of the slots from {@code start} to {@code end}; the caller holds the read lock.
+     */
+    private PriorityQueue<Scored> scan(int start, int end, float[] query, Predicate<Document> filter, int topK,
+                                       double threshold) {
+        PriorityQueue<Scored> best = new PriorityQueue<>(topK + 1, Comparator.comparingDouble(Scored::score));
+        float[] vector = new float[dimensions];
+        int capacity = capacity();
+        for (int slot = start; slot < end; slot++) {
+            Document document = slots.get(slot);
+            if (document == null || !filter.test(document)) {
+                continue;
+            }
+            segments.get(slot / capacity).read(slot % capacity, vector);
+            double score = VectorSimilarity.dot(query, vector);
+            if (score < threshold) {
+                continue;
+            }
+            if (best.size() < topK) {
+                best.add(new Scored(slot, score));
+            } else if (score > best.peek().score()) {
+                best.poll();
+                best.add(new Scored(slot, score));
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Every stored document, without vectors, for indexes that are built next to this store.
+     */
+    public List<Document> documents() {
+        lock.readLock().lock();
+        try {
+            return slots.stream().filter(Objects::nonNull).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            segments.forEach(VectorSegment::force);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int capacity() {
+        return segments.isEmpty() ? segmentCapacity : segments.get(0).capacity();
+    }
+
+    /** Lowest free slot, so freed slots are filled before the store grows. */
+    private int allocate() throws IOException {
+        if (!freeSlots.isEmpty()) {
+            return freeSlots.pollFirst();
+        }
+        int slot = slots.size();
+        if (slot == segments.size() * capacity()) {
+            segments.add(VectorSegment.create(segmentPath(segments.size()), dimensions, capacity()));
+        }
+        slots.add(null);
+        return slot;
+    }
+
+    private void release(int slot) {
+        slots.set(slot, null);
+        freeSlots.add(slot);
+    }
+
+    private void append(List<LogEntry> entries) throws IOException {
+        if (entries.isEmpty()) {
+            return;
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(log, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (LogEntry entry : entries) {
+                writer.write(MAPPER.writeValueAsString(entry));
+                writer.newLine();
+            }
+        }
+    }
+
+    /** Replaces the log with one entry per stored document, dropping superseded and deleted ones. */
+    private void rewriteLog() throws IOException {
+        Path tmp = Files.createTempFile(root, "documents-", ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (int slot = 0; slot < slots.size(); slot++) {
+                Document document = slots.get(slot);
+                if (document != null) {
+                    writer.write(MAPPER.writeValueAsString(
+                            new LogEntry(document.getId(), slot, document.getText(), document.getMetadata())));
+                    writer.newLine();
+                }
+            }
+        }
+        Files.move(tmp, log, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Path segmentPath(int index) {
+        return root.resolve("segment-%05d%s".formatted(index, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * A stored document, or with a null slot, the deletion of one.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    record LogEntry(String id, Integer slot, String text, Map<String, Object> metadata) {
+    }
+
+    private record Scored(int slot, double score) {
+    }
+}
@@ -0,0 +1,105 @@
+package com.docintel.docintel.config;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * {@link VectorStore} decorator that keeps a {@link LexicalIndex} in step with every add and delete
+ * and answers similarity searches from both. Dense and lexical candidate lists are merged with
+ * reciprocal rank fusion: each document scores {@code sum(1 / (rrfK + rank))} over the lists it appears in.
+ * A lexical candidate the dense search did not return has not met the request's similarity threshold, so it is
+ * only fused when it contains an identifier from the query, such as a part number that embeds poorly; otherwise
+ * shared wording alone could put an off-topic page in the context.
+ */
+public class HybridSearchVectorStore implements VectorStore {
+
+    private final VectorStore delegate;
+    private final LexicalIndex lexicalIndex;
+    private final int rrfK;
+    private final int candidateMultiplier;
+
+    public HybridSearchVectorStore(VectorStore delegate, LexicalIndex lexicalIndex, int rrfK, int candidateMultiplier) {
+        Assert.isTrue(rrfK > 0, "rrf-k must be greater than 0");
+        Assert.isTrue(candidateMultiplier > 0, "candidate-multiplier must be greater than 0");
+        this.delegate = delegate;
+        this.lexicalIndex = lexicalIndex;
+        this.rrfK = rrfK;
+        this.candidateMultiplier = candidateMultiplier;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        delegate.add(documents);
+        lexicalIndex.index(documents);
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        delegate.delete(idList);
+        lexicalIndex.remove(idList);
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        delegate.delete(filterExpression);
+        lexicalIndex.removeIf(MetadataFilter.matching(filterExpression));
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        int candidates = request.getTopK() * candidateMultiplier;
+        List<Document> dense = delegate.similaritySearch(SearchRequest.from(request).topK(candidates).build());
+        Set<String> denseIds = dense.stream().map(Document::getId).collect(Collectors.toSet());
+        List<String> identifiers = LexicalIndex.tokenize(request.getQuery()).stream()
+                .filter(LexicalIndex::isIdentifier)
+                .distinct()
+                .toList();
+        List<Document> lexical = lexicalIndex.search(
+                        request.getQuery(), candidates, MetadataFilter.matching(request.getFilterExpression()))
+                .stream()
+                .filter(d -> denseIds.contains(d.getId()) || lexicalIndex.containsAny(d.getId(), identifiers))
+                .toList();
+        return fuse(List.of(dense, lexical), request.getTopK());
+    }
+
+    List<Document> fuse(List<List<Document>> rankings, int topK) {
+        Map<String, Document> documents = new LinkedHashMap<>();
+        Map<String, Double> scores = new LinkedHashMap<>();
+        for (List<Document> ranking : rankings) {
+            for (int rank = 0; rank < ranking.size(); rank++) {
+                Document document = ranking.get(rank);
+                // the first list wins, so dense hits keep their distance metadata
+                documents.putIfAbsent(document.getId(), document);
+                scores.merge(document.getId(), 1.0 / (rrfK + rank + 1), Double::sum);
+            }
+        }
+        List<Map.Entry<String, Double>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(Map.Entry.comparingByValue(Comparator.reverseOrder()));
+        return ranked.stream()
+                .limit(topK)
+                .map(e -> documents.get(e.getKey()).mutate().score(e.getValue()).build())
+                .toList();
+    }
+
+    @Override
+    public <T> Optional<T> getNativeClient() {
+        return delegate.getNativeClient();
+    }
+}
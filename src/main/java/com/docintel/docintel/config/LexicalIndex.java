@@ -0,0 +1,214 @@
+package com.docintel.docintel.config;
+
+import org.springframework.ai.document.Document;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-process BM25 inverted index over the text of the indexed documents. It finds exact identifiers,
+ * part numbers and rare terms that dense embeddings tend to blur. Documents are kept by id, so
+ * re-indexing an id replaces its previous postings. Common English function words are neither indexed
+ * nor searched, so a question's phrasing alone cannot rank a page.
+ * <p>
+ * The index holds every indexed text on this process's heap and only sees writes made through this process,
+ * so it suits a single instance; replicas see each other's writes only after a restart backfills them.
+ */
+public class LexicalIndex {
+    // words, plus identifiers such as "PN-4471" or "7.2.1" kept whole; their parts are indexed as well
+    private static final Pattern TOKEN = Pattern.compile("[\\p{L}\\p{N}]+(?:[-._/:][\\p{L}\\p{N}]+)*");
+    private static final Pattern TOKEN_PART = Pattern.compile("[\\p{L}\\p{N}]+");
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "the", "and", "or", "but", "not", "no", "of", "to", "in", "on", "for", "with", "by", "at",
+            "from", "as", "into", "about", "is", "are", "was", "were", "be", "been", "being", "has", "have", "had",
+            "it", "its", "this", "that", "these", "those", "which", "what", "who", "whom", "when", "where", "why",
+            "how", "does", "do", "did", "can", "could", "should", "would", "will", "may", "there", "i", "me", "my",
+            "we", "our", "you", "your", "they", "their", "he", "she", "his", "her", "them", "all", "any", "some",
+            "if", "then", "than", "so", "also", "please", "tell", "give", "show", "explain", "describe");
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Entry> documents = new HashMap<>();
+    private final Map<String, Map<String, Integer>> postings = new HashMap<>();
+    private long totalLength;
+
+    /** Indexes the documents, replacing any already indexed under the same id. */
+    public void index(Collection<Document> batch) {
+        lock.writeLock().lock();
+        try {
+            batch.forEach(d -> put(d, true));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Indexes only the documents whose id is not indexed yet, so a backfill never overwrites newer writes. */
+    public void indexIfAbsent(Collection<Document> batch) {
+        lock.writeLock().lock();
+        try {
+            batch.forEach(d -> put(d, false));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Collection<String> ids) {
+        lock.writeLock().lock();
+        try {
+            ids.forEach(this::unindex);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** @return the number of documents removed */
+    public int removeIf(Predicate<Document> predicate) {
+        lock.writeLock().lock();
+        try {
+            List<String> ids = documents.values().stream()
+                    .filter(e -> predicate.test(e.document()))
+                    .map(e -> e.document().getId())
+                    .toList();
+            ids.forEach(this::unindex);
+            return ids.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return up to {@code topK} documents accepted by {@code filter}, best BM25 score first,
+     * with the score set on each returned document
+     */
+    public List<Document> search(String query, int topK, Predicate<Document> filter) {
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        if (terms.isEmpty() || topK <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            if (documents.isEmpty()) {
+                return List.of();
+            }
+            int n = documents.size();
+            double averageLength = (double) totalLength / n;
+            Map<String, Double> scores = new HashMap<>();
+            for (String term : terms) {
+                Map<String, Integer> posting = postings.get(term);
+                if (posting == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (n - posting.size() + 0.5) / (posting.size() + 0.5));
+                posting.forEach((id, tf) -> {
+                    double norm = K1 * (1 - B + B * documents.get(id).length() / averageLength);
+                    scores.merge(id, idf * tf * (K1 + 1) / (tf + norm), Double::sum);
+                });
+            }
+            return scores.entrySet().stream()
+                    .sorted(Map.Entry.<String, Double>comparingByValue(Comparator.reverseOrder()))
+                    .map(e -> Map.entry(documents.get(e.getKey()).document(), e.getValue()))
+                    .filter(e -> filter.test(e.getKey()))
+                    .limit(topK)
+                    .map(e -> e.getKey().mutate().score(e.getValue()).build())
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Whether the document indexed under {@code id} contains any of the terms. */
+    public boolean containsAny(String id, Collection<String> terms) {
+        lock.readLock().lock();
+        try {
+            Entry entry = documents.get(id);
+            return entry != null && terms.stream().anyMatch(entry.terms()::contains);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void put(Document document, boolean replace) {
+        if (document.getText() == null) {
+            return;
+        }
+        if (documents.containsKey(document.getId())) {
+            if (!replace) {
+                return;
+            }
+            unindex(document.getId());
+        }
+        Map<String, Integer> frequencies = new HashMap<>();
+        List<String> tokens = tokenize(document.getText());
+        tokens.forEach(t -> frequencies.merge(t, 1, Integer::sum));
+        frequencies.forEach((term, tf) -> postings.computeIfAbsent(term, k -> new HashMap<>()).put(document.getId(), tf));
+        documents.put(document.getId(), new Entry(document, frequencies.keySet(), tokens.size()));
+        totalLength += tokens.size();
+    }
+
+    private void unindex(String id) {
+        Entry entry = documents.remove(id);
+        if (entry == null) {
+            return;
+        }
+        totalLength -= entry.length();
+        for (String term : entry.terms()) {
+            Map<String, Integer> posting = postings.get(term);
+            posting.remove(id);
+            if (posting.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        Matcher matcher = TOKEN.matcher(text.toLowerCase(Locale.ROOT));
+        while (matcher.find()) {
+            String token = matcher.group();
+            if (STOP_WORDS.contains(token)) {
+                continue;
+            }
+            tokens.add(token);
+            if (!TOKEN_PART.matcher(token).matches()) {
+                Matcher parts = TOKEN_PART.matcher(token);
+                while (parts.find()) {
+                    tokens.add(parts.group());
+                }
+            }
+        }
+        return tokens;
+    }
+
+    /** Whether the token is an identifier such as a part, section or version number rather than a word. */
+    static boolean isIdentifier(String token) {
+        return token.chars().anyMatch(Character::isDigit);
+    }
+
+    private record Entry(Document document, Set<String> terms, int length) {
+    }
+}
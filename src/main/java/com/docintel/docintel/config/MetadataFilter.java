@@ -0,0 +1,132 @@
+package com.docintel.docintel.config;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Evaluates portable filter expressions against document metadata in process, for the stores that keep documents
+ * themselves. The expression is compiled to predicates once per search rather than interpreted per document.
+ * Matching follows Qdrant, so results do not depend on the store: numbers compare by value whatever their type,
+ * a list value matches when any element does, and a missing key matches only negated conditions.
+ */
+final class MetadataFilter {
+
+    private MetadataFilter() {
+    }
+
+    /**
+     * A null expression matches every document. The predicate may be shared between threads.
+     */
+    static Predicate<Document> matching(Filter.Expression expression) {
+        if (expression == null) {
+            return d -> true;
+        }
+        Predicate<Map<String, Object>> metadata = compile(expression);
+        return d -> metadata.test(d.getMetadata());
+    }
+
+    private static Predicate<Map<String, Object>> compile(Filter.Operand operand) {
+        if (operand instanceof Filter.Group group) {
+            return compile(group.content());
+        }
+        if (!(operand instanceof Filter.Expression expression)) {
+            throw new IllegalArgumentException("Not a filter expression: " + operand);
+        }
+        return switch (expression.type()) {
+            case AND -> compile(expression.left()).and(compile(expression.right()));
+            case OR -> compile(expression.left()).or(compile(expression.right()));
+            case NOT -> compile(expression.left()).negate();
+            case EQ -> {
+                String key = key(expression);
+                Object value = value(expression);
+                yield m -> anyEquals(m.get(key), value);
+            }
+            case NE -> {
+                String key = key(expression);
+                Object value = value(expression);
+                yield m -> !anyEquals(m.get(key), value);
+            }
+            case IN -> {
+                String key = key(expression);
+                Collection<?> values = values(expression);
+                yield m -> values.stream().anyMatch(v -> anyEquals(m.get(key), v));
+            }
+            case NIN -> {
+                String key = key(expression);
+                Collection<?> values = values(expression);
+                yield m -> values.stream().noneMatch(v -> anyEquals(m.get(key), v));
+            }
+            case GT -> range(expression, c -> c > 0);
+            case GTE -> range(expression, c -> c >= 0);
+            case LT -> range(expression, c -> c < 0);
+            case LTE -> range(expression, c -> c <= 0);
+        };
+    }
+
+    private static Predicate<Map<String, Object>> range(Filter.Expression expression, IntPredicate comparison) {
+        String key = key(expression);
+        Object value = value(expression);
+        return m -> {
+            Integer compared = compare(m.get(key), value);
+            return compared != null && comparison.test(compared);
+        };
+    }
+
+    private static boolean anyEquals(Object actual, Object expected) {
+        if (actual instanceof Collection<?> elements) {
+            return elements.stream().anyMatch(e -> valueEquals(e, expected));
+        }
+        return actual != null && valueEquals(actual, expected);
+    }
+
+    private static boolean valueEquals(Object actual, Object expected) {
+        if (actual instanceof Number a && expected instanceof Number e) {
+            return Double.compare(a.doubleValue(), e.doubleValue()) == 0;
+        }
+        return Objects.equals(actual, expected);
+    }
+
+    /** @return the sign of {@code actual} against {@code expected}, or null when they are not comparable */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Integer compare(Object actual, Object expected) {
+        if (actual instanceof Number a && expected instanceof Number e) {
+            return Double.compare(a.doubleValue(), e.doubleValue());
+        }
+        if (actual instanceof Comparable a && expected != null && actual.getClass() == expected.getClass()) {
+            return a.compareTo(expected);
+        }
+        return null;
+    }
+
+    private static String key(Filter.Expression expression) {
+        if (!(expression.left() instanceof Filter.Key key)) {
+            throw new IllegalArgumentException("Expected a key on the left of " + expression);
+        }
+        String name = key.key();
+        // keys parsed from filter text keep their quotes
+        if (name.length() >= 2 && (name.startsWith("'") && name.endsWith("'")
+                || name.startsWith("\"") && name.endsWith("\""))) {
+            return name.substring(1, name.length() - 1);
+        }
+        return name;
+    }
+
+    private static Object value(Filter.Expression expression) {
+        if (!(expression.right() instanceof Filter.Value value)) {
+            throw new IllegalArgumentException("Expected a value on the right of " + expression);
+        }
+        return value.value();
+    }
+
+    private static Collection<?> values(Filter.Expression expression) {
+        Object value = value(expression);
+        return value instanceof Collection<?> values ? values : List.of(value);
+    }
+}
@@ -0,0 +1,94 @@
+package com.docintel.docintel.config;
+
+import ai.djl.huggingface.tokenizers.Encoding;
+import ai.djl.huggingface.tokenizers.HuggingFaceTokenizer;
+import ai.djl.util.PairList;
+import ai.onnxruntime.OnnxTensor;
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link Reranker} backed by a cross-encoder exported to ONNX, such as ms-marco-MiniLM-L-6-v2, run on CPU.
+ * Each call scores its passages as one padded batch; the model's first output holds one logit per pair,
+ * or two when it was exported as a binary classifier, in which case the positive class is used.
+ */
+public class OnnxCrossEncoderReranker implements Reranker, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(OnnxCrossEncoderReranker.class);
+
+    private final OrtEnvironment environment = OrtEnvironment.getEnvironment();
+    private final OrtSession session;
+    private final HuggingFaceTokenizer tokenizer;
+
+    public OnnxCrossEncoderReranker(Path modelPath, Path tokenizerPath, int maxLength, int intraOpThreads)
+            throws IOException, OrtException {
+        this.tokenizer = HuggingFaceTokenizer.builder()
+                .optTokenizerPath(tokenizerPath)
+                .optMaxLength(maxLength)
+                // long passages lose their tail, never the query
+                .optTruncateSecondOnly()
+                .optPadding(true)
+                .build();
+        try (OrtSession.SessionOptions options = new OrtSession.SessionOptions()) {
+            options.setIntraOpNumThreads(intraOpThreads);
+            options.setInterOpNumThreads(1);
+            options.setOptimizationLevel(OrtSession.SessionOptions.OptLevel.ALL_OPT);
+            this.session = environment.createSession(modelPath.toString(), options);
+        }
+        logger.info("cross-encoder reranker loaded from {} with inputs {}", modelPath, session.getInputNames());
+    }
+
+    @Override
+    public float[] score(String query, List<String> passages) {
+        if (passages.isEmpty()) {
+            return new float[0];
+        }
+        Encoding[] encodings = tokenizer.batchEncode(
+                new PairList<>(Collections.nCopies(passages.size(), query), passages));
+        long[][] ids = new long[encodings.length][];
+        long[][] mask = new long[encodings.length][];
+        long[][] types = new long[encodings.length][];
+        for (int i = 0; i < encodings.length; i++) {
+            ids[i] = encodings[i].getIds();
+            mask[i] = encodings[i].getAttentionMask();
+            types[i] = encodings[i].getTypeIds();
+        }
+
+        Map<String, OnnxTensor> inputs = new HashMap<>();
+        try {
+            inputs.put("input_ids", OnnxTensor.createTensor(environment, ids));
+            inputs.put("attention_mask", OnnxTensor.createTensor(environment, mask));
+            // DistilBERT-style exports have no segment input
+            if (session.getInputNames().contains("token_type_ids")) {
+                inputs.put("token_type_ids", OnnxTensor.createTensor(environment, types));
+            }
+            try (OrtSession.Result result = session.run(inputs)) {
+                float[][] logits = (float[][]) result.get(0).getValue();
+                float[] scores = new float[logits.length];
+                for (int i = 0; i < logits.length; i++) {
+                    scores[i] = logits[i][logits[i].length - 1];
+                }
+                return scores;
+            }
+        } catch (OrtException e) {
+            throw new IllegalStateException("cross-encoder inference failed", e);
+        } finally {
+            inputs.values().forEach(OnnxTensor::close);
+        }
+    }
+
+    @Override
+    public void close() throws OrtException {
+        tokenizer.close();
+        session.close();
+    }
+}
@@ -0,0 +1,112 @@
+package com.docintel.docintel.config;
+
+import io.qdrant.client.QdrantClient;
+import io.qdrant.client.grpc.Collections.CollectionConfig;
+import io.qdrant.client.grpc.Collections.CollectionParamsDiff;
+import io.qdrant.client.grpc.Collections.CreateCollection;
+import io.qdrant.client.grpc.Collections.HnswConfigDiff;
+import io.qdrant.client.grpc.Collections.OptimizersConfigDiff;
+import io.qdrant.client.grpc.Collections.QuantizationConfig;
+import io.qdrant.client.grpc.Collections.UpdateCollection;
+import io.qdrant.client.grpc.Collections.VectorParams;
+import io.qdrant.client.grpc.Collections.VectorsConfig;
+import io.qdrant.client.grpc.Collections.VectorsConfigDiff;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Creates the vector collection from {@link QdrantCollectionSettings}, or brings an existing one in line with
+ * them. Only settings that differ are sent, so an unchanged configuration does not make Qdrant re-quantize or
+ * re-index anything on restart; changed ones are applied in place by Qdrant's optimizers in the background.
+ */
+final class QdrantCollectionInitializer {
+    private static final Logger logger = LoggerFactory.getLogger(QdrantCollectionInitializer.class);
+
+    private QdrantCollectionInitializer() {
+    }
+
+    static void ensureCollection(QdrantClient qdrantClient, String collection, int dimensions,
+                                 QdrantCollectionSettings settings) throws ExecutionException, InterruptedException {
+        if (!qdrantClient.collectionExistsAsync(collection).get()) {
+            qdrantClient.createCollectionAsync(create(collection, dimensions, settings)).get();
+            logger.info("created collection {} ({} dimensions, {} quantization, vectors on disk: {})",
+                    collection, dimensions, settings.quantization(), settings.vectorsOnDisk());
+            return;
+        }
+        CollectionConfig existing = qdrantClient.getCollectionInfoAsync(collection).get().getConfig();
+        long existingSize = existing.getParams().getVectorsConfig().getParams().getSize();
+        if (existingSize != dimensions) {
+            logger.warn("collection {} holds {}-dimension vectors but the embedding model produces {}",
+                    collection, existingSize, dimensions);
+        }
+        UpdateCollection update = update(collection, existing, settings);
+        if (update != null) {
+            qdrantClient.updateCollectionAsync(update).get();
+            logger.info("updated collection {} to {} quantization, vectors on disk: {}",
+                    collection, settings.quantization(), settings.vectorsOnDisk());
+        }
+    }
+
+    static CreateCollection create(String collection, int dimensions, QdrantCollectionSettings settings) {
+        CreateCollection.Builder create = CreateCollection.newBuilder()
+                .setCollectionName(collection)
+                .setVectorsConfig(VectorsConfig.newBuilder().setParams(settings.vectorParams(dimensions)))
+                .setHnswConfig(settings.hnswConfig())
+                .setOptimizersConfig(settings.optimizersConfig())
+                .setOnDiskPayload(settings.payloadOnDisk());
+        QuantizationConfig quantization = settings.quantizationConfig();
+        if (quantization != null) {
+            create.setQuantizationConfig(quantization);
+        }
+        return create.build();
+    }
+
+    /**
+     * @return the changes that bring {@code existing} in line with the settings, or null when it already is
+     */
+    static UpdateCollection update(String collection, CollectionConfig existing, QdrantCollectionSettings settings) {
+        UpdateCollection.Builder update = UpdateCollection.newBuilder().setCollectionName(collection);
+        boolean changed = false;
+
+        VectorParams vectors = existing.getParams().getVectorsConfig().getParams();
+        if (vectors.getOnDisk() != settings.vectorsOnDisk()) {
+            update.setVectorsConfig(VectorsConfigDiff.newBuilder().setParams(settings.vectorParamsDiff()));
+            changed = true;
+        }
+        if (existing.getParams().getOnDiskPayload() != settings.payloadOnDisk()) {
+            update.setParams(CollectionParamsDiff.newBuilder().setOnDiskPayload(settings.payloadOnDisk()));
+            changed = true;
+        }
+        if (!covers(existing.getHnswConfig(), settings.hnswConfig())) {
+            update.setHnswConfig(settings.hnswConfig());
+            changed = true;
+        }
+        if (!covers(existing.getOptimizerConfig(), settings.optimizersConfig())) {
+            update.setOptimizersConfig(settings.optimizersConfig());
+            changed = true;
+        }
+        QuantizationConfig quantization = existing.hasQuantizationConfig() ? existing.getQuantizationConfig() : null;
+        if (!Objects.equals(quantization, settings.quantizationConfig())) {
+            update.setQuantizationConfig(settings.quantizationConfigDiff());
+            changed = true;
+        }
+        return changed ? update.build() : null;
+    }
+
+    /**
+     * Whether every field set in {@code wanted} already has that value; unset fields keep whatever the server has.
+     */
+    private static boolean covers(HnswConfigDiff existing, HnswConfigDiff wanted) {
+        return (!wanted.hasM() || existing.getM() == wanted.getM())
+                && (!wanted.hasEfConstruct() || existing.getEfConstruct() == wanted.getEfConstruct())
+                && (!wanted.hasOnDisk() || existing.getOnDisk() == wanted.getOnDisk());
+    }
+
+    private static boolean covers(OptimizersConfigDiff existing, OptimizersConfigDiff wanted) {
+        return (!wanted.hasIndexingThreshold() || existing.getIndexingThreshold() == wanted.getIndexingThreshold())
+                && (!wanted.hasMemmapThreshold() || existing.getMemmapThreshold() == wanted.getMemmapThreshold());
+    }
+}
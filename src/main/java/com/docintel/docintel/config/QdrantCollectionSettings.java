@@ -0,0 +1,161 @@
+package com.docintel.docintel.config;
+
+import io.qdrant.client.grpc.Collections.BinaryQuantization;
+import io.qdrant.client.grpc.Collections.Disabled;
+import io.qdrant.client.grpc.Collections.Distance;
+import io.qdrant.client.grpc.Collections.HnswConfigDiff;
+import io.qdrant.client.grpc.Collections.OptimizersConfigDiff;
+import io.qdrant.client.grpc.Collections.QuantizationConfig;
+import io.qdrant.client.grpc.Collections.QuantizationConfigDiff;
+import io.qdrant.client.grpc.Collections.QuantizationType;
+import io.qdrant.client.grpc.Collections.ScalarQuantization;
+import io.qdrant.client.grpc.Collections.VectorParams;
+import io.qdrant.client.grpc.Collections.VectorParamsDiff;
+import io.qdrant.client.grpc.Points.QuantizationSearchParams;
+import io.qdrant.client.grpc.Points.SearchParams;
+import org.springframework.util.Assert;
+
+import java.util.Locale;
+
+/**
+ * How the vector collection is stored and searched. Quantized vectors are kept in RAM for the HNSW walk while
+ * the original vectors can live on disk and are only read to rescore the oversampled candidates, which is what
+ * lets a node hold several times more points. Zero for a count or threshold leaves the server default.
+ *
+ * @param quantization        none, scalar (int8, 4x smaller) or binary (1 bit per dimension, 32x smaller)
+ * @param quantizedAlwaysRam  pin the quantized vectors in RAM even when the originals are on disk
+ * @param rescore             re-rank quantized candidates with the original vectors
+ * @param oversampling        fetch {@code limit * oversampling} quantized candidates before rescoring
+ * @param vectorsOnDisk       keep the original vectors memory-mapped on disk instead of in RAM
+ * @param payloadOnDisk       keep point payloads on disk; indexed payload fields stay in RAM
+ * @param hnswM               edges per node in the HNSW graph
+ * @param hnswEfConstruct     candidate list size while building the graph
+ * @param hnswOnDisk          keep the HNSW graph on disk
+ * @param searchHnswEf        candidate list size while searching; higher is slower with better recall
+ * @param indexingThreshold   kilobytes of vectors a segment holds before it is indexed
+ * @param memmapThreshold     kilobytes of vectors a segment holds before it is memory-mapped
+ */
+public record QdrantCollectionSettings(
+        Quantization quantization,
+        boolean quantizedAlwaysRam,
+        boolean rescore,
+        double oversampling,
+        boolean vectorsOnDisk,
+        boolean payloadOnDisk,
+        int hnswM,
+        int hnswEfConstruct,
+        boolean hnswOnDisk,
+        int searchHnswEf,
+        long indexingThreshold,
+        long memmapThreshold) {
+
+    /**
+     * Qdrant's defaults: full precision vectors, payloads and graph in RAM.
+     */
+    public static final QdrantCollectionSettings DEFAULTS = new QdrantCollectionSettings(
+            Quantization.NONE, true, true, 1.0, false, false, 0, 0, false, 0, 0, 0);
+
+    public QdrantCollectionSettings {
+        Assert.notNull(quantization, "quantization must not be null");
+        Assert.isTrue(oversampling >= 1.0, "oversampling must be at least 1");
+        Assert.isTrue(hnswM >= 0 && hnswEfConstruct >= 0 && searchHnswEf >= 0, "HNSW parameters must not be negative");
+        Assert.isTrue(indexingThreshold >= 0 && memmapThreshold >= 0, "optimizer thresholds must not be negative");
+    }
+
+    public enum Quantization {
+        NONE, SCALAR, BINARY;
+
+        public static Quantization parse(String value) {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    VectorParams vectorParams(int dimensions) {
+        return VectorParams.newBuilder()
+                .setSize(dimensions)
+                .setDistance(Distance.Cosine)
+                .setOnDisk(vectorsOnDisk)
+                .build();
+    }
+
+    VectorParamsDiff vectorParamsDiff() {
+        return VectorParamsDiff.newBuilder().setOnDisk(vectorsOnDisk).build();
+    }
+
+    HnswConfigDiff hnswConfig() {
+        HnswConfigDiff.Builder hnsw = HnswConfigDiff.newBuilder().setOnDisk(hnswOnDisk);
+        if (hnswM > 0) {
+            hnsw.setM(hnswM);
+        }
+        if (hnswEfConstruct > 0) {
+            hnsw.setEfConstruct(hnswEfConstruct);
+        }
+        return hnsw.build();
+    }
+
+    /**
+     * @return the quantization to create the collection with, or null for none
+     */
+    QuantizationConfig quantizationConfig() {
+        return switch (quantization) {
+            case NONE -> null;
+            case SCALAR -> QuantizationConfig.newBuilder().setScalar(scalar()).build();
+            case BINARY -> QuantizationConfig.newBuilder().setBinary(binary()).build();
+        };
+    }
+
+    /**
+     * The same quantization as an update, which can also switch it off on an existing collection.
+     */
+    QuantizationConfigDiff quantizationConfigDiff() {
+        return switch (quantization) {
+            case NONE -> QuantizationConfigDiff.newBuilder().setDisabled(Disabled.getDefaultInstance()).build();
+            case SCALAR -> QuantizationConfigDiff.newBuilder().setScalar(scalar()).build();
+            case BINARY -> QuantizationConfigDiff.newBuilder().setBinary(binary()).build();
+        };
+    }
+
+    OptimizersConfigDiff optimizersConfig() {
+        OptimizersConfigDiff.Builder optimizers = OptimizersConfigDiff.newBuilder();
+        if (indexingThreshold > 0) {
+            optimizers.setIndexingThreshold(indexingThreshold);
+        }
+        if (memmapThreshold > 0) {
+            optimizers.setMemmapThreshold(memmapThreshold);
+        }
+        return optimizers.build();
+    }
+
+    /**
+     * @param twoStage search the quantized vectors for {@code limit * oversampling} candidates and rescore them
+     *                 with the originals, all within Qdrant; otherwise searches ignore the quantized vectors
+     * @return the parameters every search should carry, or null when the server defaults apply
+     */
+    SearchParams searchParams(boolean twoStage) {
+        if (searchHnswEf == 0 && quantization == Quantization.NONE) {
+            return null;
+        }
+        SearchParams.Builder params = SearchParams.newBuilder();
+        if (searchHnswEf > 0) {
+            params.setHnswEf(searchHnswEf);
+        }
+        if (quantization != Quantization.NONE) {
+            params.setQuantization(twoStage
+                    ? QuantizationSearchParams.newBuilder().setRescore(rescore).setOversampling(oversampling)
+                    : QuantizationSearchParams.newBuilder().setIgnore(true));
+        }
+        return params.build();
+    }
+
+    private ScalarQuantization scalar() {
+        return ScalarQuantization.newBuilder()
+                .setType(QuantizationType.Int8)
+                .setQuantile(0.99f)
+                .setAlwaysRam(quantizedAlwaysRam)
+                .build();
+    }
+
+    private BinaryQuantization binary() {
+        return BinaryQuantization.newBuilder().setAlwaysRam(quantizedAlwaysRam).build();
+    }
+}
@@ -0,0 +1,122 @@
+package com.docintel.docintel.config;
+
+import io.qdrant.client.QdrantClient;
+import io.qdrant.client.WithPayloadSelectorFactory;
+import io.qdrant.client.grpc.JsonWithInt;
+import io.qdrant.client.grpc.Points;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Backfills a {@link LexicalIndex} with the points already stored in a Qdrant collection, so documents
+ * ingested before this process started are found lexically as well. It pages through the collection
+ * with payloads only; vectors are not fetched.
+ */
+public class QdrantLexicalIndexLoader implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(QdrantLexicalIndexLoader.class);
+    // payload key the Spring AI Qdrant store keeps the document text under
+    private static final String CONTENT_KEY = "doc_content";
+    private static final int PAGE_SIZE = 256;
+
+    private final QdrantClient qdrantClient;
+    private final String collectionName;
+    private final LexicalIndex lexicalIndex;
+
+    public QdrantLexicalIndexLoader(QdrantClient qdrantClient, String collectionName, LexicalIndex lexicalIndex) {
+        this.qdrantClient = qdrantClient;
+        this.collectionName = collectionName;
+        this.lexicalIndex = lexicalIndex;
+    }
+
+    /** Runs the backfill on a daemon thread; searches fuse whatever has been loaded so far. */
+    public void start() {
+        Thread thread = new Thread(this, "lexical-index-loader");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void run() {
+        long started = System.currentTimeMillis();
+        int loaded = 0;
+        try {
+            Points.PointId offset = null;
+            do {
+                Points.ScrollPoints.Builder request = Points.ScrollPoints.newBuilder()
+                        .setCollectionName(collectionName)
+                        .setLimit(PAGE_SIZE)
+                        .setWithPayload(WithPayloadSelectorFactory.enable(true));
+                if (offset != null) {
+                    request.setOffset(offset);
+                }
+                Points.ScrollResponse page = qdrantClient.scrollAsync(request.build()).get();
+                List<Document> documents = page.getResultList().stream()
+                        .map(QdrantLexicalIndexLoader::toDocument)
+                        .filter(Objects::nonNull)
+                        .toList();
+                lexicalIndex.indexIfAbsent(documents);
+                loaded += documents.size();
+                offset = page.hasNextPageOffset() ? page.getNextPageOffset() : null;
+            } while (offset != null);
+            logger.info("lexical index backfilled with {} points from {} in {} ms",
+                    loaded, collectionName, System.currentTimeMillis() - started);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // dense retrieval still works; lexical recall covers only documents written since startup
+            logger.warn("lexical index backfill from {} stopped after {} points", collectionName, loaded, e);
+        }
+    }
+
+    /** @return the point as a document, or null when it carries no text */
+    static Document toDocument(Points.RetrievedPoint point) {
+        Map<String, Object> metadata = new HashMap<>();
+        point.getPayloadMap().forEach((key, value) -> {
+            Object converted = toObject(value);
+            if (converted != null) {
+                metadata.put(key, converted);
+            }
+        });
+        if (!(metadata.remove(CONTENT_KEY) instanceof String text)) {
+            return null;
+        }
+        String id = point.getId().hasUuid() ? point.getId().getUuid() : String.valueOf(point.getId().getNum());
+        return Document.builder()
+                .id(id)
+                .text(text)
+                .metadata(metadata)
+                .build();
+    }
+
+    private static Object toObject(JsonWithInt.Value value) {
+        return switch (value.getKindCase()) {
+            case STRING_VALUE -> value.getStringValue();
+            // Qdrant widens every integer to 64 bits; narrow it back so filters written against
+            // int metadata such as page_number still match
+            case INTEGER_VALUE -> {
+                long l = value.getIntegerValue();
+                yield l == (int) l ? (Object) (int) l : (Object) l;
+            }
+            case DOUBLE_VALUE -> value.getDoubleValue();
+            case BOOL_VALUE -> value.getBoolValue();
+            case LIST_VALUE -> {
+                List<Object> list = new ArrayList<>();
+                value.getListValue().getValuesList().forEach(v -> list.add(toObject(v)));
+                yield list;
+            }
+            case STRUCT_VALUE -> {
+                Map<String, Object> map = new HashMap<>();
+                value.getStructValue().getFieldsMap().forEach((k, v) -> map.put(k, toObject(v)));
+                yield map;
+            }
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,15 @@
+package com.docintel.docintel.config;
+
+import java.util.List;
+
+/**
+ * Scores query/passage pairs for the reranking stage in front of prompt augmentation.
+ * Implementations are called from several worker threads at once.
+ */
+public interface Reranker {
+
+    /**
+     * @return one relevance score per passage, in passage order; higher is more relevant
+     */
+    float[] score(String query, List<String> passages);
+}
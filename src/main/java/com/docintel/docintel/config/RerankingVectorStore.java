@@ -0,0 +1,163 @@
+package com.docintel.docintel.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * {@link VectorStore} decorator that over-fetches {@code candidates} documents from the delegate and
+ * keeps the request's top K by {@link Reranker} score. Candidates are scored in batches on a bounded
+ * worker pool. When scoring fails, the pool is saturated or the latency budget runs out, the delegate's
+ * own order is kept, so reranking can only cost the budget, never the answer. The pool is passed in rather than
+ * owned, since the store sits inside the retrieval chain where nothing would shut it down.
+ */
+public class RerankingVectorStore implements VectorStore {
+    private static final Logger logger = LoggerFactory.getLogger(RerankingVectorStore.class);
+
+    private final VectorStore delegate;
+    private final Reranker reranker;
+    private final int candidates;
+    private final int batchSize;
+    private final Duration budget;
+    private final ExecutorService workers;
+    private final Counter reranked;
+    private final Counter timedOut;
+    private final Counter rejected;
+    private final Counter failed;
+
+    /**
+     * @param workers scores the batches; it should reject work it cannot start soon rather than queue it
+     *                unboundedly, see {@link #workerPool}
+     */
+    public RerankingVectorStore(VectorStore delegate, Reranker reranker, int candidates, int batchSize,
+                                ExecutorService workers, Duration budget, MeterRegistry meterRegistry) {
+        Assert.isTrue(candidates > 0, "candidates must be greater than 0");
+        Assert.isTrue(batchSize > 0, "batch-size must be greater than 0");
+        this.delegate = delegate;
+        this.reranker = reranker;
+        this.candidates = candidates;
+        this.batchSize = batchSize;
+        this.budget = budget;
+        this.workers = workers;
+
+        this.reranked = meterRegistry.counter("docintel.retrieval.rerank", "outcome", "reranked");
+        this.timedOut = meterRegistry.counter("docintel.retrieval.rerank", "outcome", "timeout");
+        this.rejected = meterRegistry.counter("docintel.retrieval.rerank", "outcome", "rejected");
+        this.failed = meterRegistry.counter("docintel.retrieval.rerank", "outcome", "failed");
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        delegate.add(documents);
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        delegate.delete(idList);
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        delegate.delete(filterExpression);
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        int topK = request.getTopK();
+        List<Document> found = delegate.similaritySearch(
+                SearchRequest.from(request).topK(Math.max(topK, candidates)).build());
+        List<Document> denseOrder = found.subList(0, Math.min(topK, found.size()));
+        if (found.size() <= 1 || request.getQuery() == null || request.getQuery().isBlank()) {
+            return denseOrder;
+        }
+
+        long deadline = System.nanoTime() + budget.toNanos();
+        List<Future<float[]>> batches = new ArrayList<>();
+        try {
+            for (int from = 0; from < found.size(); from += batchSize) {
+                List<String> passages = found.subList(from, Math.min(from + batchSize, found.size())).stream()
+                        .map(d -> d.getText() != null ? d.getText() : "")
+                        .toList();
+                batches.add(workers.submit(() -> reranker.score(request.getQuery(), passages)));
+            }
+            float[] scores = new float[found.size()];
+            int offset = 0;
+            for (Future<float[]> batch : batches) {
+                float[] batchScores = batch.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                System.arraycopy(batchScores, 0, scores, offset, batchScores.length);
+                offset += batchScores.length;
+            }
+            reranked.increment();
+            return IntStream.range(0, found.size()).boxed()
+                    .sorted(Comparator.comparingDouble((Integer i) -> scores[i]).reversed())
+                    .limit(topK)
+                    .map(i -> found.get(i).mutate().score((double) scores[i]).build())
+                    .toList();
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            logger.warn("reranker pool is saturated, keeping the retrieval order");
+        } catch (TimeoutException e) {
+            timedOut.increment();
+            logger.warn("reranking {} candidates exceeded the {} ms budget, keeping the retrieval order",
+                    found.size(), budget.toMillis());
+        } catch (ExecutionException e) {
+            failed.increment();
+            logger.warn("reranking failed, keeping the retrieval order", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // frees queued batches of an abandoned request; a batch already running finishes on its worker
+            batches.forEach(b -> b.cancel(false));
+        }
+        return denseOrder;
+    }
+
+    @Override
+    public <T> Optional<T> getNativeClient() {
+        return delegate.getNativeClient();
+    }
+
+    /**
+     * A fixed pool of daemon workers with a bounded queue that rejects batches once it is full.
+     */
+    public static ThreadPoolExecutor workerPool(int workers, int queueCapacity) {
+        Assert.isTrue(workers > 0, "workers must be greater than 0");
+        AtomicInteger threadIds = new AtomicInteger();
+        return new ThreadPoolExecutor(
+                workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "reranker-worker-" + threadIds.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+}
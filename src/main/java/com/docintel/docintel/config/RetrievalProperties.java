@@ -0,0 +1,76 @@
+package com.docintel.docintel.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * The {@code docintel.retrieval} settings: how the base store of the retrieval chain is searched and which
+ * stages are stacked on top of it.
+ *
+ * @param strategy    how the Qdrant collection is searched
+ * @param hybrid      fusing lexical identifier matches into the vector results
+ * @param rerank      rescoring candidates with a cross-encoder
+ * @param compression trimming retrieved context to a token budget
+ */
+@ConfigurationProperties("docintel.retrieval")
+public record RetrievalProperties(
+        @DefaultValue("full") Strategy strategy,
+        @DefaultValue Hybrid hybrid,
+        @DefaultValue Rerank rerank,
+        @DefaultValue Compression compression) {
+
+    public enum Strategy {
+        /**
+         * Search the original vectors, ignoring any quantized copies.
+         */
+        FULL,
+        /**
+         * Search the quantized vectors for {@code topK * oversampling} candidates, then rescore them with the
+         * original vectors. Both stages run inside Qdrant in one request; needs a quantized collection.
+         */
+        TWO_STAGE
+    }
+
+    /**
+     * @param rrfK                reciprocal rank fusion constant
+     * @param candidateMultiplier how many times {@code topK} each side contributes before fusion
+     */
+    public record Hybrid(
+            @DefaultValue("false") boolean enabled,
+            @DefaultValue("60") int rrfK,
+            @DefaultValue("4") int candidateMultiplier) {
+    }
+
+    /**
+     * @param modelPath      ONNX cross-encoder, required when enabled
+     * @param tokenizerPath  the cross-encoder's tokenizer.json, required when enabled
+     * @param candidates     vector hits rescored per search
+     * @param batchSize      candidates scored per model call
+     * @param workers        threads scoring batches in parallel
+     * @param queueCapacity  batches waiting for a worker before searches fall back to vector order
+     * @param budget         time a search waits for scores before keeping the vector order
+     */
+    public record Rerank(
+            @DefaultValue("false") boolean enabled,
+            Path modelPath,
+            Path tokenizerPath,
+            @DefaultValue("512") int maxLength,
+            @DefaultValue("1") int intraOpThreads,
+            @DefaultValue("30") int candidates,
+            @DefaultValue("8") int batchSize,
+            @DefaultValue("2") int workers,
+            @DefaultValue("32") int queueCapacity,
+            @DefaultValue("300ms") Duration budget) {
+    }
+
+    /**
+     * @param maxTokens token budget of the context handed to the model
+     */
+    public record Compression(
+            @DefaultValue("false") boolean enabled,
+            @DefaultValue("1200") int maxTokens) {
+    }
+}
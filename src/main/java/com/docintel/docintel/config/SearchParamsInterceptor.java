@@ -0,0 +1,44 @@
+package com.docintel.docintel.config;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.MethodDescriptor;
+import io.qdrant.client.grpc.Points.SearchParams;
+import io.qdrant.client.grpc.Points.SearchPoints;
+
+/**
+ * Adds the configured search-time parameters (HNSW {@code ef}, quantization rescoring and oversampling) to every
+ * point search that does not carry its own. Spring AI's Qdrant store builds its search requests internally with
+ * no way to pass them, so they are applied on the gRPC channel instead.
+ */
+class SearchParamsInterceptor implements ClientInterceptor {
+
+    private final SearchParams searchParams;
+
+    SearchParamsInterceptor(SearchParams searchParams) {
+        this.searchParams = searchParams;
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method,
+                                                               CallOptions callOptions, Channel next) {
+        ClientCall<ReqT, RespT> call = next.newCall(method, callOptions);
+        if (!"qdrant.Points/Search".equals(method.getFullMethodName())) {
+            return call;
+        }
+        return new ForwardingClientCall.SimpleForwardingClientCall<>(call) {
+            @Override
+            @SuppressWarnings("unchecked")
+            public void sendMessage(ReqT message) {
+                super.sendMessage((ReqT) withDefaults((SearchPoints) message));
+            }
+        };
+    }
+
+    SearchPoints withDefaults(SearchPoints search) {
+        return search.hasParams() ? search : search.toBuilder().setParams(searchParams).build();
+    }
+}
@@ -0,0 +1,93 @@
+package com.docintel.docintel.config;
+
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A fixed number of vector slots in a memory-mapped file. The vectors stay in the page cache, off the heap, and
+ * survive restarts. A small header records the dimensions and capacity the file was created with, so it is
+ * never read with others. Floats are kept in native byte order; the files are not meant to move between machines.
+ */
+final class VectorSegment {
+
+    static final int HEADER_BYTES = 64;
+    // "DIVS"
+    private static final int MAGIC = 0x44495653;
+
+    private final MappedByteBuffer buffer;
+    private final FloatBuffer vectors;
+    private final int dimensions;
+    private final int capacity;
+
+    private VectorSegment(MappedByteBuffer buffer, int dimensions, int capacity) {
+        this.buffer = buffer;
+        this.vectors = buffer.slice(HEADER_BYTES, buffer.capacity() - HEADER_BYTES)
+                .order(ByteOrder.nativeOrder())
+                .asFloatBuffer();
+        this.dimensions = dimensions;
+        this.capacity = capacity;
+    }
+
+    static VectorSegment create(Path file, int dimensions, int capacity) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes(dimensions, capacity));
+            buffer.order(ByteOrder.nativeOrder());
+            buffer.putInt(0, MAGIC).putInt(4, dimensions).putInt(8, capacity);
+            return new VectorSegment(buffer, dimensions, capacity);
+        }
+    }
+
+    static VectorSegment open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(12).order(ByteOrder.nativeOrder());
+            channel.read(header, 0);
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException(file + " is not a vector segment");
+            }
+            int dimensions = header.getInt(4);
+            int capacity = header.getInt(8);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes(dimensions, capacity));
+            return new VectorSegment(buffer, dimensions, capacity);
+        }
+    }
+
+    private static long bytes(int dimensions, int capacity) {
+        long bytes = HEADER_BYTES + (long) dimensions * capacity * Float.BYTES;
+        Assert.isTrue(bytes <= Integer.MAX_VALUE, () -> "a segment of " + capacity + " vectors of " + dimensions
+                + " dimensions exceeds 2 GB; lower the segment capacity");
+        return bytes;
+    }
+
+    int dimensions() {
+        return dimensions;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    void write(int slot, float[] vector) {
+        vectors.put(slot * dimensions, vector);
+    }
+
+    /**
+     * Copies the vector in {@code slot} into {@code target}. Absolute reads, so segments can be scanned by several
+     * threads at once.
+     */
+    void read(int slot, float[] target) {
+        vectors.get(slot * dimensions, target);
+    }
+
+    void force() {
+        buffer.force();
+    }
+}
@@ -0,0 +1,42 @@
+package com.docintel.docintel.config;
+
+/**
+ * Dot products of float vectors, on SIMD lanes through the JDK Vector API when the JVM was started with
+ * {@code --add-modules jdk.incubator.vector}, and with a plain loop otherwise.
+ */
+final class VectorSimilarity {
+
+    static final boolean SIMD = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    private VectorSimilarity() {
+    }
+
+    static float dot(float[] a, float[] b) {
+        // the Vector API class is only loaded when its module is there
+        return SIMD ? SimdDotProduct.dot(a, b) : scalarDot(a, b);
+    }
+
+    static float scalarDot(float[] a, float[] b) {
+        float dot = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+        }
+        return dot;
+    }
+
+    /**
+     * A unit-length copy of {@code vector}, so the dot product of two stored vectors is their cosine similarity.
+     * A zero vector is copied as is.
+     */
+    static float[] normalized(float[] vector) {
+        float[] normalized = vector.clone();
+        double norm = Math.sqrt(scalarDot(vector, vector));
+        if (norm > 0) {
+            float scale = (float) (1 / norm);
+            for (int i = 0; i < normalized.length; i++) {
+                normalized[i] *= scale;
+            }
+        }
+        return normalized;
+    }
+}
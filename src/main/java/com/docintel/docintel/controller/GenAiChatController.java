@@ -1,14 +1,27 @@
 package com.docintel.docintel.controller;
 
+import com.docintel.docintel.service.ChatStreamEvent;
+import com.docintel.docintel.service.DocumentScope;
+import com.docintel.docintel.service.EvaluationRecord;
+import com.docintel.docintel.service.EvaluationService;
 import com.docintel.docintel.service.GenAiChatService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
 
+import java.net.URI;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -19,12 +32,15 @@ public class GenAiChatController {
 
     private final GenAiChatService genAiChatService;
     private final ChatMemory chatMemory;
+    private final EvaluationService evaluationService;
 
     public GenAiChatController(
             GenAiChatService chatService,
-            ChatMemory chatMemory) {
+            ChatMemory chatMemory,
+            EvaluationService evaluationService) {
         this.genAiChatService = chatService;
         this.chatMemory = chatMemory;
+        this.evaluationService = evaluationService;
     }
 
     private static String getOrCreateConversationId(String conversationId) {
@@ -33,22 +49,72 @@ public class GenAiChatController {
                 .orElse(UUID.randomUUID().toString().split("-")[0]);
     }
 
+    private static DocumentScope scope(String documentGroup, List<String> fileNames) {
+        try {
+            return new DocumentScope(documentGroup, fileNames);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * {@code documentGroup} and {@code fileName} (repeatable) scope retrieval to those documents; without them
+     * every indexed document is searched.
+     * With {@code deferEvaluation} the answer returns as soon as it is generated, carrying an evaluation id
+     * to poll on /ai/evaluations/{id}; the result is also POSTed to {@code callbackUrl} when one is given.
+     */
     @GetMapping("/ai/chat")
     String generation(
             @RequestParam String message,
-            @RequestParam(required = false, defaultValue = "5z65c1d8") String conversationId) {
+            @RequestParam(required = false, defaultValue = "5z65c1d8") String conversationId,
+            @RequestParam(defaultValue = "false") boolean deferEvaluation,
+            @RequestParam(required = false) URI callbackUrl,
+            @RequestParam(required = false) String documentGroup,
+            @RequestParam(name = "fileName", required = false) List<String> fileNames) {
 
+        if (callbackUrl != null && (!deferEvaluation || !evaluationService.isCallbackAllowed(callbackUrl))) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "callbackUrl requires deferEvaluation and an allow-listed host");
+        }
+        var scope = scope(documentGroup, fileNames);
         logger.info("received request conversation: {}", conversationId);
         var convId = getOrCreateConversationId(conversationId);
         logger.info("received request effective conversation: {}, user query: {}", convId, message);
 
-        var response = this.genAiChatService.getRelevantInfoFromRag(message, convId);
+        var response = deferEvaluation
+                ? this.genAiChatService.getRelevantInfoFromRagDeferringEvaluation(message, convId, scope, callbackUrl)
+                : this.genAiChatService.getRelevantInfoFromRag(message, convId, scope);
 
         var ls = System.lineSeparator();
         logger.info("evaluated response[ {} ]:{} {}", convId, ls, response);
         return "Response:" + response + ls.repeat(2) + "[Conversation Id]: " + convId;
     }
 
+    /**
+     * Server-Sent Events variant of /ai/chat: {@code token} events carry the answer as it is generated,
+     * a final {@code evaluation} event carries the grounding evaluation of the complete answer.
+     * Takes the same document scope parameters.
+     */
+    @GetMapping(value = "/ai/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    Flux<ServerSentEvent<Object>> streamGeneration(
+            @RequestParam String message,
+            @RequestParam(required = false, defaultValue = "5z65c1d8") String conversationId,
+            @RequestParam(required = false) String documentGroup,
+            @RequestParam(name = "fileName", required = false) List<String> fileNames) {
+
+        var scope = scope(documentGroup, fileNames);
+        var convId = getOrCreateConversationId(conversationId);
+        logger.info("received streaming request conversation: {}, user query: {}", convId, message);
+
+        return this.genAiChatService.streamRelevantInfoFromRag(message, convId, scope)
+                .map(e -> ServerSentEvent.builder(e.data()).event(e.event()).id(convId).build());
+    }
+
+    @GetMapping("/ai/evaluations/{evaluationId}")
+    public ResponseEntity<EvaluationRecord> evaluation(@PathVariable String evaluationId) {
+        return ResponseEntity.of(evaluationService.find(evaluationId));
+    }
+
     @GetMapping("/ai/history")
     public Object history(@RequestParam String conversationId) {
         logger.info("fetching conversation history : {}", conversationId);
@@ -1,43 +1,127 @@
 package com.docintel.docintel.controller;
 
-import com.docintel.docintel.service.GenAiIMultiModalIngestionService;
+import com.docintel.docintel.service.DocumentScope;
+import com.docintel.docintel.service.IngestionBatch;
+import com.docintel.docintel.service.IngestionJob;
+import com.docintel.docintel.service.IngestionJobService;
+import com.docintel.docintel.service.IngestionQueueFullException;
 import com.docintel.docintel.service.PdfService;
+import com.docintel.docintel.service.SpooledUpload;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
-@RequestMapping("/ingest/pdf")
+@RequestMapping("/ingest")
 public class IngestController {
     private static final Logger logger = LoggerFactory.getLogger(IngestController.class);
+    private static final String INVALID_DOCUMENT_GROUP =
+            "documentGroup must be 1 to 64 letters, digits, '.', '_' or '-'";
 
     private final PdfService pdfService;
-    private final GenAiIMultiModalIngestionService genAiIMultiModalIngestionService;
+    private final IngestionJobService ingestionJobService;
+    private final Duration retryAfter;
 
     public IngestController(PdfService pdfService,
-                            GenAiIMultiModalIngestionService genAiIMultiModalIngestionService) {
+                            IngestionJobService ingestionJobService,
+                            @Value("${docintel.ingest.jobs.retry-after:30s}") Duration retryAfter) {
         this.pdfService = pdfService;
-        this.genAiIMultiModalIngestionService = genAiIMultiModalIngestionService;
+        this.ingestionJobService = ingestionJobService;
+        this.retryAfter = retryAfter;
     }
 
-    @PostMapping(value = "/genai", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<String> ingestDirectToGenAi(@RequestPart("file") MultipartFile file) throws Exception {
+    @PostMapping(value = "/pdf/genai", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<Map<String, Object>> ingestDirectToGenAi(
+            @RequestPart("file") MultipartFile file,
+            @RequestParam(defaultValue = "false") boolean reingest,
+            @RequestParam(defaultValue = DocumentScope.DEFAULT_GROUP) String documentGroup) throws Exception {
+        if (!DocumentScope.isValidGroup(documentGroup)) {
+            return ResponseEntity.badRequest().body(Map.of("error", INVALID_DOCUMENT_GROUP));
+        }
         var fileName = Optional.ofNullable(file.getOriginalFilename())
                 .orElse("uploaded.pdf");
         logger.info("received file: {}", fileName);
-        File tmp = pdfService.saveToTemp(file, fileName);
-        String json = genAiIMultiModalIngestionService.extractFromPdf(tmp);
-        logger.info("ingestion completed");
-        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(json);
+
+        IngestionJob job;
+        try {
+            // refuse before spooling, a full queue should not cost a disk write of the whole upload
+            ingestionJobService.checkCapacity(false);
+            SpooledUpload upload = pdfService.saveToTemp(file, fileName);
+            job = ingestionJobService.submit(upload, fileName, reingest, documentGroup);
+        } catch (IngestionQueueFullException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter.toSeconds()))
+                    .body(Map.of("error", e.getMessage()));
+        }
+
+        URI statusUri = URI.create("/ingest/jobs/" + job.getId());
+        logger.info("ingestion accepted: {}", statusUri);
+        return ResponseEntity.accepted()
+                .location(statusUri)
+                .body(Map.of("jobId", job.getId(), "stage", job.getStage(), "status", statusUri.toString()));
+    }
+
+    /**
+     * Accepts many PDFs and/or ZIP archives of PDFs in one request and queues one job per PDF.
+     */
+    @PostMapping(value = "/pdf/genai/bulk", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<Object> ingestBulkDirectToGenAi(
+            @RequestPart("files") List<MultipartFile> files,
+            @RequestParam(defaultValue = "false") boolean reingest,
+            @RequestParam(defaultValue = DocumentScope.DEFAULT_GROUP) String documentGroup) throws Exception {
+        if (!DocumentScope.isValidGroup(documentGroup)) {
+            return ResponseEntity.badRequest().body(Map.of("error", INVALID_DOCUMENT_GROUP));
+        }
+        logger.info("received bulk upload of {} files", files.size());
+
+        IngestionBatch batch;
+        try {
+            ingestionJobService.checkCapacity(true);
+            PdfService.SpooledFiles spooled = pdfService.saveAllToTemp(files);
+            if (spooled.uploads().isEmpty()) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "no PDFs in request", "skipped", spooled.skipped()));
+            }
+            batch = ingestionJobService.submitBatch(spooled.uploads(), spooled.skipped(), reingest, documentGroup);
+        } catch (IngestionQueueFullException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter.toSeconds()))
+                    .body(Map.of("error", e.getMessage()));
+        }
+
+        URI statusUri = URI.create("/ingest/batches/" + batch.getId());
+        logger.info("bulk ingestion accepted: {}", statusUri);
+        return ResponseEntity.accepted()
+                .location(statusUri)
+                .body(batch);
+    }
+
+    @GetMapping("/batches/{batchId}")
+    public ResponseEntity<IngestionBatch> batchStatus(@PathVariable String batchId) {
+        return ResponseEntity.of(ingestionJobService.findBatch(batchId));
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<IngestionJob> jobStatus(@PathVariable String jobId) {
+        return ResponseEntity.of(ingestionJobService.find(jobId));
     }
 
 }
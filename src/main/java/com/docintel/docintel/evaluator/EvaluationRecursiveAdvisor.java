@@ -8,11 +8,11 @@ import org.springframework.ai.chat.client.ChatClientResponse;
 import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
 import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
 import org.springframework.ai.chat.client.advisor.vectorstore.QuestionAnswerAdvisor;
-import org.springframework.ai.chat.evaluation.RelevancyEvaluator;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.ai.document.Document;
 import org.springframework.ai.evaluation.EvaluationRequest;
 import org.springframework.ai.evaluation.EvaluationResponse;
+import org.springframework.ai.evaluation.Evaluator;
 import org.springframework.util.Assert;
 
 import java.util.Collections;
@@ -32,10 +32,10 @@ public class EvaluationRecursiveAdvisor implements CallAdvisor {
      * Retries stop once relevancy passes or the limit is reached.
      */
     private final int maxAttempt;
-    private final RelevancyEvaluator relevancyEvaluator;
+    private final Evaluator relevancyEvaluator;
 
 
-    public EvaluationRecursiveAdvisor(RelevancyEvaluator relevancyEvaluator, int maxRepeatAttempts) {
+    public EvaluationRecursiveAdvisor(Evaluator relevancyEvaluator, int maxRepeatAttempts) {
         Assert.notNull(relevancyEvaluator, "relevancyEvaluator must not be null");
         Assert.isTrue(maxRepeatAttempts >= 0, "repeatAttempts must be greater than or equal to 0");
         this.relevancyEvaluator = relevancyEvaluator;
@@ -0,0 +1,222 @@
+package com.docintel.docintel.evaluator;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.evaluation.EvaluationRequest;
+import org.springframework.ai.evaluation.EvaluationResponse;
+import org.springframework.ai.evaluation.Evaluator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * CPU-only grounding check that settles clear-cut answers before an LLM judge is asked.
+ * Each sentence of the answer is a claim; a claim is supported when most of its word trigrams occur
+ * in the retrieved documents. Answers whose claims are almost all supported pass locally, answers that
+ * share almost no vocabulary with the documents fail locally, and everything in between goes to the judge.
+ * A sampling rate still sends some of the locally decided answers to the judge as an audit.
+ */
+@Component
+public class GroundingPreCheck {
+    private static final Logger logger = LoggerFactory.getLogger(GroundingPreCheck.class);
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern SENTENCE_SEPARATOR = Pattern.compile("(?<=[.!?])\\s+|\\n+");
+    private static final int MIN_CLAIM_TOKENS = 4;
+    /** Sentences saying the documents do not answer the question, which cannot be checked against them. */
+    private static final Pattern NOT_FOUND = Pattern.compile(
+            "\\b(?:could ?n[o']t|can ?n[o']t|unable to|did ?n[o']t|do(?:es)? ?n[o']t) (?:find|locate|contain|mention)"
+                    + "|\\bno (?:information|mention|details?|data) (?:about|on|regarding|of|in)"
+                    + "|\\bnot (?:mentioned|covered|provided|available|found) in",
+            Pattern.CASE_INSENSITIVE);
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "the", "and", "or", "of", "to", "in", "on", "for", "with", "by", "at", "from", "as",
+            "is", "are", "was", "were", "be", "been", "it", "its", "this", "that", "these", "those", "which",
+            "what", "who", "how", "does", "do", "did", "can", "could", "should", "would", "will", "there");
+
+    private final boolean enabled;
+    private final double passThreshold;
+    private final double failThreshold;
+    private final double claimCoverage;
+    private final double auditRate;
+
+    private final Counter localPasses;
+    private final Counter localFails;
+    private final Counter escalations;
+    private final Counter audits;
+
+    public GroundingPreCheck(
+            MeterRegistry meterRegistry,
+            @Value("${docintel.evaluation.precheck.enabled:true}") boolean enabled,
+            @Value("${docintel.evaluation.precheck.pass-threshold:0.9}") double passThreshold,
+            @Value("${docintel.evaluation.precheck.fail-threshold:0.2}") double failThreshold,
+            @Value("${docintel.evaluation.precheck.claim-coverage:0.6}") double claimCoverage,
+            @Value("${docintel.evaluation.precheck.audit-rate:0.05}") double auditRate) {
+        this.enabled = enabled;
+        this.passThreshold = passThreshold;
+        this.failThreshold = failThreshold;
+        this.claimCoverage = claimCoverage;
+        this.auditRate = auditRate;
+
+        this.localPasses = outcomes(meterRegistry, "local_pass");
+        this.localFails = outcomes(meterRegistry, "local_fail");
+        this.escalations = outcomes(meterRegistry, "escalated");
+        this.audits = outcomes(meterRegistry, "audited");
+    }
+
+    private static Counter outcomes(MeterRegistry registry, String outcome) {
+        return Counter.builder("docintel.evaluation.precheck").tag("outcome", outcome).register(registry);
+    }
+
+    /**
+     * Puts the pre-check in front of an LLM judge.
+     */
+    public Evaluator gate(Evaluator judge) {
+        return request -> evaluate(request, judge);
+    }
+
+    private EvaluationResponse evaluate(EvaluationRequest request, Evaluator judge) {
+        if (!enabled) {
+            return judge.evaluate(request);
+        }
+        GroundingScore score = score(request);
+        Verdict verdict = score.verdict(passThreshold, failThreshold);
+        if (verdict == Verdict.UNCERTAIN) {
+            escalations.increment();
+            return judge.evaluate(request);
+        }
+        if (ThreadLocalRandom.current().nextDouble() < auditRate) {
+            audits.increment();
+            EvaluationResponse audited = judge.evaluate(request);
+            if (audited.isPass() != (verdict == Verdict.PASS)) {
+                logger.warn("pre-check {} disagreed with the judge ({}), score {}", verdict, audited, score);
+            }
+            return audited;
+        }
+
+        (verdict == Verdict.PASS ? localPasses : localFails).increment();
+        logger.info("grounding pre-check decided {} locally: {}", verdict, score);
+        return new EvaluationResponse(verdict == Verdict.PASS, (float) score.claimSupport(),
+                "decided by local grounding pre-check",
+                Map.of("source", "local-precheck",
+                        "claim_support", score.claimSupport(),
+                        "context_coverage", score.contextCoverage()));
+    }
+
+    GroundingScore score(EvaluationRequest request) {
+        List<Document> documents = request.getDataList() != null ? request.getDataList() : List.of();
+        String answer = request.getResponseContent() != null ? request.getResponseContent() : "";
+
+        Set<String> contextTokens = new HashSet<>();
+        Set<String> contextTrigrams = new HashSet<>();
+        for (Document document : documents) {
+            if (document.getText() != null) {
+                List<String> tokens = tokenize(document.getText());
+                contextTokens.addAll(tokens);
+                contextTrigrams.addAll(trigrams(tokens));
+            }
+        }
+
+        int claimTokens = 0;
+        int supportedTokens = 0;
+        int claims = 0;
+        for (String sentence : SENTENCE_SEPARATOR.split(answer)) {
+            List<String> tokens = tokenize(sentence);
+            // citation lines such as "References: Page 3" are not claims about the content, nor is saying
+            // that the documents do not cover the question
+            if (tokens.size() < MIN_CLAIM_TOKENS || tokens.getFirst().startsWith("reference")
+                    || NOT_FOUND.matcher(sentence).find()) {
+                continue;
+            }
+            List<String> sentenceTrigrams = trigrams(tokens);
+            long found = sentenceTrigrams.stream().filter(contextTrigrams::contains).count();
+            claims++;
+            claimTokens += tokens.size();
+            if (found >= claimCoverage * sentenceTrigrams.size()) {
+                supportedTokens += tokens.size();
+            }
+        }
+
+        List<String> answerWords = contentWords(tokenize(answer));
+        List<String> queryWords = contentWords(tokenize(request.getUserText() != null ? request.getUserText() : ""));
+        Set<String> answerOrContext = new HashSet<>(answerWords);
+        answerOrContext.addAll(contextTokens);
+        return new GroundingScore(
+                documents.size(),
+                claims,
+                claimTokens == 0 ? 0 : (double) supportedTokens / claimTokens,
+                fraction(answerWords, contextTokens),
+                fraction(queryWords, answerOrContext));
+    }
+
+    private static double fraction(List<String> words, Set<String> vocabulary) {
+        if (words.isEmpty()) {
+            return 0;
+        }
+        return (double) words.stream().filter(vocabulary::contains).count() / words.size();
+    }
+
+    private static List<String> tokenize(String text) {
+        return Arrays.stream(TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT)))
+                .filter(t -> !t.isEmpty())
+                .toList();
+    }
+
+    private static List<String> contentWords(List<String> tokens) {
+        return tokens.stream().filter(t -> !STOP_WORDS.contains(t)).toList();
+    }
+
+    private static List<String> trigrams(List<String> tokens) {
+        if (tokens.size() < 3) {
+            return List.of(String.join(" ", tokens));
+        }
+        return IntStream.rangeClosed(0, tokens.size() - 3)
+                .mapToObj(i -> tokens.get(i) + " " + tokens.get(i + 1) + " " + tokens.get(i + 2))
+                .toList();
+    }
+
+    enum Verdict {
+        PASS,
+        FAIL,
+        UNCERTAIN
+    }
+
+    /**
+     * @param documents       number of retrieved documents
+     * @param claims          sentences long enough to count as claims
+     * @param claimSupport    share of claim tokens in sentences whose trigrams are mostly found in the documents
+     * @param contextCoverage share of the answer's content words that occur in the documents
+     * @param queryCoverage   share of the query's content words found in the answer or the documents
+     */
+    record GroundingScore(int documents, int claims, double claimSupport, double contextCoverage,
+                          double queryCoverage) {
+
+        Verdict verdict(double passThreshold, double failThreshold) {
+            // without context or claims there is nothing to compare; answers that only say the documents do not
+            // cover the question have no claims, so they land here too
+            if (documents == 0 || claims == 0) {
+                return Verdict.UNCERTAIN;
+            }
+            // a verbatim answer can still miss the question, so a local pass also needs the query's vocabulary
+            if (claimSupport >= passThreshold && queryCoverage >= 0.5) {
+                return Verdict.PASS;
+            }
+            if (contextCoverage <= failThreshold) {
+                return Verdict.FAIL;
+            }
+            return Verdict.UNCERTAIN;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.docintel.docintel.service;
+
+/**
+ * One event of a streamed chat answer: answer text as it is generated, then a final evaluation.
+ *
+ * @param event event name sent to the client
+ * @param data  a text fragment for {@code token}, the evaluation result for {@code evaluation}
+ */
+public record ChatStreamEvent(String event, Object data) {
+
+    public static final String TOKEN = "token";
+    public static final String EVALUATION = "evaluation";
+
+    public static ChatStreamEvent token(String text) {
+        return new ChatStreamEvent(TOKEN, text);
+    }
+
+    public static ChatStreamEvent evaluation(Object evaluation) {
+        return new ChatStreamEvent(EVALUATION, evaluation);
+    }
+}
@@ -0,0 +1,68 @@
+package com.docintel.docintel.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.UUID;
+
+public class ContentHashHelper {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private ContentHashHelper() {
+    }
+
+    /**
+     * Hex SHA-256 of the file content, read through a fixed-size buffer.
+     */
+    public static String sha256(File file) throws IOException {
+        MessageDigest digest = newDigest();
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(file.toPath())) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public static String sha256(String text) {
+        return HexFormat.of().formatHex(newDigest().digest(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Stable point id for a piece of a document, so re-indexing the same content overwrites instead of duplicating.
+     */
+    public static String pointId(String contentHash, Object... parts) {
+        StringBuilder key = new StringBuilder(contentHash);
+        for (Object part : parts) {
+            key.append(':').append(part);
+        }
+        return UUID.nameUUIDFromBytes(key.toString().getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    /**
+     * Hash the points and index marker of a document are keyed by: its content hash, qualified by the document
+     * group unless that is the default one, so the same file ingested into two groups gets separate points.
+     */
+    public static String scopedHash(String contentHash, Object documentGroup) {
+        return documentGroup == null || DocumentScope.DEFAULT_GROUP.equals(documentGroup)
+                ? contentHash
+                : sha256(documentGroup + ":" + contentHash);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
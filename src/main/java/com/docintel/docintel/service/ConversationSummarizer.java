@@ -0,0 +1,139 @@
+package com.docintel.docintel.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.google.genai.GoogleGenAiChatModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps a rolling summary per conversation of the turns that no longer fit the prompt's history budget.
+ * Folding new turns into a summary is a model call, so it runs on a bounded background pool and never
+ * on the request path; a conversation has at most one fold in flight, and turns that arrive meanwhile
+ * are folded on a later request. Summaries are stored with the conversation in the
+ * {@link PersistentChatMemoryRepository}, so they survive restarts and are deleted along with it.
+ */
+@Component
+public class ConversationSummarizer {
+    private static final Logger logger = LoggerFactory.getLogger(ConversationSummarizer.class);
+    // roughly four characters per token, enough to hold a runaway summary to its budget
+    private static final int CHARS_PER_TOKEN = 4;
+
+    private final GoogleGenAiChatModel chatModel;
+    private final int maxSummaryTokens;
+    private final PersistentChatMemoryRepository repository;
+    private final ThreadPoolExecutor workers;
+    private final Set<String> folding = new HashSet<>();
+
+    public ConversationSummarizer(
+            GoogleGenAiChatModel chatModel,
+            PersistentChatMemoryRepository repository,
+            @Value("${docintel.chat.history.summary-max-tokens:300}") int maxSummaryTokens,
+            @Value("${docintel.chat.history.summary-workers:1}") int workers,
+            @Value("${docintel.chat.history.summary-queue-capacity:100}") int queueCapacity) {
+        Assert.isTrue(maxSummaryTokens > 0, "summary-max-tokens must be greater than 0");
+        Assert.isTrue(workers > 0, "summary-workers must be greater than 0");
+        this.chatModel = chatModel;
+        this.maxSummaryTokens = maxSummaryTokens;
+        this.repository = repository;
+
+        AtomicInteger threadIds = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(
+                workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "summary-worker-" + threadIds.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public Summary find(String conversationId) {
+        return repository.findSummary(conversationId);
+    }
+
+    /**
+     * Queues folding {@code turns} into the conversation's current summary, unless a fold for it is
+     * already running or the pool is full.
+     *
+     * @param watermark fingerprint of the last of {@code turns}, recorded with the new summary
+     */
+    public void fold(String conversationId, List<Message> turns, String watermark) {
+        List<Message> toFold = List.copyOf(turns);
+        synchronized (this) {
+            if (!folding.add(conversationId)) {
+                return;
+            }
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    Summary previous = repository.findSummary(conversationId);
+                    String text = summarise(previous != null ? previous.text() : null, toFold);
+                    repository.saveSummary(conversationId, new Summary(text, watermark));
+                } catch (RuntimeException e) {
+                    logger.warn("could not fold {} turns into the summary of {}", toFold.size(), conversationId, e);
+                } finally {
+                    synchronized (this) {
+                        folding.remove(conversationId);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            synchronized (this) {
+                folding.remove(conversationId);
+            }
+            logger.debug("summary pool is full, folding {} later", conversationId);
+        }
+    }
+
+    private String summarise(String previous, List<Message> turns) {
+        StringBuilder prompt = new StringBuilder("""
+                You maintain a running summary of a conversation between a user and a document question-answering \
+                assistant. Update the summary with the new messages below. Keep facts, figures, names, file and page \
+                references, and open questions; drop pleasantries and evaluation or quality notes. \
+                Reply with the summary only, in at most %d words.
+                """.formatted(maxSummaryTokens * 3 / 4));
+        prompt.append("\nCurrent summary:\n").append(previous != null ? previous : "(none)").append("\n\nNew messages:\n");
+        for (Message turn : turns) {
+            prompt.append(turn.getMessageType()).append(": ").append(turn.getText()).append('\n');
+        }
+        ChatResponse response = chatModel.call(new Prompt(prompt.toString()));
+        String text = response != null && response.getResult() != null
+                ? response.getResult().getOutput().getText()
+                : null;
+        if (text == null || text.isBlank()) {
+            throw new IllegalStateException("empty summary");
+        }
+        text = text.strip();
+        int maxChars = maxSummaryTokens * CHARS_PER_TOKEN;
+        return text.length() > maxChars ? text.substring(0, maxChars) : text;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * @param text      the summary of every turn up to and including the watermark
+     * @param watermark fingerprint of the last turn folded in
+     */
+    public record Summary(String text, String watermark) {
+    }
+}
@@ -0,0 +1,67 @@
+package com.docintel.docintel.service;
+
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * The documents a question is asked about: a document group (tenant), optionally narrowed to some of its files.
+ * Retrieval for a scoped question is filtered on the indexed {@code document_group} and {@code file_name}
+ * payload fields; an empty scope searches every indexed document.
+ *
+ * @param documentGroup the group the documents were ingested into, or null for any group
+ * @param fileNames     file names to restrict to, or empty for every file
+ */
+public record DocumentScope(String documentGroup, List<String> fileNames) {
+    /**
+     * The group of documents ingested without one.
+     */
+    public static final String DEFAULT_GROUP = "default";
+    public static final DocumentScope ALL = new DocumentScope(null, List.of());
+
+    private static final Pattern GROUP = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    public DocumentScope {
+        if (!StringUtils.hasText(documentGroup)) {
+            documentGroup = null;
+        } else if (!isValidGroup(documentGroup)) {
+            throw new IllegalArgumentException("invalid document group: " + documentGroup);
+        }
+        fileNames = fileNames == null
+                ? List.of()
+                : fileNames.stream().filter(StringUtils::hasText).distinct().toList();
+    }
+
+    /**
+     * Group names become payload values and manifest keys, so they are kept to a short, safe alphabet.
+     */
+    public static boolean isValidGroup(String documentGroup) {
+        return documentGroup != null && GROUP.matcher(documentGroup).matches();
+    }
+
+    public boolean isEmpty() {
+        return documentGroup == null && fileNames.isEmpty();
+    }
+
+    /**
+     * @return the filter restricting a search to this scope, or null when the scope is empty
+     */
+    public Filter.Expression toFilterExpression() {
+        if (isEmpty()) {
+            return null;
+        }
+        FilterExpressionBuilder b = new FilterExpressionBuilder();
+        FilterExpressionBuilder.Op files = fileNames.isEmpty()
+                ? null
+                : fileNames.size() == 1 ? b.eq("file_name", fileNames.getFirst()) : b.in("file_name", new ArrayList<>(fileNames));
+        if (documentGroup == null) {
+            return files.build();
+        }
+        FilterExpressionBuilder.Op group = b.eq("document_group", documentGroup);
+        return (files != null ? b.and(group, files) : group).build();
+    }
+}
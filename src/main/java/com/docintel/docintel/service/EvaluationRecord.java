@@ -0,0 +1,82 @@
+package com.docintel.docintel.service;
+
+import org.springframework.ai.evaluation.EvaluationResponse;
+
+import java.time.Instant;
+
+/**
+ * A grounding evaluation running off the request path, pollable by id once the answer has been returned.
+ */
+public class EvaluationRecord {
+
+    private final String id;
+    private final String conversationId;
+    private final Instant submittedAt = Instant.now();
+    private volatile Status status = Status.PENDING;
+    private volatile EvaluationResponse evaluation;
+    private volatile String error;
+    private volatile Instant finishedAt;
+
+    public EvaluationRecord(String id, String conversationId) {
+        this.id = id;
+        this.conversationId = conversationId;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getConversationId() {
+        return conversationId;
+    }
+
+    public Instant getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public EvaluationResponse getEvaluation() {
+        return evaluation;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    void complete(EvaluationResponse evaluation) {
+        this.evaluation = evaluation;
+        finish(Status.COMPLETED);
+    }
+
+    void fail(Throwable cause) {
+        this.error = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+        finish(Status.FAILED);
+    }
+
+    void reject(String reason) {
+        this.error = reason;
+        finish(Status.REJECTED);
+    }
+
+    private void finish(Status terminal) {
+        this.finishedAt = Instant.now();
+        this.status = terminal;
+    }
+
+    public enum Status {
+        PENDING,
+        COMPLETED,
+        FAILED,
+        /**
+         * The evaluation queue was full; the answer was returned without an evaluation.
+         */
+        REJECTED
+    }
+}
@@ -0,0 +1,135 @@
+package com.docintel.docintel.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.evaluation.EvaluationResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.Assert;
+import org.springframework.web.client.RestClient;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs the grounding judge off the request path on a bounded pool.
+ * Results are kept for a retention window for polling and, when a callback URL is given, POSTed to it.
+ * Callback hosts must be allow-listed, so a chat request cannot make the service call arbitrary addresses.
+ */
+@Service
+public class EvaluationService {
+    private static final Logger logger = LoggerFactory.getLogger(EvaluationService.class);
+
+    private final ResponseHelper responseHelper;
+    private final ThreadPoolExecutor workers;
+    private final Duration retention;
+    private final Set<String> allowedCallbackHosts;
+    private final RestClient callbackClient = RestClient.create();
+    private final Map<String, EvaluationRecord> records = new ConcurrentHashMap<>();
+
+    public EvaluationService(
+            ResponseHelper responseHelper,
+            @Value("${docintel.evaluation.workers:2}") int workerCount,
+            @Value("${docintel.evaluation.queue-capacity:100}") int queueCapacity,
+            @Value("${docintel.evaluation.retention:1h}") Duration retention,
+            @Value("${docintel.evaluation.callback.allowed-hosts:}") Set<String> allowedCallbackHosts) {
+        Assert.isTrue(workerCount > 0, "workers must be greater than 0");
+        Assert.isTrue(queueCapacity > 0, "queue-capacity must be greater than 0");
+        this.responseHelper = responseHelper;
+        this.retention = retention;
+        this.allowedCallbackHosts = allowedCallbackHosts;
+
+        AtomicInteger threadIds = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(
+                workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "evaluation-worker-" + threadIds.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public boolean isCallbackAllowed(URI callbackUri) {
+        return callbackUri.getHost() != null
+                && ("http".equals(callbackUri.getScheme()) || "https".equals(callbackUri.getScheme()))
+                && allowedCallbackHosts.contains(callbackUri.getHost());
+    }
+
+    /**
+     * Queues the evaluation of an answer that has already been returned to the caller.
+     *
+     * @param callbackUri  where to POST the finished record, or null
+     * @param onEvaluation invoked with the evaluation once it completes
+     */
+    public EvaluationRecord submit(String conversationId, String message, List<Document> retrievedDocs,
+                                   String answer, URI callbackUri, Consumer<EvaluationResponse> onEvaluation) {
+        Assert.isTrue(callbackUri == null || isCallbackAllowed(callbackUri), "callback host is not allowed");
+        evictExpired();
+        EvaluationRecord record = new EvaluationRecord(UUID.randomUUID().toString(), conversationId);
+        records.put(record.getId(), record);
+        try {
+            workers.execute(() -> run(record, message, retrievedDocs, answer, callbackUri, onEvaluation));
+        } catch (RejectedExecutionException e) {
+            // the answer has already been produced, so it goes out unevaluated rather than failing
+            logger.warn("evaluation queue full, skipping evaluation {}", record.getId());
+            record.reject("evaluation queue full");
+        }
+        return record;
+    }
+
+    public Optional<EvaluationRecord> find(String evaluationId) {
+        evictExpired();
+        return Optional.ofNullable(records.get(evaluationId));
+    }
+
+    private void run(EvaluationRecord record, String message, List<Document> retrievedDocs, String answer,
+                     URI callbackUri, Consumer<EvaluationResponse> onEvaluation) {
+        try {
+            EvaluationResponse evaluation = responseHelper.getCustomEvaluation(message, retrievedDocs, answer);
+            record.complete(evaluation);
+            onEvaluation.accept(evaluation);
+            logger.info("evaluation {} completed: {}", record.getId(), evaluation);
+        } catch (Exception e) {
+            record.fail(e);
+            logger.error("evaluation {} failed", record.getId(), e);
+        }
+        if (callbackUri != null) {
+            deliver(record, callbackUri);
+        }
+    }
+
+    private void deliver(EvaluationRecord record, URI callbackUri) {
+        try {
+            callbackClient.post().uri(callbackUri).body(record).retrieve().toBodilessEntity();
+        } catch (RuntimeException e) {
+            logger.warn("could not deliver evaluation {} to {}", record.getId(), callbackUri, e);
+        }
+    }
+
+    private void evictExpired() {
+        Instant cutoff = Instant.now().minus(retention);
+        records.values().removeIf(r -> r.getFinishedAt() != null && r.getFinishedAt().isBefore(cutoff));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+    }
+}
@@ -0,0 +1,191 @@
+package com.docintel.docintel.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.OptionalInt;
+import java.util.function.Consumer;
+
+/**
+ * Persistent, content-addressed cache of extraction output, keyed by the SHA-256 of the uploaded PDF.
+ * Also remembers which hashes have been fully indexed so identical re-uploads can skip every remote call.
+ * Entries are written and read one page at a time, so large documents never sit on the heap whole.
+ */
+@Component
+public class ExtractionCache {
+    private static final Logger logger = LoggerFactory.getLogger(ExtractionCache.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Path root;
+    private final boolean enabled;
+
+    public ExtractionCache(
+            @Value("${docintel.ingest.cache.directory:data/extraction-cache}") Path root,
+            @Value("${docintel.ingest.cache.enabled:true}") boolean enabled) throws IOException {
+        this.root = root;
+        this.enabled = enabled;
+        if (enabled) {
+            Files.createDirectories(root);
+        }
+    }
+
+    public boolean hasExtraction(String contentHash) {
+        return enabled && Files.isRegularFile(extractionPath(contentHash));
+    }
+
+    /**
+     * Replays a cached extraction page by page and returns the number of pages read.
+     */
+    public int readExtraction(String contentHash, Consumer<PageExtraction> sink) throws IOException {
+        int pages = 0;
+        try (MappingIterator<PageExtraction> it = MAPPER.readerFor(PageExtraction.class)
+                .readValues(extractionPath(contentHash).toFile())) {
+            while (it.hasNextValue()) {
+                sink.accept(it.nextValue());
+                pages++;
+            }
+        }
+        return pages;
+    }
+
+    /**
+     * Opens a writer for a new entry; nothing becomes visible until {@link EntryWriter#commit()}.
+     */
+    public EntryWriter openWriter(String contentHash) {
+        if (!enabled) {
+            return new EntryWriter(null, null, null);
+        }
+        try {
+            Path tmp = Files.createTempFile(root, "entry-", ".tmp");
+            JsonGenerator generator = MAPPER.createGenerator(tmp.toFile(), JsonEncoding.UTF8);
+            generator.writeStartArray();
+            return new EntryWriter(generator, tmp, extractionPath(contentHash));
+        } catch (IOException e) {
+            logger.warn("could not open extraction cache entry for {}", contentHash, e);
+            return new EntryWriter(null, null, null);
+        }
+    }
+
+    /**
+     * Number of documents indexed for this hash, if it has been fully indexed.
+     */
+    public OptionalInt indexedDocuments(String contentHash) {
+        Path marker = indexedMarkerPath(contentHash);
+        if (!enabled || !Files.isRegularFile(marker)) {
+            return OptionalInt.empty();
+        }
+        try {
+            return OptionalInt.of(Integer.parseInt(Files.readString(marker, StandardCharsets.UTF_8).trim()));
+        } catch (IOException | NumberFormatException e) {
+            logger.warn("unreadable index marker {}, ignoring it", marker, e);
+            return OptionalInt.empty();
+        }
+    }
+
+    public void markIndexed(String contentHash, int documents) {
+        if (!enabled) {
+            return;
+        }
+        // written through a temp file and an atomic move so readers never see a partial marker
+        try {
+            Path tmp = Files.createTempFile(root, "marker-", ".tmp");
+            Files.writeString(tmp, Integer.toString(documents), StandardCharsets.UTF_8);
+            Files.move(tmp, indexedMarkerPath(contentHash),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.warn("could not write index marker for {}", contentHash, e);
+        }
+    }
+
+    /**
+     * Forgets that this hash was fully indexed, once some of its points have been replaced.
+     */
+    public void clearIndexed(String contentHash) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(indexedMarkerPath(contentHash));
+        } catch (IOException e) {
+            logger.warn("could not delete index marker for {}", contentHash, e);
+        }
+    }
+
+    private Path extractionPath(String contentHash) {
+        return root.resolve(contentHash + ".json");
+    }
+
+    private Path indexedMarkerPath(String contentHash) {
+        return root.resolve(contentHash + ".indexed");
+    }
+
+    /**
+     * Streams pages into a temp file. A failed write only costs a future cache miss,
+     * so errors disable the writer and are logged rather than propagated.
+     */
+    public static class EntryWriter implements AutoCloseable {
+        private JsonGenerator generator;
+        private final Path tmp;
+        private final Path target;
+
+        private EntryWriter(JsonGenerator generator, Path tmp, Path target) {
+            this.generator = generator;
+            this.tmp = tmp;
+            this.target = target;
+        }
+
+        public synchronized void write(PageExtraction page) {
+            if (generator == null) {
+                return;
+            }
+            try {
+                generator.writeObject(page);
+            } catch (IOException e) {
+                logger.warn("could not write extraction cache entry {}", target, e);
+                close();
+            }
+        }
+
+        public synchronized void commit() {
+            if (generator == null) {
+                return;
+            }
+            try {
+                generator.writeEndArray();
+                generator.close();
+                generator = null;
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                logger.warn("could not commit extraction cache entry {}", target, e);
+                close();
+            }
+        }
+
+        @Override
+        public synchronized void close() {
+            if (tmp == null) {
+                return;
+            }
+            try {
+                if (generator != null) {
+                    generator.close();
+                    generator = null;
+                }
+                Files.deleteIfExists(tmp);
+            } catch (IOException e) {
+                logger.warn("could not discard extraction cache entry {}", tmp, e);
+            }
+        }
+    }
+}
@@ -4,16 +4,26 @@ import com.docintel.docintel.evaluator.EvaluationRecursiveAdvisor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
+import org.springframework.ai.chat.client.ChatClientResponse;
 import org.springframework.ai.chat.client.advisor.SimpleLoggerAdvisor;
 import org.springframework.ai.chat.client.advisor.vectorstore.QuestionAnswerAdvisor;
 import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.UserMessage;
 import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.document.Document;
 import org.springframework.ai.evaluation.EvaluationResponse;
 import org.springframework.ai.google.genai.GoogleGenAiChatModel;
 import org.springframework.ai.vectorstore.SearchRequest;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.springframework.ai.chat.memory.ChatMemory.CONVERSATION_ID;
 
@@ -25,52 +35,201 @@ public class GenAiChatService {
     private final ResponseHelper responseHelper;
     private final GoogleGenAiChatModel chatModel;
     private final ChatClient chatClient;
+    private final VectorStore vectorStore;
+    private final SearchRequest searchRequest;
     private final QuestionAnswerAdvisor qaAdvisor;
+    private final ChatMemory chatMemory;
+    private final SemanticAnswerCache answerCache;
+    private final EvaluationService evaluationService;
 
     public GenAiChatService(GoogleGenAiChatModel chatModel, ChatMemory chatMemory,
                             String systemPrompt, ResponseHelper responseHelper, VectorStore vectorStore,
-                            SimpleLoggerAdvisor chatLoggerAdvisor) {
+                            SimpleLoggerAdvisor chatLoggerAdvisor, SemanticAnswerCache answerCache,
+                            EvaluationService evaluationService, TokenBudgetChatMemoryAdvisor chatMemoryAdvisor) {
         this.chatModel = chatModel;
+        this.evaluationService = evaluationService;
+        this.chatMemory = chatMemory;
+        this.answerCache = answerCache;
         logger.info("Chat initialized with model: {}, prompt: {}",
                 chatModel.getDefaultOptions().getModel(), systemPrompt);
         this.responseHelper = responseHelper;
         this.chatClient = ChatClient.builder(chatModel)
                 .defaultSystem(systemPrompt)
-                .defaultAdvisors(
-                        MessageChatMemoryAdvisor.builder(chatMemory).build()
-                )
+                .defaultAdvisors(chatMemoryAdvisor)
                 .defaultAdvisors(chatLoggerAdvisor)
                 .build();
 
-        this.qaAdvisor = QuestionAnswerAdvisor
-                .builder(vectorStore)
-                .searchRequest(
-                        SearchRequest.builder()
-                                .topK(3)
-                                .similarityThreshold(0.35)
-                                .build()
-                ).order(5) // among others advisor when it will act
+        this.vectorStore = vectorStore;
+        this.searchRequest = SearchRequest.builder()
+                .topK(3)
+                .similarityThreshold(0.35)
                 .build();
+        this.qaAdvisor = qaAdvisor(this.searchRequest);
     }
 
-    public String getRelevantInfoFromRag(String message, String convId) {
-        ChatClient.CallResponseSpec responseHolder = chatClient.prompt()
-                .user(message + "\nProvide references wherever available.")
-                .advisors(this.qaAdvisor)
-                .advisors(a -> a.param(CONVERSATION_ID, convId))
-                .advisors(new EvaluationRecursiveAdvisor(
-                        this.responseHelper.getRelevancyEvaluator(),
-                        2
-                ))
-                .call();
+    private QuestionAnswerAdvisor qaAdvisor(SearchRequest searchRequest) {
+        return QuestionAnswerAdvisor
+                .builder(this.vectorStore)
+                .searchRequest(searchRequest)
+                .order(5) // among others advisor when it will act
+                .build();
+    }
+
+    /**
+     * The shared advisor for unscoped questions, otherwise one whose search is filtered to the scope so
+     * the payload indexes narrow the candidates before vectors are compared.
+     */
+    private QuestionAnswerAdvisor qaAdvisor(DocumentScope scope) {
+        if (scope.isEmpty()) {
+            return this.qaAdvisor;
+        }
+        return qaAdvisor(SearchRequest.from(this.searchRequest)
+                .filterExpression(scope.toFilterExpression())
+                .build());
+    }
+
+    /**
+     * Follow-ups do not use the answer cache: the answer depends on the turns before it, which the cache key
+     * does not capture.
+     */
+    private SemanticAnswerCache.Lookup lookup(String message, String convId, DocumentScope scope) {
+        if (!this.chatMemory.get(convId).isEmpty()) {
+            return this.answerCache.bypass();
+        }
+        return this.answerCache.lookup(message, scope);
+    }
 
-        ChatResponse chatResponse = responseHolder.chatResponse();
+    public String getRelevantInfoFromRag(String message, String convId, DocumentScope scope) {
+        SemanticAnswerCache.Lookup cached = lookup(message, convId, scope);
+        if (cached.isHit()) {
+            // keep the conversation history as if the model had answered
+            this.chatMemory.add(convId, List.of(new UserMessage(message), new AssistantMessage(cached.answer().text())));
+            logger.info("served cached answer, conversation Id:[{}]", convId);
+            return format(cached.answer());
+        }
+
+        ChatResponse chatResponse = generate(message, convId, scope, true);
         EvaluationResponse customEvaluation =
                 this.responseHelper.getCustomEvaluation(message, chatResponse);
 
         var text = this.responseHelper.getResponse(chatResponse);
         logger.info("{}{}conversation Id:[{}]", text, System.lineSeparator(), convId);
+        var answer = new SemanticAnswerCache.CachedAnswer(text, customEvaluation);
+        // only answers the judge accepted are worth repeating
+        if (customEvaluation != null && customEvaluation.isPass()) {
+            this.answerCache.put(cached, answer);
+        }
+        return format(answer);
+    }
+
+    /**
+     * Returns the answer as soon as it is generated. The grounding evaluation is queued on the
+     * {@link EvaluationService} and only its id is included, to be polled or delivered to {@code callbackUri}.
+     */
+    public String getRelevantInfoFromRagDeferringEvaluation(String message, String convId, DocumentScope scope,
+                                                            URI callbackUri) {
+        SemanticAnswerCache.Lookup cached = lookup(message, convId, scope);
+        if (cached.isHit()) {
+            this.chatMemory.add(convId, List.of(new UserMessage(message), new AssistantMessage(cached.answer().text())));
+            logger.info("served cached answer, conversation Id:[{}]", convId);
+            return format(cached.answer());
+        }
+
+        // the relevancy retry would judge the answer inline, which is the wait this path exists to avoid
+        ChatResponse chatResponse = generate(message, convId, scope, false);
+        var text = this.responseHelper.getResponse(chatResponse);
+        logger.info("{}{}conversation Id:[{}]", text, System.lineSeparator(), convId);
+
+        List<Document> retrievedDocs = chatResponse != null
+                ? chatResponse.getMetadata().get(QuestionAnswerAdvisor.RETRIEVED_DOCUMENTS)
+                : null;
+        EvaluationRecord evaluation = this.evaluationService.submit(convId, message,
+                retrievedDocs != null ? retrievedDocs : List.of(), text, callbackUri, customEvaluation -> {
+                    if (customEvaluation != null && customEvaluation.isPass()) {
+                        this.answerCache.put(cached, new SemanticAnswerCache.CachedAnswer(text, customEvaluation));
+                    }
+                });
+
+        var ls = System.lineSeparator();
+        return text + ls.repeat(2) + "Evaluation: " + evaluation.getStatus() + ls
+                + "[Evaluation Id]: " + evaluation.getId();
+    }
+
+    /**
+     * @param retryIrrelevant whether to judge the answer's relevancy before returning and regenerate it when
+     *                        the judge rejects it
+     */
+    private ChatResponse generate(String message, String convId, DocumentScope scope, boolean retryIrrelevant) {
+        var prompt = chatClient.prompt()
+                .user(message)
+                .advisors(qaAdvisor(scope))
+                .advisors(a -> a.param(CONVERSATION_ID, convId));
+        if (retryIrrelevant) {
+            prompt = prompt.advisors(new EvaluationRecursiveAdvisor(
+                    this.responseHelper.getRelevancyEvaluator(),
+                    2
+            ));
+        }
+        return prompt.call().chatResponse();
+    }
+
+    /**
+     * Streams the answer as it is generated, then runs the grounding evaluation on the complete answer
+     * and emits it as the final event. The recursive relevancy retry needs a whole response before it can
+     * judge and regenerate, so it does not apply to streamed answers.
+     */
+    public Flux<ChatStreamEvent> streamRelevantInfoFromRag(String message, String convId, DocumentScope scope) {
+        SemanticAnswerCache.Lookup cached = lookup(message, convId, scope);
+        if (cached.isHit()) {
+            this.chatMemory.add(convId, List.of(new UserMessage(message), new AssistantMessage(cached.answer().text())));
+            logger.info("served cached answer as stream, conversation Id:[{}]", convId);
+            return Flux.just(ChatStreamEvent.token(cached.answer().text()),
+                    ChatStreamEvent.evaluation(cached.answer().evaluation()));
+        }
+
+        StringBuilder answer = new StringBuilder();
+        AtomicReference<List<Document>> retrievedDocs = new AtomicReference<>(List.of());
+
+        Flux<ChatStreamEvent> tokens = chatClient.prompt()
+                .user(message)
+                .advisors(qaAdvisor(scope))
+                .advisors(a -> a.param(CONVERSATION_ID, convId))
+                .stream()
+                .chatClientResponse()
+                .doOnNext(response -> captureRetrievedDocs(response, retrievedDocs))
+                .mapNotNull(response -> this.responseHelper.getChunkText(response.chatResponse()))
+                .doOnNext(answer::append)
+                .map(ChatStreamEvent::token);
+
+        Mono<ChatStreamEvent> evaluation = Mono.fromCallable(() -> {
+                    String text = answer.toString();
+                    logger.info("{}{}conversation Id:[{}]", text, System.lineSeparator(), convId);
+                    EvaluationResponse customEvaluation =
+                            this.responseHelper.getCustomEvaluation(message, retrievedDocs.get(), text);
+                    if (customEvaluation != null && customEvaluation.isPass()) {
+                        this.answerCache.put(cached, new SemanticAnswerCache.CachedAnswer(text, customEvaluation));
+                    }
+                    return ChatStreamEvent.evaluation(customEvaluation);
+                })
+                // the judge call blocks, keep it off the threads delivering the stream
+                .subscribeOn(Schedulers.boundedElastic());
+
+        return tokens.concatWith(evaluation);
+    }
+
+    private static void captureRetrievedDocs(ChatClientResponse response,
+                                             AtomicReference<List<Document>> retrievedDocs) {
+        if (response.chatResponse() != null) {
+            List<Document> documents = response.chatResponse().getMetadata()
+                    .get(QuestionAnswerAdvisor.RETRIEVED_DOCUMENTS);
+            if (documents != null && !documents.isEmpty()) {
+                retrievedDocs.set(documents);
+            }
+        }
+    }
+
+    private static String format(SemanticAnswerCache.CachedAnswer answer) {
         var ls = System.lineSeparator();
-        return text + ls.repeat(2) + "Evaluation:" + ls + customEvaluation;
+        return answer.text() + ls.repeat(2) + "Evaluation:" + ls + answer.evaluation();
     }
 }
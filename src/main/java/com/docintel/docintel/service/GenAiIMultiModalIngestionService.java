@@ -4,6 +4,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.genai.Client;
+import com.google.genai.ResponseStream;
 import com.google.genai.types.Content;
 import com.google.genai.types.GenerateContentConfig;
 import com.google.genai.types.GenerateContentResponse;
@@ -13,44 +14,289 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.document.Document;
 import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.Assert;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 @Service
 public class GenAiIMultiModalIngestionService {
     private static final Logger logger = LoggerFactory.getLogger(GenAiIMultiModalIngestionService.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String EXTRACTION_MODEL = "gemini-2.5-flash";
+    private static final String EXTRACTION_PROMPT = """
+            Process this PDF page by page.
+            For each page:
+            1. Extract all tables and output them in valid Markdown.
+            2. Detect images/charts/diagrams and produce detailed captions.
+            3. Extract any JSON blocks and output valid JSON.
+            4. extract all texts and output a valid json.
+            5. Identify and extract any OCR-like or machine-read text blocks verbatim and output a valid json.
+            Return strict JSON matching the provided schema.
+            """;
 
     private final Client genai;
-    private final VectorStore qdRantVectorStore;
+    private final VectorStore vectorStore;
+    private final VectorStoreVersion vectorStoreVersion;
+    private final VectorStoreWriteBehind writeBehind;
+    private final PdfShardSplitter shardSplitter;
+    private final PdfTextLayerClassifier textLayerClassifier;
+    private final ExtractionCache extractionCache;
+    private final PageChunker pageChunker;
+    private final IngestManifestStore manifestStore;
+    private final boolean sharded;
+    private final int pagesPerShard;
 
-    public GenAiIMultiModalIngestionService(Client genAiClient, VectorStore vectorStore) {
+    /**
+     * When set, pages are parsed out of Gemini's streamed output and indexed as they arrive,
+     * instead of after the whole document has been extracted.
+     */
+    private final boolean streaming;
+
+    /**
+     * Caps concurrent Gemini extraction calls across all ingestions, not just within one document.
+     */
+    private final Semaphore extractionPermits;
+
+    public GenAiIMultiModalIngestionService(
+            Client genAiClient,
+            VectorStore vectorStore,
+            VectorStoreVersion vectorStoreVersion,
+            VectorStoreWriteBehind writeBehind,
+            PdfShardSplitter shardSplitter,
+            PdfTextLayerClassifier textLayerClassifier,
+            ExtractionCache extractionCache,
+            PageChunker pageChunker,
+            IngestManifestStore manifestStore,
+            @Value("${docintel.ingest.extraction.sharded:true}") boolean sharded,
+            @Value("${docintel.ingest.extraction.pages-per-shard:10}") int pagesPerShard,
+            @Value("${docintel.ingest.extraction.max-parallel-shards:4}") int maxParallelShards,
+            @Value("${docintel.ingest.extraction.streaming:true}") boolean streaming) {
+        Assert.isTrue(pagesPerShard > 0, "pages-per-shard must be greater than 0");
+        Assert.isTrue(maxParallelShards > 0, "max-parallel-shards must be greater than 0");
         this.genai = genAiClient;
-        this.qdRantVectorStore = vectorStore;
+        this.vectorStore = vectorStore;
+        this.vectorStoreVersion = vectorStoreVersion;
+        this.writeBehind = writeBehind;
+        this.shardSplitter = shardSplitter;
+        this.textLayerClassifier = textLayerClassifier;
+        this.extractionCache = extractionCache;
+        this.pageChunker = pageChunker;
+        this.manifestStore = manifestStore;
+        this.sharded = sharded;
+        this.pagesPerShard = pagesPerShard;
+        this.extractionPermits = new Semaphore(maxParallelShards);
+        this.streaming = streaming;
+    }
+
+    public IngestionResult extractFromPdf(File pdfFile) throws Exception {
+        return extractFromPdf(pdfFile, false, IngestionProgressListener.NONE);
     }
 
-    public String extractFromPdf(File pdfFile) throws Exception {
-        logger.info("starting extraction {}", pdfFile.getName());
-        byte[] pdfBytes = Files.readAllBytes(pdfFile.toPath());
+    public IngestionResult extractFromPdf(File pdfFile, IngestionProgressListener progress) throws Exception {
+        return extractFromPdf(pdfFile, false, progress);
+    }
 
-        // Build a multimodal Content object (prompt + PDF)
+    public IngestionResult extractFromPdf(File pdfFile, boolean incremental, IngestionProgressListener progress)
+            throws Exception {
+        return extractFromPdf(pdfFile, DocumentScope.DEFAULT_GROUP, incremental, progress);
+    }
+
+    public IngestionResult extractFromPdf(File pdfFile, String documentGroup, boolean incremental,
+                                          IngestionProgressListener progress) throws Exception {
+        return extractFromPdf(pdfFile, pdfFile.getName(), documentGroup, incremental, progress);
+    }
+
+    /**
+     * @param fileName      the file_name the pages are indexed and their revisions tracked under
+     * @param documentGroup the tenant or document group the pages are indexed under; the same file ingested into
+     *                      two groups is indexed twice, and revisions are tracked per group
+     * @param incremental   treat the upload as a revision of whatever was last ingested under the same file name:
+     *                      pages whose canonical text is unchanged are not re-embedded, changed pages replace
+     *                      their old points and pages missing from the revision are deleted
+     */
+    public IngestionResult extractFromPdf(File pdfFile, String fileName, String documentGroup, boolean incremental,
+                                          IngestionProgressListener progress) throws Exception {
+        Assert.isTrue(DocumentScope.isValidGroup(documentGroup), "invalid document group: " + documentGroup);
+        logger.info("starting extraction {} into group {}", fileName, documentGroup);
+        String contentHash = ContentHashHelper.sha256(pdfFile);
+        String indexKey = ContentHashHelper.scopedHash(contentHash, documentGroup);
+
+        Optional<IngestManifestStore.IngestManifest> previous = this.manifestStore.find(documentGroup, fileName);
+        // content indexed before only counts if a later revision has not since replaced it under this name
+        boolean currentRevision = previous.map(m -> contentHash.equals(m.contentHash())).orElse(true);
+        OptionalInt indexed = this.extractionCache.indexedDocuments(indexKey);
+        if (currentRevision && indexed.isPresent() && this.extractionCache.hasExtraction(contentHash)) {
+            logger.info("{} already ingested (content hash {}), skipping", fileName, contentHash);
+            return new IngestionResult(contentHash, indexed.getAsInt(), true, 0, 0);
+        }
+
+        Map<Integer, String> previousPageHashes = incremental
+                ? previous.map(IngestManifestStore.IngestManifest::pageHashes).orElse(null)
+                : null;
+        if (incremental && previousPageHashes == null) {
+            logger.info("no previous ingestion of {}, re-ingest indexes every page", fileName);
+        }
+        if (previousPageHashes != null && !currentRevision) {
+            // the revision being replaced loses its changed pages, so it is no longer fully indexed anywhere
+            this.extractionCache.clearIndexed(
+                    ContentHashHelper.scopedHash(previous.get().contentHash(), documentGroup));
+        }
+        try (PageIndexer indexer = new PageIndexer(fileName, documentGroup, contentHash, previousPageHashes)) {
+            if (this.extractionCache.hasExtraction(contentHash)) {
+                logger.info("reusing cached extraction for {} (content hash {})", fileName, contentHash);
+                this.extractionCache.readExtraction(contentHash, indexer);
+            } else {
+                try (ExtractionCache.EntryWriter cacheWriter = this.extractionCache.openWriter(contentHash)) {
+                    if (this.streaming) {
+                        extract(pdfFile, progress, indexer.andThen(cacheWriter::write));
+                    } else {
+                        // collect first so the cache entry keeps page order
+                        List<PageExtraction> pages = new ArrayList<>();
+                        extract(pdfFile, progress, page -> {
+                            synchronized (pages) {
+                                pages.add(page);
+                            }
+                        });
+                        pages.sort(Comparator.comparingInt(PageExtraction::getPageNumber));
+                        pages.forEach(cacheWriter::write);
+                        pages.forEach(indexer);
+                    }
+                    cacheWriter.commit();
+                }
+            }
+
+            indexer.awaitTransformed(progress);
+            int documents = indexer.awaitIndexed(progress);
+            int removedPages = indexer.deleteRemovedPages();
+            // a re-ingest only wrote part of the file, so its hash alone must not short-circuit a later upload
+            if (previousPageHashes == null) {
+                this.extractionCache.markIndexed(indexKey, documents);
+            }
+            this.manifestStore.save(new IngestManifestStore.IngestManifest(
+                    fileName, documentGroup, contentHash, indexer.pageHashes()));
+            logger.info("Number of docs extracted: {}", documents);
+            logger.info("inserted into qdrant");
+            return new IngestionResult(contentHash, documents, false, indexer.unchangedPages(), removedPages);
+        }
+    }
+
+    private void extract(File pdfFile, IngestionProgressListener progress, Consumer<PageExtraction> sink)
+            throws Exception {
+        List<Integer> remotePages = null;
+        if (this.textLayerClassifier.isEnabled()) {
+            try {
+                PdfTextLayerClassifier.PageClassification pages = this.textLayerClassifier.classify(pdfFile);
+                pages.textOnlyPages().forEach(sink);
+                remotePages = pages.richPages();
+            } catch (IOException e) {
+                logger.warn("could not read text layer of {}, extracting every page remotely", pdfFile.getName(), e);
+            }
+        }
+
+        if (remotePages != null && remotePages.isEmpty()) {
+            progress.stageStarted(IngestionStage.EXTRACTING, 0);
+            return;
+        }
+        if (this.sharded || remotePages != null) {
+            extractSharded(pdfFile, remotePages, this.sharded ? this.pagesPerShard : Integer.MAX_VALUE,
+                    progress, sink);
+            return;
+        }
+        progress.stageStarted(IngestionStage.EXTRACTING, 1);
+        this.extractionPermits.acquire();
+        try {
+            // an unsharded request carries the whole PDF inline, so it is read only once it can be sent
+            extractPages(Files.readAllBytes(pdfFile.toPath()), 0, sink);
+        } finally {
+            this.extractionPermits.release();
+        }
+        progress.unitsCompleted(1);
+    }
 
+    /**
+     * Splits the given pages of the PDF (all of them when null) into shards and extracts them
+     * concurrently on virtual threads. Pages reach the sink as each shard produces them;
+     * callers needing page order must sort.
+     */
+    private void extractSharded(File pdfFile, List<Integer> pages, int pagesPerShard,
+                                IngestionProgressListener progress, Consumer<PageExtraction> sink)
+            throws Exception {
+        List<List<Integer>> shards = this.shardSplitter.plan(pdfFile, pages, pagesPerShard);
+        progress.stageStarted(IngestionStage.EXTRACTING, shards.size());
+        if (shards.size() == 1) {
+            extractShard(pdfFile, shards.getFirst(), sink);
+            progress.unitsCompleted(1);
+            return;
+        }
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>(shards.size());
+            for (List<Integer> shard : shards) {
+                futures.add(executor.submit(() -> {
+                    extractShard(pdfFile, shard, sink);
+                    progress.unitsCompleted(1);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    futures.forEach(f -> f.cancel(true));
+                    throw e.getCause() instanceof Exception cause ? cause : e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Encodes the shard only once a permit is free, so no more shards are held in memory than are being
+     * extracted. The permit covers the Gemini call alone, the sink just hands pages to the indexer.
+     */
+    private void extractShard(File pdfFile, List<Integer> pages, Consumer<PageExtraction> sink) throws Exception {
+        this.extractionPermits.acquire();
+        try {
+            PdfShardSplitter.PdfShard shard = this.shardSplitter.render(pdfFile, pages);
+            logger.info("extracting {} pages {}-{}", pdfFile.getName(), shard.firstPage(), shard.lastPage());
+
+            // the model numbers pages relative to the shard; map them back to the source PDF
+            extractPages(shard.bytes(), shard.firstPage() - 1, p -> sink.accept(shard.rebase(p)));
+        } finally {
+            this.extractionPermits.release();
+        }
+    }
+
+    /**
+     * Sends the PDF to Gemini; the caller holds an extraction permit.
+     */
+    private void extractPages(byte[] pdfBytes, int pageOffset, Consumer<PageExtraction> sink) throws Exception {
+        // Build a multimodal Content object (prompt + PDF)
         Content request = Content.fromParts(
-                Part.fromText("""
-                        Process this PDF page by page.
-                        For each page:
-                        1. Extract all tables and output them in valid Markdown.
-                        2. Detect images/charts/diagrams and produce detailed captions.
-                        3. Extract any JSON blocks and output valid JSON.
-                        4. extract all texts and output a valid json.
-                        5. Identify and extract any OCR-like or machine-read text blocks verbatim and output a valid json.
-                        Return strict JSON matching the provided schema.
-                        """),
+                Part.fromText(EXTRACTION_PROMPT),
                 Part.fromBytes(pdfBytes, "application/pdf")
         );
 
@@ -60,78 +306,243 @@ public class GenAiIMultiModalIngestionService {
                         .responseSchema(SchemaBuildingHelper.getGenAiSchemaForExtractedPage())
                         .build();
 
-        GenerateContentResponse response =
-                this.genai.models.generateContent("gemini-2.5-flash", request, config);
-
-        List<Document> docs = transformIntoDocument(response.text(), pdfFile);
-        logger.info("Number of docs extracted: {}", docs.size());
-        reportUsage(response);
+        if (this.streaming) {
+            streamPages(request, config, pageOffset, sink);
+            return;
+        }
+        GenerateContentResponse response = this.genai.models.generateContent(EXTRACTION_MODEL, request, config);
+        reportUsage(response, pageOffset);
+        List<PageExtraction> pages = MAPPER.readValue(response.text(), new TypeReference<>() {
+        });
+        pages.forEach(sink);
+    }
 
-        logger.info(this.qdRantVectorStore.getName());
-        this.qdRantVectorStore.add(docs);
-        logger.info("inserted into qdrant");
-        return response.text();
+    /**
+     * Feeds Gemini's streamed chunks through an incremental parser so each page reaches the sink
+     * as soon as its JSON object closes, without ever holding the full response text.
+     */
+    private void streamPages(Content request, GenerateContentConfig config, int pageOffset,
+                             Consumer<PageExtraction> sink) throws IOException {
+        PageExtractionStreamParser parser = new PageExtractionStreamParser(MAPPER, sink);
+        GenerateContentResponse last = null;
+        try (ResponseStream<GenerateContentResponse> stream =
+                     this.genai.models.generateContentStream(EXTRACTION_MODEL, request, config)) {
+            for (GenerateContentResponse chunk : stream) {
+                String text = chunk.text();
+                if (text != null) {
+                    parser.feed(text);
+                }
+                last = chunk;
+            }
+        }
+        int pages = parser.finish();
+        logger.info("streamed {} pages (page offset {})", pages, pageOffset);
+        if (last != null) {
+            reportUsage(last, pageOffset);
+        }
     }
 
-    private static void reportUsage(GenerateContentResponse response) {
+    private static void reportUsage(GenerateContentResponse response, int pageOffset) {
         response.usageMetadata().flatMap(GenerateContentResponseUsageMetadata::totalTokenCount)
-                .ifPresent(t -> logger.info("total token used in extraction: {}", t));
+                .ifPresent(t -> logger.info("total token used in extraction (page offset {}): {}", pageOffset, t));
     }
 
-    private List<Document> transformIntoDocument(String json, File pdfFile) throws JsonProcessingException {
-        logger.info("starting transform into document {}", pdfFile.getName());
-        final ObjectMapper mapper = new ObjectMapper();
+    static Document transformIntoDocument(PageExtraction p, String fileName, String documentGroup, String contentHash)
+            throws JsonProcessingException {
+        Map<String, Object> metadata = new HashMap<>();
 
-        List<PageExtraction> pages = mapper.readValue(json, new TypeReference<>() {
-        });
+        // convert each page into canonical text that embedding models can understand
+        StringBuilder sb = new StringBuilder();
+        sb.append("Page ").append(p.pageNumber).append("\n");
 
-        /* Convert each page into a Document  */
-        List<Document> docs = new ArrayList<>();
+        if (p.extracted_tables != null && !p.extracted_tables.isEmpty()) {
+            metadata.put("tables", p.extracted_tables);
+            sb.append("Tables:\n");
+            p.extracted_tables.forEach(t -> sb.append(t).append("\n"));
+        }
 
-        for (PageExtraction p : pages) {
-            Map<String, Object> metadata = new HashMap<>();
+        if (p.images != null && !p.images.isEmpty()) {
+            metadata.put("images", p.images);
 
-            // convert each page into canonical text that embedding models can understand
-            StringBuilder sb = new StringBuilder();
-            sb.append("Page ").append(p.pageNumber).append("\n");
+            sb.append("Images:\n");
+            for (Map<String, Object> img : p.images) {
+                Object caption = img.get("caption");
+                if (caption != null) sb.append("Caption: ").append(caption).append("\n");
+            }
+        }
 
-            if (p.extracted_tables != null && !p.extracted_tables.isEmpty()) {
-                metadata.put("tables", p.extracted_tables);
-                sb.append("Tables:\n");
-                p.extracted_tables.forEach(t -> sb.append(t).append("\n"));
+        if (p.jsonBlocks != null && !p.jsonBlocks.isEmpty()) {
+            metadata.put("json_blocks", p.jsonBlocks);
+            sb.append("JSON Blocks:\n");
+            for (Object jb : p.jsonBlocks) {
+                sb.append(MAPPER.writeValueAsString(jb)).append("\n");
             }
+        }
 
-            if (p.images != null && !p.images.isEmpty()) {
-                metadata.put("images", p.images);
+        if (p.getTextContent() != null && !p.getTextContent().isBlank()) {
+            sb.append("Text:\n").append(p.getTextContent().strip()).append("\n");
+        }
+
+        String content = sb.toString().trim();
+        if (content.isEmpty()) {
+            content = "Page " + p.pageNumber + " (empty)";
+        }
+
+        metadata.put("page_number", p.pageNumber);
+        metadata.put("file_name", fileName);
+        metadata.put("document_group", documentGroup);
+        metadata.put("content_hash", contentHash);
+        metadata.put("page_hash", ContentHashHelper.sha256(content));
+
+        // deterministic ids: re-indexing the same content overwrites its points instead of duplicating them
+        return new Document(ContentHashHelper.pointId(ContentHashHelper.scopedHash(contentHash, documentGroup),
+                p.pageNumber), content, metadata);
+    }
+
+    /**
+     * Turns pages into chunked Documents as they arrive and hands them to the write-behind buffer.
+     * Each page is transformed on its own virtual thread, so the threads feeding pages, which may hold an
+     * extraction permit, never wait on chunking, deletes or the vector store.
+     * Given the page hashes of a previous ingestion, unchanged pages are skipped and changed ones
+     * have their old points deleted before the new ones are submitted.
+     */
+    private class PageIndexer implements Consumer<PageExtraction>, AutoCloseable {
+        private final String fileName;
+        private final String documentGroup;
+        private final String contentHash;
+        private final Map<Integer, String> previousPageHashes;
+        private final Map<Integer, String> pageHashes = new ConcurrentHashMap<>();
+        private final AtomicInteger unchangedPages = new AtomicInteger();
+        private final List<Submission> submissions = new ArrayList<>();
+        private final ExecutorService transformers = Executors.newVirtualThreadPerTaskExecutor();
+        private final List<Future<?>> transforms = new ArrayList<>();
+
+        PageIndexer(String fileName, String documentGroup, String contentHash,
+                    Map<Integer, String> previousPageHashes) {
+            this.fileName = fileName;
+            this.documentGroup = documentGroup;
+            this.contentHash = contentHash;
+            this.previousPageHashes = previousPageHashes;
+        }
+
+        @Override
+        public void accept(PageExtraction page) {
+            Future<?> transform = transformers.submit(() -> transform(page));
+            synchronized (transforms) {
+                transforms.add(transform);
+            }
+        }
+
+        private void transform(PageExtraction page) {
+            Document pageDocument;
+            try {
+                pageDocument = transformIntoDocument(page, fileName, documentGroup, contentHash);
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+            }
 
-                sb.append("Images:\n");
-                for (Map<String, Object> img : p.images) {
-                    Object caption = img.get("caption");
-                    if (caption != null) sb.append("Caption: ").append(caption).append("\n");
+            String pageHash = (String) pageDocument.getMetadata().get("page_hash");
+            pageHashes.put(page.pageNumber, pageHash);
+            if (previousPageHashes != null) {
+                String previous = previousPageHashes.get(page.pageNumber);
+                if (pageHash.equals(previous)) {
+                    unchangedPages.incrementAndGet();
+                    return;
                 }
+                if (previous != null) {
+                    // new points get new ids, so the old version of the page has to go first
+                    deletePages(List.of(page.pageNumber));
+                }
+            }
+
+            List<Document> chunks = pageChunker.chunk(pageDocument);
+            CompletableFuture<Void> acknowledged = writeBehind.submit(chunks);
+            synchronized (submissions) {
+                submissions.add(new Submission(chunks.size(), acknowledged));
             }
+        }
 
-            if (p.jsonBlocks != null && !p.jsonBlocks.isEmpty()) {
-                metadata.put("json_blocks", p.jsonBlocks);
-                sb.append("JSON Blocks:\n");
-                for (Object jb : p.jsonBlocks) {
-                    sb.append(mapper.writeValueAsString(jb)).append("\n");
+        /**
+         * Blocks until every page received so far has been transformed and submitted for indexing.
+         */
+        void awaitTransformed(IngestionProgressListener progress) throws Exception {
+            List<Future<?>> all;
+            synchronized (transforms) {
+                all = List.copyOf(transforms);
+            }
+            progress.stageStarted(IngestionStage.TRANSFORMING, all.size());
+            for (Future<?> transform : all) {
+                try {
+                    transform.get();
+                } catch (ExecutionException e) {
+                    throw e.getCause() instanceof Exception cause ? cause : e;
                 }
+                progress.unitsCompleted(1);
             }
+        }
+
+        /**
+         * Blocks until the vector store has acknowledged every submitted document and returns how many there were.
+         */
+        int awaitIndexed(IngestionProgressListener progress) throws Exception {
+            List<Submission> all;
+            synchronized (submissions) {
+                all = List.copyOf(submissions);
+            }
+            int documents = all.stream().mapToInt(Submission::documents).sum();
+            progress.stageStarted(IngestionStage.INDEXING, documents);
+            for (Submission submission : all) {
+                try {
+                    submission.acknowledged().join();
+                } catch (CompletionException e) {
+                    throw e.getCause() instanceof Exception cause ? cause : e;
+                }
+                progress.unitsCompleted(submission.documents());
+            }
+            logger.info("indexed {} documents from {}", documents, fileName);
+            return documents;
+        }
 
-            String content = sb.toString().trim();
-            if (content.isEmpty()) {
-                content = "Page " + p.pageNumber + " (empty)";
+        /**
+         * Deletes the points of pages the previous ingestion had but this one did not produce.
+         */
+        int deleteRemovedPages() {
+            if (previousPageHashes == null) {
+                return 0;
             }
+            List<Integer> removed = previousPageHashes.keySet().stream()
+                    .filter(p -> !pageHashes.containsKey(p))
+                    .toList();
+            if (!removed.isEmpty()) {
+                deletePages(removed);
+                logger.info("deleted {} pages no longer in {}", removed.size(), fileName);
+            }
+            logger.info("re-ingest of {} skipped {} unchanged pages", fileName, unchangedPages.get());
+            return removed.size();
+        }
 
-            metadata.put("page_number", p.pageNumber);
-            metadata.put("file_name", pdfFile.getName());
+        private void deletePages(List<Integer> pageNumbers) {
+            FilterExpressionBuilder b = new FilterExpressionBuilder();
+            vectorStore.delete(b.and(
+                    b.and(b.eq("document_group", documentGroup), b.eq("file_name", fileName)),
+                    b.in("page_number", new ArrayList<>(pageNumbers))).build());
+            vectorStoreVersion.advance();
+        }
 
-            Document doc = new Document(content, metadata);
-            docs.add(doc);
+        Map<Integer, String> pageHashes() {
+            return new TreeMap<>(pageHashes);
         }
-        return docs;
-    }
-}
 
+        int unchangedPages() {
+            return unchangedPages.get();
+        }
 
+        @Override
+        public void close() {
+            transformers.shutdownNow();
+        }
+    }
+
+    private record Submission(int documents, CompletableFuture<Void> acknowledged) {
+    }
+}
@@ -0,0 +1,75 @@
+package com.docintel.docintel.service;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Remembers, per document group and file_name, the canonical-text hash of every page last indexed for it.
+ * Re-ingesting a revised file compares against this to embed only added or changed pages.
+ */
+@Component
+public class IngestManifestStore {
+    private static final Logger logger = LoggerFactory.getLogger(IngestManifestStore.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Path root;
+
+    public IngestManifestStore(
+            @Value("${docintel.ingest.manifest.directory:data/ingest-manifests}") Path root) throws IOException {
+        this.root = root;
+        Files.createDirectories(root);
+    }
+
+    public Optional<IngestManifest> find(String documentGroup, String fileName) {
+        Path path = manifestPath(documentGroup, fileName);
+        if (!Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(MAPPER.readValue(path.toFile(), IngestManifest.class));
+        } catch (IOException e) {
+            logger.warn("unreadable ingest manifest {} for {}, treating as absent", path, fileName, e);
+            return Optional.empty();
+        }
+    }
+
+    public void save(IngestManifest manifest) throws IOException {
+        Path tmp = Files.createTempFile(root, "manifest-", ".tmp");
+        MAPPER.writeValue(tmp.toFile(), manifest);
+        Files.move(tmp, manifestPath(manifest.documentGroup(), manifest.fileName()),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Path manifestPath(String documentGroup, String fileName) {
+        // file names come from clients, so they are hashed rather than used as paths;
+        // the default group keeps the key manifests had before groups existed
+        String key = documentGroup == null || DocumentScope.DEFAULT_GROUP.equals(documentGroup)
+                ? fileName
+                : documentGroup + "/" + fileName;
+        return root.resolve(ContentHashHelper.sha256(key) + ".json");
+    }
+
+    /**
+     * @param fileName      the file_name the pages were indexed under
+     * @param documentGroup the document_group the pages were indexed under
+     * @param contentHash   SHA-256 of the upload that produced this manifest
+     * @param pageHashes    page number to SHA-256 of the page's canonical text
+     */
+    public record IngestManifest(
+            @JsonProperty("file_name") String fileName,
+            @JsonProperty("document_group") String documentGroup,
+            @JsonProperty("content_hash") String contentHash,
+            @JsonProperty("page_hashes") Map<Integer, String> pageHashes) {
+    }
+}
@@ -0,0 +1,75 @@
+package com.docintel.docintel.service;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A set of files submitted together through the bulk endpoint, one {@link IngestionJob} per PDF.
+ * Serves as the per-file result manifest: each job carries its own stage, result or error.
+ */
+public class IngestionBatch {
+
+    private final String id;
+    private final Instant submittedAt = Instant.now();
+    private final List<IngestionJob> files;
+    private final List<SkippedFile> skipped;
+
+    public IngestionBatch(String id, List<IngestionJob> files, List<SkippedFile> skipped) {
+        this.id = id;
+        this.files = List.copyOf(files);
+        this.skipped = List.copyOf(skipped);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Instant getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public List<IngestionJob> getFiles() {
+        return files;
+    }
+
+    public List<SkippedFile> getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * Number of files currently in each stage.
+     */
+    public Map<IngestionStage, Integer> getCounts() {
+        Map<IngestionStage, Integer> counts = new EnumMap<>(IngestionStage.class);
+        files.forEach(j -> counts.merge(j.getStage(), 1, Integer::sum));
+        return counts;
+    }
+
+    public boolean isFinished() {
+        return files.stream().allMatch(j -> j.getStage().isTerminal());
+    }
+
+    /**
+     * When the last file finished, or null while any file is still in progress.
+     */
+    public Instant getFinishedAt() {
+        if (!isFinished()) {
+            return null;
+        }
+        return files.stream()
+                .map(IngestionJob::getFinishedAt)
+                .filter(Objects::nonNull)
+                .max(Comparator.naturalOrder())
+                .orElse(submittedAt);
+    }
+
+    /**
+     * A file from the request that was not queued, such as a non-PDF entry of an archive.
+     */
+    public record SkippedFile(String fileName, String reason) {
+    }
+}
@@ -0,0 +1,140 @@
+package com.docintel.docintel.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks one queued PDF ingestion and the progress of each stage it has reached.
+ * Written by the worker thread and read concurrently by status polls.
+ */
+public class IngestionJob implements IngestionProgressListener {
+
+    private final String id;
+    private final String fileName;
+    private final Instant submittedAt = Instant.now();
+    private final List<StageProgress> stages = new ArrayList<>();
+    private volatile IngestionStage stage;
+    private volatile String error;
+    private volatile IngestionResult result;
+    private volatile Instant finishedAt;
+
+    public IngestionJob(String id, String fileName) {
+        this.id = id;
+        this.fileName = fileName;
+        stageStarted(IngestionStage.QUEUED, 0);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public IngestionStage getStage() {
+        return stage;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public IngestionResult getResult() {
+        return result;
+    }
+
+    public Instant getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public List<StageProgress> getStages() {
+        synchronized (stages) {
+            return List.copyOf(stages);
+        }
+    }
+
+    @Override
+    public void stageStarted(IngestionStage next, int totalUnits) {
+        synchronized (stages) {
+            if (!stages.isEmpty()) {
+                stages.getLast().finish();
+            }
+            stages.add(new StageProgress(next, totalUnits));
+            this.stage = next;
+        }
+    }
+
+    @Override
+    public void unitsCompleted(int units) {
+        synchronized (stages) {
+            stages.getLast().completedUnits.addAndGet(units);
+        }
+    }
+
+    void complete(IngestionResult result) {
+        this.result = result;
+        finish(IngestionStage.COMPLETED);
+    }
+
+    void fail(Throwable cause) {
+        this.error = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+        finish(IngestionStage.FAILED);
+    }
+
+    private void finish(IngestionStage terminal) {
+        stageStarted(terminal, 0);
+        synchronized (stages) {
+            stages.getLast().finish();
+        }
+        this.finishedAt = Instant.now();
+    }
+
+    /**
+     * Timing and unit counts for one stage; {@code totalUnits} is 0 when the stage has no known size.
+     */
+    public static class StageProgress {
+        private final IngestionStage stage;
+        private final int totalUnits;
+        private final AtomicInteger completedUnits = new AtomicInteger();
+        private final Instant startedAt = Instant.now();
+        private volatile Instant finishedAt;
+
+        StageProgress(IngestionStage stage, int totalUnits) {
+            this.stage = stage;
+            this.totalUnits = totalUnits;
+        }
+
+        public IngestionStage getStage() {
+            return stage;
+        }
+
+        public int getTotalUnits() {
+            return totalUnits;
+        }
+
+        public int getCompletedUnits() {
+            return completedUnits.get();
+        }
+
+        public Instant getStartedAt() {
+            return startedAt;
+        }
+
+        public Instant getFinishedAt() {
+            return finishedAt;
+        }
+
+        void finish() {
+            if (finishedAt == null) {
+                finishedAt = Instant.now();
+            }
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.docintel.docintel.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs PDF ingestions on a bounded worker pool fed by a bounded queue.
+ * Submissions beyond the queue capacity are rejected rather than buffered, so callers can push back.
+ * Bulk batches get their own pool, sized to the machine, so a large batch cannot starve single uploads;
+ * both pools share the same Gemini extraction permits and vector store write-behind buffer.
+ * Finished jobs and batches stay pollable for a retention window and are then forgotten.
+ */
+@Service
+public class IngestionJobService {
+    private static final Logger logger = LoggerFactory.getLogger(IngestionJobService.class);
+
+    private final GenAiIMultiModalIngestionService ingestionService;
+    private final ThreadPoolExecutor workers;
+    private final ThreadPoolExecutor bulkWorkers;
+    private final Duration retention;
+    private final Map<String, IngestionJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, IngestionBatch> batches = new ConcurrentHashMap<>();
+
+    public IngestionJobService(
+            GenAiIMultiModalIngestionService ingestionService,
+            @Value("${docintel.ingest.jobs.workers:4}") int workerCount,
+            @Value("${docintel.ingest.jobs.queue-capacity:32}") int queueCapacity,
+            @Value("${docintel.ingest.jobs.retention:1h}") Duration retention,
+            @Value("${docintel.ingest.bulk.workers:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}")
+            int bulkWorkerCount,
+            @Value("${docintel.ingest.bulk.queue-capacity:1000}") int bulkQueueCapacity) {
+        Assert.isTrue(workerCount > 0, "workers must be greater than 0");
+        Assert.isTrue(queueCapacity > 0, "queue-capacity must be greater than 0");
+        Assert.isTrue(bulkWorkerCount > 0, "bulk workers must be greater than 0");
+        Assert.isTrue(bulkQueueCapacity > 0, "bulk queue-capacity must be greater than 0");
+        this.ingestionService = ingestionService;
+        this.retention = retention;
+        this.workers = newPool("ingest-worker-", workerCount, queueCapacity);
+        this.bulkWorkers = newPool("ingest-bulk-worker-", bulkWorkerCount, bulkQueueCapacity);
+    }
+
+    private static ThreadPoolExecutor newPool(String threadPrefix, int threads, int queueCapacity) {
+        AtomicInteger threadIds = new AtomicInteger();
+        return new ThreadPoolExecutor(
+                threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, threadPrefix + threadIds.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Fails fast when the queue has no room left, so callers can refuse an upload before spooling it.
+     * Admission is still decided by {@link #submit} and {@link #submitBatch}.
+     *
+     * @param bulk check the bulk queue rather than the one for single uploads
+     */
+    public void checkCapacity(boolean bulk) throws IngestionQueueFullException {
+        ThreadPoolExecutor pool = bulk ? bulkWorkers : workers;
+        if (pool.getQueue().remainingCapacity() == 0) {
+            logger.warn("{} queue full, refusing upload before spooling", bulk ? "bulk ingestion" : "ingestion");
+            throw new IngestionQueueFullException(pool.getQueue().size());
+        }
+    }
+
+    /**
+     * Queues the spooled upload for ingestion and takes ownership of it.
+     *
+     * @param incremental   ingest as a revision of the file last ingested under the same name
+     * @param documentGroup the document group the file is indexed under
+     * @throws IngestionQueueFullException when the queue is at capacity; the upload is released, as it is
+     *                                     on any other failure
+     */
+    public IngestionJob submit(SpooledUpload upload, String fileName, boolean incremental, String documentGroup)
+            throws IngestionQueueFullException {
+        IngestionJob job = new IngestionJob(UUID.randomUUID().toString(), fileName);
+        try {
+            evictExpired();
+            jobs.put(job.getId(), job);
+            workers.execute(() -> run(job, upload, incremental, documentGroup));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            upload.close();
+            logger.warn("ingestion queue full, rejected {}", fileName);
+            throw new IngestionQueueFullException(workers.getQueue().size());
+        } catch (RuntimeException e) {
+            jobs.remove(job.getId());
+            upload.close();
+            throw e;
+        }
+        logger.info("queued ingestion job {} for {}", job.getId(), fileName);
+        return job;
+    }
+
+    /**
+     * Queues every upload of a bulk request as its own job and takes ownership of all of them.
+     * The batch is admitted whole or not at all.
+     *
+     * @param skipped       files from the request that will not be ingested, reported back in the manifest
+     * @param documentGroup the document group every file of the batch is indexed under
+     * @throws IngestionQueueFullException when the bulk queue cannot take every file; all uploads are released
+     */
+    public IngestionBatch submitBatch(List<SpooledUpload> uploads, List<IngestionBatch.SkippedFile> skipped,
+                                      boolean incremental, String documentGroup)
+            throws IngestionQueueFullException {
+        List<IngestionJob> batchJobs = new ArrayList<>(uploads.size());
+        try {
+            evictExpired();
+            synchronized (bulkWorkers) {
+                if (bulkWorkers.getQueue().remainingCapacity() < uploads.size()) {
+                    uploads.forEach(SpooledUpload::close);
+                    logger.warn("bulk ingestion queue full, rejected batch of {} files", uploads.size());
+                    throw new IngestionQueueFullException(bulkWorkers.getQueue().size());
+                }
+                for (SpooledUpload upload : uploads) {
+                    IngestionJob job = new IngestionJob(UUID.randomUUID().toString(), upload.name());
+                    bulkWorkers.execute(() -> run(job, upload, incremental, documentGroup));
+                    jobs.put(job.getId(), job);
+                    batchJobs.add(job);
+                }
+            }
+        } catch (RuntimeException e) {
+            // uploads already queued belong to their jobs, the rest are still ours
+            uploads.subList(batchJobs.size(), uploads.size()).forEach(SpooledUpload::close);
+            throw e;
+        }
+        IngestionBatch batch = new IngestionBatch(UUID.randomUUID().toString(), batchJobs, skipped);
+        batches.put(batch.getId(), batch);
+        logger.info("queued ingestion batch {} with {} files ({} skipped)", batch.getId(), uploads.size(),
+                skipped.size());
+        return batch;
+    }
+
+    public Optional<IngestionBatch> findBatch(String batchId) {
+        evictExpired();
+        return Optional.ofNullable(batches.get(batchId));
+    }
+
+    public Optional<IngestionJob> find(String jobId) {
+        evictExpired();
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    private void run(IngestionJob job, SpooledUpload upload, boolean incremental, String documentGroup) {
+        try (upload) {
+            job.complete(ingestionService.extractFromPdf(
+                    upload.file(), upload.name(), documentGroup, incremental, job));
+            logger.info("ingestion job {} completed", job.getId());
+        } catch (Exception e) {
+            job.fail(e);
+            logger.error("ingestion job {} failed", job.getId(), e);
+        }
+    }
+
+    private void evictExpired() {
+        Instant cutoff = Instant.now().minus(retention);
+        jobs.values().removeIf(j -> j.getFinishedAt() != null && j.getFinishedAt().isBefore(cutoff));
+        batches.values().removeIf(b -> b.getFinishedAt() != null && b.getFinishedAt().isBefore(cutoff));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+        bulkWorkers.shutdownNow();
+    }
+}
@@ -0,0 +1,23 @@
+package com.docintel.docintel.service;
+
+/**
+ * Receives progress callbacks while a PDF moves through the ingestion pipeline.
+ * Every method has a no-op default so callers only implement what they report on.
+ */
+public interface IngestionProgressListener {
+
+    IngestionProgressListener NONE = new IngestionProgressListener() {
+    };
+
+    /**
+     * A new pipeline stage has started; {@code totalUnits} is its work size, or 0 when unknown.
+     */
+    default void stageStarted(IngestionStage stage, int totalUnits) {
+    }
+
+    /**
+     * {@code units} more units of the current stage are done.
+     */
+    default void unitsCompleted(int units) {
+    }
+}
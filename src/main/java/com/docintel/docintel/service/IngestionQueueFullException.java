@@ -0,0 +1,11 @@
+package com.docintel.docintel.service;
+
+/**
+ * Raised when the ingestion queue cannot take another job.
+ */
+public class IngestionQueueFullException extends Exception {
+
+    public IngestionQueueFullException(int queued) {
+        super("ingestion queue is full (" + queued + " jobs waiting)");
+    }
+}
@@ -0,0 +1,14 @@
+package com.docintel.docintel.service;
+
+/**
+ * Outcome of ingesting one PDF.
+ *
+ * @param contentHash    SHA-256 of the uploaded file
+ * @param documents      number of documents written to the vector store
+ * @param deduplicated   true when identical content was already indexed and nothing was re-processed
+ * @param unchangedPages pages skipped by an incremental re-ingest because their text had not changed
+ * @param removedPages   pages whose points an incremental re-ingest deleted because the revision dropped them
+ */
+public record IngestionResult(String contentHash, int documents, boolean deduplicated,
+                              int unchangedPages, int removedPages) {
+}
@@ -0,0 +1,17 @@
+package com.docintel.docintel.service;
+
+/**
+ * Stages an ingestion job passes through, in order.
+ */
+public enum IngestionStage {
+    QUEUED,
+    EXTRACTING,
+    TRANSFORMING,
+    INDEXING,
+    COMPLETED,
+    FAILED;
+
+    public boolean isTerminal() {
+        return this == COMPLETED || this == FAILED;
+    }
+}
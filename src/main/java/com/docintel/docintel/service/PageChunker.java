@@ -0,0 +1,235 @@
+package com.docintel.docintel.service;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.ai.transformer.splitter.TokenTextSplitter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Splits page Documents produced by transformIntoDocument into token-bounded chunks.
+ * Markdown tables and JSON blocks are never cut mid-structure: oversized tables are split between rows
+ * with their header repeated, and only a single oversized JSON block or paragraph falls back to the
+ * token splitter. Every chunk keeps the page's provenance metadata and its "Page N" heading.
+ */
+@Component
+public class PageChunker {
+
+    /**
+     * Section headings written by transformIntoDocument; they stay attached to the block that follows.
+     */
+    private static final Set<String> SECTION_HEADINGS = Set.of("Tables:", "Images:", "JSON Blocks:", "Text:");
+
+    /**
+     * Bulky metadata kept only on the first chunk of a page so it is not stored once per chunk.
+     */
+    private static final Set<String> PAGE_LEVEL_METADATA = Set.of("tables", "images", "json_blocks");
+
+    private final TokenTextSplitter fallbackSplitter;
+    private final TokenCountEstimator tokenCounter = new JTokkitTokenCountEstimator();
+    private final int maxTokens;
+    private final boolean enabled;
+
+    public PageChunker(TokenTextSplitter tokenTextSplitter,
+                       @Value("${docintel.ingest.chunking.enabled:true}") boolean enabled,
+                       @Value("${docintel.ingest.chunking.max-tokens:800}") int maxTokens) {
+        Assert.isTrue(maxTokens > 0, "max-tokens must be greater than 0");
+        this.fallbackSplitter = tokenTextSplitter;
+        this.enabled = enabled;
+        this.maxTokens = maxTokens;
+    }
+
+    public List<Document> chunk(Document page) {
+        String text = page.getText();
+        if (!enabled || text == null || tokenCounter.estimate(text) <= maxTokens) {
+            return List.of(page);
+        }
+
+        int headerEnd = text.indexOf('\n');
+        String header = headerEnd < 0 ? "" : text.substring(0, headerEnd);
+        String body = headerEnd < 0 ? text : text.substring(headerEnd + 1);
+        int budget = Math.max(1, maxTokens - tokenCounter.estimate(header) - 1);
+
+        List<String> pieces = new ArrayList<>();
+        for (String block : toBlocks(body)) {
+            if (tokenCounter.estimate(block) <= budget) {
+                pieces.add(block);
+            } else if (isTable(block)) {
+                pieces.addAll(splitTable(block, budget));
+            } else {
+                fallbackSplitter.split(new Document(block)).forEach(d -> pieces.add(d.getText()));
+            }
+        }
+
+        List<String> chunkTexts = pack(pieces, budget);
+        if (chunkTexts.size() == 1) {
+            return List.of(page);
+        }
+        return toDocuments(page, header, chunkTexts);
+    }
+
+    /**
+     * Groups lines into atomic blocks: a whole Markdown table, a single JSON block line,
+     * or a paragraph. Section headings are prefixed onto the next block.
+     */
+    private static List<String> toBlocks(String body) {
+        List<String> blocks = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        String pendingHeading = null;
+        BlockType currentType = null;
+
+        for (String line : body.split("\n", -1)) {
+            String trimmed = line.trim();
+            BlockType type;
+            if (trimmed.isEmpty()) {
+                type = null;
+            } else if (SECTION_HEADINGS.contains(trimmed)) {
+                if (flush(blocks, current, pendingHeading)) {
+                    pendingHeading = null;
+                }
+                pendingHeading = pendingHeading == null ? trimmed : pendingHeading + "\n" + trimmed;
+                currentType = null;
+                continue;
+            } else if (trimmed.startsWith("|")) {
+                type = BlockType.TABLE;
+            } else if (trimmed.startsWith("{") || trimmed.startsWith("[")) {
+                type = BlockType.JSON;
+            } else {
+                type = BlockType.TEXT;
+            }
+
+            // a JSON block is always its own block; tables and paragraphs end when the line kind changes
+            boolean boundary = type == null || type != currentType || type == BlockType.JSON;
+            if (boundary && !current.isEmpty()) {
+                if (flush(blocks, current, pendingHeading)) {
+                    pendingHeading = null;
+                }
+            }
+            if (type != null) {
+                if (!current.isEmpty()) {
+                    current.append('\n');
+                }
+                current.append(line);
+            }
+            currentType = type;
+        }
+        if (!flush(blocks, current, pendingHeading) && pendingHeading != null) {
+            blocks.add(pendingHeading);
+        }
+        return blocks;
+    }
+
+    private static boolean flush(List<String> blocks, StringBuilder current, String heading) {
+        if (current.isEmpty()) {
+            return false;
+        }
+        blocks.add(heading == null ? current.toString() : heading + "\n" + current);
+        current.setLength(0);
+        return true;
+    }
+
+    private static boolean isTable(String block) {
+        return block.lines().filter(l -> l.trim().startsWith("|")).count() > 1;
+    }
+
+    /**
+     * Splits a table between rows, repeating the header row and separator in every part.
+     */
+    private List<String> splitTable(String block, int budget) {
+        List<String> lines = block.lines().toList();
+        List<String> prefix = new ArrayList<>();
+        int i = 0;
+        while (i < lines.size() && !lines.get(i).trim().startsWith("|")) {
+            prefix.add(lines.get(i++));
+        }
+        List<String> header = new ArrayList<>();
+        if (i < lines.size()) {
+            header.add(lines.get(i++));
+        }
+        if (i < lines.size() && lines.get(i).trim().matches("\\|?\\s*:?-{3,}.*")) {
+            header.add(lines.get(i++));
+        }
+
+        String headerText = String.join("\n", header);
+        String firstHeader = join(String.join("\n", prefix), headerText);
+        List<String> parts = new ArrayList<>();
+        String current = null;
+        for (; i < lines.size(); i++) {
+            String row = lines.get(i);
+            String candidate = join(current != null ? current : parts.isEmpty() ? firstHeader : headerText, row);
+            if (current != null && tokenCounter.estimate(candidate) > budget) {
+                parts.add(current);
+                candidate = join(headerText, row);
+            }
+            current = candidate;
+        }
+        parts.add(current != null ? current : firstHeader);
+        return parts;
+    }
+
+    private static String join(String first, String second) {
+        return first.isEmpty() ? second : first + "\n" + second;
+    }
+
+    private List<String> pack(List<String> pieces, int budget) {
+        List<String> chunks = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        int currentTokens = 0;
+        for (String piece : pieces) {
+            int tokens = tokenCounter.estimate(piece);
+            if (!current.isEmpty() && currentTokens + tokens > budget) {
+                chunks.add(current.toString());
+                current.setLength(0);
+                currentTokens = 0;
+            }
+            if (!current.isEmpty()) {
+                current.append('\n');
+            }
+            current.append(piece);
+            currentTokens += tokens;
+        }
+        if (!current.isEmpty()) {
+            chunks.add(current.toString());
+        }
+        return chunks;
+    }
+
+    private static List<Document> toDocuments(Document page, String header, List<String> chunkTexts) {
+        Map<String, Object> pageMetadata = page.getMetadata();
+        Object contentHash = pageMetadata.get("content_hash");
+        Object pageNumber = pageMetadata.get("page_number");
+        Object documentGroup = pageMetadata.get("document_group");
+
+        List<Document> chunks = new ArrayList<>(chunkTexts.size());
+        for (int i = 0; i < chunkTexts.size(); i++) {
+            Map<String, Object> metadata = new HashMap<>(pageMetadata);
+            if (i > 0) {
+                PAGE_LEVEL_METADATA.forEach(metadata::remove);
+            }
+            metadata.put("chunk_index", i);
+            metadata.put("chunk_count", chunkTexts.size());
+
+            String id = contentHash != null
+                    ? ContentHashHelper.pointId(ContentHashHelper.scopedHash(contentHash.toString(), documentGroup),
+                            pageNumber, "chunk", i)
+                    : null;
+            String text = header.isEmpty() ? chunkTexts.get(i) : header + "\n" + chunkTexts.get(i);
+            chunks.add(id != null ? new Document(id, text, metadata) : new Document(text, metadata));
+        }
+        return chunks;
+    }
+
+    private enum BlockType {
+        TEXT,
+        TABLE,
+        JSON
+    }
+}
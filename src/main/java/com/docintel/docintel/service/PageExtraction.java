@@ -40,4 +40,8 @@ public class PageExtraction {
     public String getTextContent() {
         return textContent;
     }
+
+    public void setTextContent(String textContent) {
+        this.textContent = textContent;
+    }
 }
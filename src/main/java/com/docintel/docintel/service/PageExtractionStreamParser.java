@@ -0,0 +1,87 @@
+package com.docintel.docintel.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Incrementally parses a streamed JSON array of {@link PageExtraction} objects.
+ * Text chunks may split the JSON anywhere; each page is emitted as soon as its object closes,
+ * so only the page currently being received is ever buffered.
+ */
+public class PageExtractionStreamParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final ObjectMapper mapper;
+    private final Consumer<PageExtraction> sink;
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private int depth;
+    private TokenBuffer current;
+    private int pages;
+
+    public PageExtractionStreamParser(ObjectMapper mapper, Consumer<PageExtraction> sink) throws IOException {
+        this.mapper = mapper;
+        this.sink = sink;
+        this.parser = JSON_FACTORY.createNonBlockingByteArrayParser();
+        this.feeder = (ByteArrayFeeder) this.parser.getNonBlockingInputFeeder();
+    }
+
+    public void feed(String chunk) throws IOException {
+        byte[] bytes = chunk.getBytes(StandardCharsets.UTF_8);
+        feeder.feedInput(bytes, 0, bytes.length);
+        drain();
+    }
+
+    /**
+     * Signals end of input and returns the number of pages emitted.
+     */
+    public int finish() throws IOException {
+        feeder.endOfInput();
+        drain();
+        parser.close();
+        if (depth != 0) {
+            throw new IOException("extraction output ended inside an unterminated JSON structure");
+        }
+        return pages;
+    }
+
+    private void drain() throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            if (token.isStructStart()) {
+                depth++;
+            }
+
+            if (depth == 2 && token == JsonToken.START_OBJECT) {
+                current = new TokenBuffer(parser, null);
+            }
+            if (current != null) {
+                current.copyCurrentEvent(parser);
+            }
+
+            if (token.isStructEnd()) {
+                depth--;
+                if (depth == 1 && current != null) {
+                    emit();
+                }
+            }
+        }
+    }
+
+    private void emit() throws IOException {
+        try (JsonParser pageParser = current.asParser(mapper)) {
+            sink.accept(mapper.readValue(pageParser, PageExtraction.class));
+        }
+        current = null;
+        pages++;
+    }
+}
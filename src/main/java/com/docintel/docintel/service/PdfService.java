@@ -4,22 +4,126 @@ package com.docintel.docintel.service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 @Service
 public class PdfService {
     private static final Logger logger = LoggerFactory.getLogger(PdfService.class);
 
-    public File saveToTemp(MultipartFile file, String fileName) throws IOException {
-        Path tmpDir = Files.createTempDirectory("pdf_ingest_");
-        Path fullPath = tmpDir.resolve(fileName);
-        Files.write(fullPath, file.getBytes());
-        return fullPath.toFile();
+    private final UploadSpool uploadSpool;
+
+    public PdfService(UploadSpool uploadSpool) {
+        this.uploadSpool = uploadSpool;
+    }
+
+    /**
+     * Streams the upload into the managed spool area.
+     * The caller owns the returned handle and must close it once ingestion finishes or fails.
+     */
+    public SpooledUpload saveToTemp(MultipartFile file, String fileName) throws IOException {
+        String safeName = safeName(fileName);
+        logger.info("spooling upload {} as {}", fileName, safeName);
+        return this.uploadSpool.spool(file, safeName);
+    }
+
+    /**
+     * Spools every PDF of a bulk request into the bulk share of the spool, unpacking ZIP archives entry by
+     * entry straight into it. Archive entries are named by their path within the archive.
+     * Anything that is neither a PDF nor an archive is reported as skipped. If spooling fails part way,
+     * the files spooled so far are released before the exception propagates.
+     */
+    public SpooledFiles saveAllToTemp(List<MultipartFile> files) throws IOException {
+        List<SpooledUpload> uploads = new ArrayList<>();
+        List<IngestionBatch.SkippedFile> skipped = new ArrayList<>();
+        try {
+            for (MultipartFile file : files) {
+                String fileName = Optional.ofNullable(file.getOriginalFilename()).orElse("uploaded.pdf");
+                if (isZip(fileName, file.getContentType())) {
+                    saveArchiveToTemp(file, uploads, skipped);
+                } else if (isPdf(fileName, file.getContentType())) {
+                    String safeName = safeName(fileName);
+                    try (InputStream in = file.getInputStream()) {
+                        uploads.add(this.uploadSpool.spool(in, file.getSize(), safeName, safeName, true));
+                    }
+                } else {
+                    skipped.add(new IngestionBatch.SkippedFile(fileName, "not a PDF or ZIP archive"));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            uploads.forEach(SpooledUpload::close);
+            throw e;
+        }
+        logger.info("spooled {} PDFs from {} uploaded files ({} skipped)", uploads.size(), files.size(),
+                skipped.size());
+        return new SpooledFiles(uploads, skipped);
+    }
+
+    private void saveArchiveToTemp(MultipartFile archive, List<SpooledUpload> uploads,
+                                   List<IngestionBatch.SkippedFile> skipped) throws IOException {
+        try (InputStream in = archive.getInputStream(); ZipInputStream zip = new ZipInputStream(in)) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                String entryName = entry.getName();
+                if (entry.isDirectory() || entryName.startsWith("__MACOSX/")) {
+                    continue;
+                }
+                if (!isPdf(entryName, null)) {
+                    skipped.add(new IngestionBatch.SkippedFile(entryName, "archive entry is not a PDF"));
+                    continue;
+                }
+                String safeName = safeName(entryName);
+                String entryPath = entryPath(entryName);
+                logger.info("spooling {} from archive {} as {}", entryPath, archive.getOriginalFilename(), safeName);
+                uploads.add(this.uploadSpool.spool(zip, entry.getSize(), safeName, entryPath, true));
+            }
+        }
+    }
+
+    private static String safeName(String fileName) {
+        // the original name ends up in document metadata, but must never escape the spool directory
+        String safeName = StringUtils.getFilename(StringUtils.cleanPath(fileName).replace('\\', '/'));
+        if (!StringUtils.hasText(safeName) || "..".equals(safeName)) {
+            safeName = "uploaded.pdf";
+        }
+        return safeName;
+    }
+
+    /**
+     * The entry's path within the archive, normalized and without leading or parent segments, so two entries
+     * only share a name when they share a folder.
+     */
+    private static String entryPath(String entryName) {
+        String path = StringUtils.cleanPath(entryName.replace('\\', '/'));
+        while (path.startsWith("/") || path.startsWith("../")) {
+            path = path.substring(path.indexOf('/') + 1);
+        }
+        return StringUtils.hasText(path) && !"..".equals(path) ? path : safeName(entryName);
+    }
+
+    private static boolean isZip(String fileName, String contentType) {
+        return fileName.toLowerCase(Locale.ROOT).endsWith(".zip")
+                || "application/zip".equals(contentType)
+                || "application/x-zip-compressed".equals(contentType);
     }
-}
 
+    private static boolean isPdf(String fileName, String contentType) {
+        return fileName.toLowerCase(Locale.ROOT).endsWith(".pdf") || "application/pdf".equals(contentType);
+    }
+
+    /**
+     * PDFs spooled from a bulk request, plus the files that were left out.
+     * The caller owns every upload and must close each one.
+     */
+    public record SpooledFiles(List<SpooledUpload> uploads, List<IngestionBatch.SkippedFile> skipped) {
+    }
+}
@@ -0,0 +1,108 @@
+package com.docintel.docintel.service;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Splits a PDF into page shards that can be extracted independently.
+ * Each shard is a standalone PDF holding at most {@code pagesPerShard} pages, encoded only when it is rendered.
+ */
+@Component
+public class PdfShardSplitter {
+    private static final Logger logger = LoggerFactory.getLogger(PdfShardSplitter.class);
+
+    public int countPages(File pdfFile) throws IOException {
+        try (PDDocument document = Loader.loadPDF(pdfFile)) {
+            return document.getNumberOfPages();
+        }
+    }
+
+    public List<List<Integer>> plan(File pdfFile, int pagesPerShard) throws IOException {
+        return plan(pdfFile, null, pagesPerShard);
+    }
+
+    /**
+     * Groups the given pages, in the given order, into shards without encoding them, so a caller only
+     * holds the bytes of the shards it is currently extracting.
+     *
+     * @param pages 1-based page numbers of the source PDF, or null for every page
+     * @return the source page numbers of each shard, to be encoded by {@link #render}
+     */
+    public List<List<Integer>> plan(File pdfFile, List<Integer> pages, int pagesPerShard) throws IOException {
+        Assert.isTrue(pagesPerShard > 0, "pagesPerShard must be greater than 0");
+
+        List<Integer> selected = pages != null
+                ? pages
+                : IntStream.rangeClosed(1, countPages(pdfFile)).boxed().toList();
+        List<List<Integer>> shards = new ArrayList<>();
+        for (int from = 0; from < selected.size(); from += pagesPerShard) {
+            shards.add(List.copyOf(selected.subList(from, Math.min(from + pagesPerShard, selected.size()))));
+        }
+        logger.info("planned {} shards for {} pages of {}", shards.size(), selected.size(), pdfFile.getName());
+        return shards;
+    }
+
+    /**
+     * Encodes the given pages of the PDF, in the given order, as a standalone document.
+     */
+    public PdfShard render(File pdfFile, List<Integer> pages) throws IOException {
+        try (PDDocument document = Loader.loadPDF(pdfFile); PDDocument part = new PDDocument()) {
+            for (int page : pages) {
+                part.importPage(document.getPage(page - 1));
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            part.save(out);
+            return new PdfShard(List.copyOf(pages), out.toByteArray());
+        }
+    }
+
+    /**
+     * Pages of the source PDF, re-encoded as a standalone document.
+     *
+     * @param pages 1-based page numbers in the source PDF, in shard order
+     * @param bytes the shard encoded as a PDF
+     */
+    public record PdfShard(List<Integer> pages, byte[] bytes) {
+
+        public int firstPage() {
+            return pages.getFirst();
+        }
+
+        public int lastPage() {
+            return pages.getLast();
+        }
+
+        public int pageCount() {
+            return pages.size();
+        }
+
+        /**
+         * Maps a 1-based page number within the shard to its page number in the source PDF.
+         */
+        public int sourcePage(int shardPage) {
+            return pages.get(shardPage - 1);
+        }
+
+        /**
+         * Re-bases a page the model numbered relative to the shard onto the source PDF. Page numbers outside
+         * the shard are left as they are.
+         */
+        public PageExtraction rebase(PageExtraction page) {
+            if (page.pageNumber >= 1 && page.pageNumber <= pageCount()) {
+                page.pageNumber = sourcePage(page.pageNumber);
+            }
+            return page;
+        }
+    }
+}
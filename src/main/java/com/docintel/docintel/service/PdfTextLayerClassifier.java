@@ -0,0 +1,157 @@
+package com.docintel.docintel.service;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.contentstream.PDContentStream;
+import org.apache.pdfbox.contentstream.operator.Operator;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdfparser.PDFStreamParser;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.graphics.PDXObject;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reads the embedded text layer of a PDF and sorts its pages into text-only pages, which can be
+ * indexed straight from that layer, and rich pages that need multimodal extraction.
+ * A page is rich when it draws images, draws enough rules or shapes to suggest a table or chart,
+ * or has too little readable text to be anything but scanned.
+ */
+@Component
+public class PdfTextLayerClassifier {
+    private static final Logger logger = LoggerFactory.getLogger(PdfTextLayerClassifier.class);
+
+    /**
+     * Path operators that draw lines, rectangles and curves: table rules, cell fills and chart shapes.
+     */
+    private static final Set<String> SHAPE_OPERATORS = Set.of("l", "re", "c", "v", "y");
+
+    private final boolean enabled;
+    private final int minChars;
+    private final int maxShapeOperators;
+
+    public PdfTextLayerClassifier(
+            @Value("${docintel.ingest.text-layer.enabled:true}") boolean enabled,
+            @Value("${docintel.ingest.text-layer.min-chars:200}") int minChars,
+            @Value("${docintel.ingest.text-layer.max-shape-operators:10}") int maxShapeOperators) {
+        this.enabled = enabled;
+        this.minChars = minChars;
+        this.maxShapeOperators = maxShapeOperators;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public PageClassification classify(File pdfFile) throws IOException {
+        List<PageExtraction> textOnlyPages = new ArrayList<>();
+        List<Integer> richPages = new ArrayList<>();
+
+        try (PDDocument document = Loader.loadPDF(pdfFile)) {
+            PDFTextStripper stripper = new PDFTextStripper();
+            for (int pageNumber = 1; pageNumber <= document.getNumberOfPages(); pageNumber++) {
+                PDPage page = document.getPage(pageNumber - 1);
+                stripper.setStartPage(pageNumber);
+                stripper.setEndPage(pageNumber);
+                String text = stripper.getText(document).strip();
+
+                if (isTextOnly(page, text)) {
+                    PageExtraction extraction = new PageExtraction();
+                    extraction.pageNumber = pageNumber;
+                    extraction.setTextContent(text);
+                    textOnlyPages.add(extraction);
+                } else {
+                    richPages.add(pageNumber);
+                }
+            }
+        }
+        logger.info("text layer of {}: {} text-only pages, {} rich pages", pdfFile.getName(),
+                textOnlyPages.size(), richPages.size());
+        return new PageClassification(textOnlyPages, richPages);
+    }
+
+    private boolean isTextOnly(PDPage page, String text) throws IOException {
+        return readableChars(text) >= minChars
+                && !hasImages(page.getResources(), 0)
+                && countShapeOperators(page, 0) <= maxShapeOperators;
+    }
+
+    /**
+     * Counts letters and digits only, so a broken font encoding that yields symbols does not pass as text.
+     */
+    private static int readableChars(String text) {
+        return (int) text.codePoints().filter(Character::isLetterOrDigit).count();
+    }
+
+    private static boolean hasImages(PDResources resources, int depth) throws IOException {
+        if (resources == null || depth > 4) {
+            return false;
+        }
+        for (COSName name : resources.getXObjectNames()) {
+            PDXObject xObject = resources.getXObject(name);
+            if (xObject instanceof PDImageXObject) {
+                return true;
+            }
+            if (xObject instanceof PDFormXObject form && hasImages(form.getResources(), depth + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Counts the shape operators of a content stream and of the forms it draws, which is where embedded tables
+     * and charts usually are, down to the same depth {@link #hasImages} looks.
+     */
+    private static int countShapeOperators(PDContentStream stream, int depth) throws IOException {
+        if (depth > 4) {
+            return 0;
+        }
+        PDResources resources = stream.getResources();
+        int shapes = 0;
+        COSName lastName = null;
+        PDFStreamParser parser = new PDFStreamParser(stream);
+        Object token;
+        while ((token = parser.parseNextToken()) != null) {
+            if (token instanceof COSName name) {
+                lastName = name;
+            } else if (token instanceof Operator operator) {
+                String name = operator.getName();
+                if ("BI".equals(name)) {
+                    // an inline image always needs the multimodal model
+                    return Integer.MAX_VALUE;
+                }
+                if (SHAPE_OPERATORS.contains(name)) {
+                    shapes++;
+                } else if ("Do".equals(name) && lastName != null && resources != null
+                        && resources.getXObject(lastName) instanceof PDFormXObject form) {
+                    int formShapes = countShapeOperators(form, depth + 1);
+                    if (formShapes == Integer.MAX_VALUE) {
+                        return formShapes;
+                    }
+                    shapes += formShapes;
+                }
+            }
+        }
+        return shapes;
+    }
+
+    /**
+     * @param textOnlyPages pages built from the text layer, ready to index
+     * @param richPages     1-based numbers of the pages that still need multimodal extraction
+     */
+    public record PageClassification(List<PageExtraction> textOnlyPages, List<Integer> richPages) {
+    }
+}
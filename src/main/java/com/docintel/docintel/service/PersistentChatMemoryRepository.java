@@ -0,0 +1,449 @@
+package com.docintel.docintel.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ChatMemoryRepository} that keeps each conversation in an append-only JSON-lines file on local disk,
+ * holding only recently used conversations in memory.
+ * <p>
+ * The in-memory cache is bounded by conversation count and by the estimated heap size of its messages;
+ * the least recently used conversations leave it first and are loaded back from disk when asked for.
+ * Messages added to the end of a conversation are appended to its file. When the window drops its oldest
+ * messages, a trim record saying how many is appended with them, and the file is only rewritten, atomically,
+ * once it holds twice as many records as the conversation still has messages. The conversation's rolling
+ * {@link ConversationSummarizer summary} is appended to the same file whenever it changes, so it survives
+ * restarts and leaves with the conversation. Conversations not written to for longer than
+ * {@code time-to-live} are deleted, from memory on access and from disk by a periodic sweep.
+ * <p>
+ * Disk access is serialised per conversation file, through a fixed set of lock stripes, so conversations
+ * do not wait for each other's I/O; only the in-memory cache is shared.
+ */
+@Component
+public class PersistentChatMemoryRepository implements ChatMemoryRepository {
+    private static final Logger logger = LoggerFactory.getLogger(PersistentChatMemoryRepository.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String SUFFIX = ".jsonl";
+    private static final String TRIM_KEY = "trim";
+    // only summary records carry a watermark
+    private static final String SUMMARY_KEY = "watermark";
+    // rough per-message heap overhead on top of the UTF-16 text
+    private static final long MESSAGE_OVERHEAD_BYTES = 96;
+    private static final int LOCK_STRIPES = 64;
+
+    private final Path root;
+    private final int maxConversations;
+    private final long maxBytes;
+    private final Duration timeToLive;
+    private final ScheduledExecutorService sweeper;
+    private final Object[] fileLocks = new Object[LOCK_STRIPES];
+
+    /**
+     * Access-ordered, so iteration starts at the least recently used conversation. Guarded by itself.
+     */
+    private final LinkedHashMap<String, Conversation> conversations = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes;
+
+    private final Counter loads;
+    private final Counter evictions;
+    private final Counter expirations;
+
+    public PersistentChatMemoryRepository(
+            MeterRegistry meterRegistry,
+            @Value("${docintel.chat.memory.directory:data/chat-memory}") Path root,
+            @Value("${docintel.chat.memory.max-conversations:1000}") int maxConversations,
+            @Value("${docintel.chat.memory.max-memory:64MB}") DataSize maxMemory,
+            @Value("${docintel.chat.memory.time-to-live:7d}") Duration timeToLive,
+            @Value("${docintel.chat.memory.sweep-interval:10m}") Duration sweepInterval) throws IOException {
+        Assert.isTrue(maxConversations > 0, "max-conversations must be greater than 0");
+        Assert.isTrue(maxMemory.toBytes() > 0, "max-memory must be greater than 0");
+        this.root = root;
+        this.maxConversations = maxConversations;
+        this.maxBytes = maxMemory.toBytes();
+        this.timeToLive = timeToLive;
+        Files.createDirectories(root);
+        Arrays.setAll(fileLocks, i -> new Object());
+
+        this.loads = Counter.builder("docintel.chat.memory.loads").register(meterRegistry);
+        this.evictions = Counter.builder("docintel.chat.memory.evictions").register(meterRegistry);
+        this.expirations = Counter.builder("docintel.chat.memory.expirations").register(meterRegistry);
+        Gauge.builder("docintel.chat.memory.cached_conversations", this, PersistentChatMemoryRepository::cachedConversations)
+                .register(meterRegistry);
+        Gauge.builder("docintel.chat.memory.cached_bytes", this, PersistentChatMemoryRepository::cachedBytes)
+                .register(meterRegistry);
+
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "chat-memory-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweepExpiredFiles, 0, sweepInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public List<String> findConversationIds() {
+        List<String> ids = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(root, "*" + SUFFIX)) {
+            for (Path file : files) {
+                try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                    String header = reader.readLine();
+                    if (header != null) {
+                        ids.add(MAPPER.readValue(header, Header.class).conversationId());
+                    }
+                } catch (IOException e) {
+                    logger.warn("unreadable chat memory file {}, skipping", file, e);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return ids;
+    }
+
+    @Override
+    public List<Message> findByConversationId(String conversationId) {
+        Path file = file(conversationId);
+        synchronized (lock(file)) {
+            Conversation conversation = load(conversationId, file);
+            return conversation == null ? List.of() : conversation.messages;
+        }
+    }
+
+    @Override
+    public void saveAll(String conversationId, List<Message> messages) {
+        if (messages.isEmpty()) {
+            deleteByConversationId(conversationId);
+            return;
+        }
+        List<StoredMessage> stored = messages.stream().map(StoredMessage::of).toList();
+        Path file = file(conversationId);
+        synchronized (lock(file)) {
+            Conversation current = load(conversationId, file);
+            ConversationSummarizer.Summary summary = current != null ? current.summary : null;
+            Conversation updated;
+            try {
+                int dropped = current != null ? dropped(current.stored, stored) : -1;
+                int added = dropped >= 0 ? stored.size() - (current.stored.size() - dropped) : stored.size();
+                if (dropped >= 0 && current.fileRecords + added <= 2 * stored.size()) {
+                    append(file, dropped, stored.subList(stored.size() - added, stored.size()));
+                    updated = new Conversation(stored, summary, current.fileRecords + added, Instant.now());
+                } else {
+                    updated = rewrite(conversationId, file, stored, summary);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("could not persist chat memory of " + conversationId, e);
+            }
+            cache(conversationId, updated);
+        }
+    }
+
+    /**
+     * @return the conversation's summary, or null when it has none or no longer exists
+     */
+    public ConversationSummarizer.Summary findSummary(String conversationId) {
+        Path file = file(conversationId);
+        synchronized (lock(file)) {
+            Conversation conversation = load(conversationId, file);
+            return conversation == null ? null : conversation.summary;
+        }
+    }
+
+    /**
+     * Stores the summary with the conversation, unless the conversation has been deleted meanwhile.
+     */
+    public void saveSummary(String conversationId, ConversationSummarizer.Summary summary) {
+        Path file = file(conversationId);
+        synchronized (lock(file)) {
+            Conversation current = load(conversationId, file);
+            if (current == null) {
+                return;
+            }
+            Conversation updated;
+            try {
+                if (current.fileRecords + 1 <= 2 * current.stored.size()) {
+                    appendLine(file, MAPPER.writeValueAsString(summary));
+                    updated = new Conversation(current.stored, summary, current.fileRecords + 1, current.lastWrite);
+                } else {
+                    updated = rewrite(conversationId, file, current.stored, summary);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("could not persist the summary of " + conversationId, e);
+            }
+            cache(conversationId, updated);
+        }
+    }
+
+    @Override
+    public void deleteByConversationId(String conversationId) {
+        Path file = file(conversationId);
+        synchronized (lock(file)) {
+            uncache(conversationId);
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException("could not delete chat memory of " + conversationId, e);
+            }
+        }
+    }
+
+    int cachedConversations() {
+        synchronized (conversations) {
+            return conversations.size();
+        }
+    }
+
+    long cachedBytes() {
+        synchronized (conversations) {
+            return cachedBytes;
+        }
+    }
+
+    private Object lock(Path file) {
+        return fileLocks[Math.floorMod(file.getFileName().hashCode(), LOCK_STRIPES)];
+    }
+
+    /** Called with the conversation's file lock held. */
+    private Conversation load(String conversationId, Path file) {
+        synchronized (conversations) {
+            Conversation cached = conversations.get(conversationId);
+            if (cached != null && !isExpired(cached.lastWrite)) {
+                return cached;
+            }
+            // an expired conversation's file is as old, so it is deleted below
+            uncache(conversationId);
+        }
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            FileTime lastWrite = Files.getLastModifiedTime(file);
+            if (isExpired(lastWrite.toInstant())) {
+                Files.deleteIfExists(file);
+                expirations.increment();
+                return null;
+            }
+            List<StoredMessage> stored = new ArrayList<>();
+            ConversationSummarizer.Summary summary = null;
+            int fileRecords = 0;
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                reader.readLine();
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    JsonNode record = MAPPER.readTree(line);
+                    if (record.has(TRIM_KEY)) {
+                        stored.subList(0, Math.min(record.get(TRIM_KEY).asInt(), stored.size())).clear();
+                        continue;
+                    }
+                    if (record.has(SUMMARY_KEY)) {
+                        summary = MAPPER.treeToValue(record, ConversationSummarizer.Summary.class);
+                    } else {
+                        stored.add(MAPPER.treeToValue(record, StoredMessage.class));
+                    }
+                    fileRecords++;
+                }
+            }
+            loads.increment();
+            Conversation conversation = new Conversation(stored, summary, fileRecords, lastWrite.toInstant());
+            cache(conversationId, conversation);
+            return conversation;
+        } catch (IOException e) {
+            logger.warn("unreadable chat memory of {}, starting it empty", conversationId, e);
+            return null;
+        }
+    }
+
+    private void cache(String conversationId, Conversation conversation) {
+        synchronized (conversations) {
+            uncache(conversationId);
+            conversations.put(conversationId, conversation);
+            cachedBytes += conversation.bytes;
+            Iterator<Map.Entry<String, Conversation>> eldest = conversations.entrySet().iterator();
+            while ((conversations.size() > maxConversations || cachedBytes > maxBytes) && conversations.size() > 1) {
+                cachedBytes -= eldest.next().getValue().bytes;
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    private void uncache(String conversationId) {
+        synchronized (conversations) {
+            Conversation removed = conversations.remove(conversationId);
+            if (removed != null) {
+                cachedBytes -= removed.bytes;
+            }
+        }
+    }
+
+    private void sweepExpiredFiles() {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(root, "*" + SUFFIX)) {
+            for (Path file : files) {
+                synchronized (lock(file)) {
+                    if (Files.isRegularFile(file) && isExpired(Files.getLastModifiedTime(file).toInstant())) {
+                        Files.deleteIfExists(file);
+                        expirations.increment();
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("chat memory sweep of {} failed", root, e);
+        }
+    }
+
+    private boolean isExpired(Instant lastWrite) {
+        return lastWrite.isBefore(Instant.now().minus(timeToLive));
+    }
+
+    /**
+     * @return how many leading messages of {@code current} the window dropped, when the rest of it starts
+     * {@code messages}; otherwise -1
+     */
+    private static int dropped(List<StoredMessage> current, List<StoredMessage> messages) {
+        for (int dropped = 0; dropped < current.size(); dropped++) {
+            List<StoredMessage> kept = current.subList(dropped, current.size());
+            if (kept.size() <= messages.size() && messages.subList(0, kept.size()).equals(kept)) {
+                return dropped;
+            }
+        }
+        return -1;
+    }
+
+    private void append(Path file, int dropped, List<StoredMessage> added) throws IOException {
+        if (dropped == 0 && added.isEmpty()) {
+            return;
+        }
+        List<String> lines = new ArrayList<>();
+        if (dropped > 0) {
+            lines.add(MAPPER.writeValueAsString(Map.of(TRIM_KEY, dropped)));
+        }
+        for (StoredMessage message : added) {
+            lines.add(MAPPER.writeValueAsString(message));
+        }
+        appendLine(file, String.join(System.lineSeparator(), lines));
+    }
+
+    private static void appendLine(Path file, String line) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            writer.write(line);
+            writer.newLine();
+        }
+    }
+
+    private Conversation rewrite(String conversationId, Path file, List<StoredMessage> stored,
+                                 ConversationSummarizer.Summary summary) throws IOException {
+        Path tmp = Files.createTempFile(root, "conversation-", ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            writer.write(MAPPER.writeValueAsString(new Header(conversationId)));
+            writer.newLine();
+            if (summary != null) {
+                writer.write(MAPPER.writeValueAsString(summary));
+                writer.newLine();
+            }
+            for (StoredMessage message : stored) {
+                writer.write(MAPPER.writeValueAsString(message));
+                writer.newLine();
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return new Conversation(stored, summary, stored.size() + (summary != null ? 1 : 0), Instant.now());
+    }
+
+    private Path file(String conversationId) {
+        // conversation ids come from clients, so they are hashed rather than used as paths
+        return root.resolve(ContentHashHelper.sha256(conversationId) + SUFFIX);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        sweeper.shutdownNow();
+    }
+
+    private static final class Conversation {
+        private final List<StoredMessage> stored;
+        private final List<Message> messages;
+        private final ConversationSummarizer.Summary summary;
+        private final long bytes;
+        // message and summary lines in the file, including those superseded since it was last rewritten
+        private final int fileRecords;
+        private final Instant lastWrite;
+
+        Conversation(List<StoredMessage> stored, ConversationSummarizer.Summary summary, int fileRecords,
+                     Instant lastWrite) {
+            this.stored = List.copyOf(stored);
+            this.summary = summary;
+            this.fileRecords = fileRecords;
+            this.lastWrite = lastWrite;
+            this.messages = stored.stream().map(StoredMessage::toMessage).toList();
+            this.bytes = stored.stream()
+                    .mapToLong(m -> MESSAGE_OVERHEAD_BYTES + 2L * (m.text() != null ? m.text().length() : 0))
+                    .sum();
+        }
+    }
+
+    private record Header(@JsonProperty("conversation_id") String conversationId) {
+    }
+
+    /**
+     * The persisted form of a message: its type and text. Message metadata such as token usage is not kept.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private record StoredMessage(@JsonProperty("type") MessageType type, @JsonProperty("text") String text) {
+
+        static StoredMessage of(Message message) {
+            return new StoredMessage(message.getMessageType(), message.getText());
+        }
+
+        Message toMessage() {
+            String content = text != null ? text : "";
+            return switch (type) {
+                case USER -> new UserMessage(content);
+                case SYSTEM -> new SystemMessage(content);
+                default -> new AssistantMessage(content);
+            };
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.docintel.docintel.service;
 
 import com.docintel.docintel.evaluator.GroundedRelevantEvaluator;
+import com.docintel.docintel.evaluator.GroundingPreCheck;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,6 +15,7 @@ import org.springframework.ai.chat.model.Generation;
 import org.springframework.ai.document.Document;
 import org.springframework.ai.evaluation.EvaluationRequest;
 import org.springframework.ai.evaluation.EvaluationResponse;
+import org.springframework.ai.evaluation.Evaluator;
 import org.springframework.ai.google.genai.GoogleGenAiChatModel;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -33,6 +35,8 @@ public class ResponseHelper {
     @Autowired
     @Qualifier("openAiChatClientBuilder")
     private ChatClient.Builder openAiChatClientBuilder;
+    @Autowired
+    private GroundingPreCheck groundingPreCheck;
 
     private static void logContextTrace(Object retrievedDocs) {
         try {
@@ -69,6 +73,19 @@ public class ResponseHelper {
         return (output.getText() != null) ? output.getText() : "No response";
     }
 
+    /**
+     * Text of one streamed chunk.
+     *
+     * @return the chunk text, or null when the chunk carries none (e.g. a metadata-only final chunk)
+     */
+    protected String getChunkText(ChatResponse chatResponse) {
+        if (chatResponse == null || chatResponse.getResult() == null) {
+            return null;
+        }
+        String text = chatResponse.getResult().getOutput().getText();
+        return (text == null || text.isEmpty()) ? null : text;
+    }
+
     /**
      * Implements RelevancyEvaluator
      */
@@ -93,8 +110,11 @@ public class ResponseHelper {
         return evaluationResponse;
     }
 
-    protected RelevancyEvaluator getRelevancyEvaluator(){
-        return new RelevancyEvaluator(openAiChatClientBuilder);
+    /**
+     * RelevancyEvaluator behind the local grounding pre-check, which settles clear-cut answers itself.
+     */
+    protected Evaluator getRelevancyEvaluator(){
+        return groundingPreCheck.gate(new RelevancyEvaluator(openAiChatClientBuilder));
     }
 
     /**
@@ -108,18 +128,28 @@ public class ResponseHelper {
         if (chatResponse != null) {
             List<Document> retrievedDocs = chatResponse.getMetadata()
                     .get(QuestionAnswerAdvisor.RETRIEVED_DOCUMENTS);
+            evaluationResponse = getCustomEvaluation(
+                    message, retrievedDocs, chatResponse.getResult().getOutput().getText());
+        }
+        return evaluationResponse;
+    }
 
-            logContextTrace(retrievedDocs);
+    /**
+     * Implements GroundedRelevantEvaluator for an answer assembled outside a single ChatResponse,
+     * such as a streamed one.
+     */
+    protected EvaluationResponse getCustomEvaluation(
+            final String message,
+            final List<Document> retrievedDocs,
+            final String answer) {
+        logContextTrace(retrievedDocs);
 
-            EvaluationRequest evaluationRequest = new EvaluationRequest(
-                    message, retrievedDocs, chatResponse.getResult().getOutput().getText()
-            );
+        EvaluationRequest evaluationRequest = new EvaluationRequest(message, retrievedDocs, answer);
 
-            GroundedRelevantEvaluator evaluator = new GroundedRelevantEvaluator
-                    (openAiChatClientBuilder);
-            evaluationResponse = evaluator.evaluate(evaluationRequest);
-            logger.info("evaluation data: {}", evaluationResponse);
-        }
+        Evaluator evaluator = groundingPreCheck.gate(new GroundedRelevantEvaluator
+                (openAiChatClientBuilder));
+        EvaluationResponse evaluationResponse = evaluator.evaluate(evaluationRequest);
+        logger.info("evaluation data: {}", evaluationResponse);
         return evaluationResponse;
     }
 }
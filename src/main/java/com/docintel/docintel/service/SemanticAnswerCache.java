@@ -0,0 +1,273 @@
+package com.docintel.docintel.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.evaluation.EvaluationResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+
+/**
+ * Answers repeated questions without retrieval, generation or judge calls.
+ * Questions are only matched against ones asked of the same {@link DocumentScope}, since the same wording asked
+ * of other documents has another answer. A question matching a cached one after whitespace and case normalisation is served with no model call at all;
+ * otherwise the question is embedded and compared by cosine similarity against every cached question. That scan
+ * runs over an immutable snapshot of the cached embeddings outside the lock, so concurrent lookups do not queue
+ * behind it; the embedding is the one retrieval asks for next, which the query embedding cache then serves.
+ * Entries are bounded in number, evicted least-recently-used or once expired, and all dropped as soon as the
+ * {@link VectorStoreVersion} moves, so a new ingest never serves answers built from the old contents.
+ */
+@Component
+public class SemanticAnswerCache {
+    private static final Logger logger = LoggerFactory.getLogger(SemanticAnswerCache.class);
+
+    private final EmbeddingModel embeddingModel;
+    private final VectorStoreVersion vectorStoreVersion;
+    private final boolean enabled;
+    private final int maxEntries;
+    private final double similarityThreshold;
+    private final Duration timeToLive;
+
+    /**
+     * Access-ordered, so iteration starts at the least recently used entry.
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long entriesVersion;
+    /** Replaced whenever {@link #entries} gains or loses an entry. */
+    private volatile Snapshot snapshot = new Snapshot(0, new Candidate[0]);
+
+    private final Counter exactHits;
+    private final Counter semanticHits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public SemanticAnswerCache(
+            EmbeddingModel embeddingModel,
+            VectorStoreVersion vectorStoreVersion,
+            MeterRegistry meterRegistry,
+            @Value("${docintel.chat.answer-cache.enabled:true}") boolean enabled,
+            @Value("${docintel.chat.answer-cache.max-entries:1000}") int maxEntries,
+            @Value("${docintel.chat.answer-cache.similarity-threshold:0.95}") double similarityThreshold,
+            @Value("${docintel.chat.answer-cache.time-to-live:24h}") Duration timeToLive) {
+        Assert.isTrue(maxEntries > 0, "max-entries must be greater than 0");
+        this.embeddingModel = embeddingModel;
+        this.vectorStoreVersion = vectorStoreVersion;
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.similarityThreshold = similarityThreshold;
+        this.timeToLive = timeToLive;
+
+        this.exactHits = lookups(meterRegistry, "exact_hit");
+        this.semanticHits = lookups(meterRegistry, "semantic_hit");
+        this.misses = lookups(meterRegistry, "miss");
+        this.evictions = Counter.builder("docintel.chat.answer_cache.evictions").register(meterRegistry);
+        Gauge.builder("docintel.chat.answer_cache.size", this, SemanticAnswerCache::size).register(meterRegistry);
+    }
+
+    private static Counter lookups(MeterRegistry registry, String result) {
+        return Counter.builder("docintel.chat.answer_cache.lookups").tag("result", result).register(registry);
+    }
+
+    /**
+     * Looks an unscoped question up.
+     */
+    public Lookup lookup(String question) {
+        return lookup(question, DocumentScope.ALL);
+    }
+
+    /**
+     * Looks the question up among those asked of the same scope; on a miss the returned lookup carries the
+     * question's embedding for {@link #put}.
+     */
+    public Lookup lookup(String question, DocumentScope scope) {
+        long version = vectorStoreVersion.current();
+        if (!enabled) {
+            return new Lookup(null, null, version, null);
+        }
+        String scopeKey = scopeKey(scope);
+        String key = scopeKey + normalise(question);
+
+        synchronized (this) {
+            invalidateIfStale(version);
+            Entry exact = entries.get(key);
+            if (exact != null && !exact.isExpired(timeToLive)) {
+                exactHits.increment();
+                return new Lookup(key, exact.embedding(), version, exact.answer());
+            }
+        }
+
+        // embed outside the lock, it is a remote call
+        float[] embedding;
+        try {
+            embedding = normalise(embeddingModel.embed(question));
+        } catch (RuntimeException e) {
+            logger.warn("could not embed question for the answer cache, treating as a miss", e);
+            misses.increment();
+            return new Lookup(key, null, version, null);
+        }
+
+        String bestKey = null;
+        double bestSimilarity = similarityThreshold;
+        Snapshot candidates = this.snapshot;
+        if (candidates.version() == version) {
+            for (Candidate candidate : candidates.candidates()) {
+                if (candidate.isExpired(timeToLive) || !candidate.key().startsWith(scopeKey)) {
+                    continue;
+                }
+                double similarity = dot(embedding, candidate.embedding());
+                if (similarity >= bestSimilarity) {
+                    bestSimilarity = similarity;
+                    bestKey = candidate.key();
+                }
+            }
+        }
+        if (bestKey != null) {
+            synchronized (this) {
+                invalidateIfStale(version);
+                // the entry may have been evicted since the snapshot was taken
+                Entry similar = entries.get(bestKey);
+                if (similar != null && !similar.isExpired(timeToLive)) {
+                    semanticHits.increment();
+                    logger.info("answer cache hit for similar question (similarity {})", bestSimilarity);
+                    return new Lookup(key, embedding, version, similar.answer());
+                }
+            }
+        }
+        misses.increment();
+        return new Lookup(key, embedding, version, null);
+    }
+
+    /**
+     * A miss that is never stored, for questions whose answer depends on more than their wording.
+     */
+    public Lookup bypass() {
+        return new Lookup(null, null, vectorStoreVersion.current(), null);
+    }
+
+    /**
+     * Caches the answer for a missed lookup, unless the vector store changed while it was being produced.
+     */
+    public synchronized void put(Lookup lookup, CachedAnswer answer) {
+        if (!enabled || lookup.key() == null || lookup.version() != vectorStoreVersion.current()) {
+            return;
+        }
+        invalidateIfStale(lookup.version());
+        entries.put(lookup.key(), new Entry(lookup.embedding(), answer, Instant.now()));
+        evictOverflow();
+        takeSnapshot();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void invalidateIfStale(long version) {
+        if (version != entriesVersion) {
+            if (!entries.isEmpty()) {
+                logger.info("vector store changed, dropping {} cached answers", entries.size());
+                evictions.increment(entries.size());
+                entries.clear();
+            }
+            entriesVersion = version;
+            takeSnapshot();
+        }
+    }
+
+    private void takeSnapshot() {
+        snapshot = new Snapshot(entriesVersion, entries.entrySet().stream()
+                .filter(e -> e.getValue().embedding() != null)
+                .map(e -> new Candidate(e.getKey(), e.getValue().embedding(), e.getValue().storedAt()))
+                .toArray(Candidate[]::new));
+    }
+
+    private void evictOverflow() {
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (eldest.hasNext()) {
+            Entry entry = eldest.next();
+            if (entries.size() <= maxEntries && !entry.isExpired(timeToLive)) {
+                break;
+            }
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Prefixes the keys of one scope's questions. It ends in a newline, which a normalised question cannot
+     * contain, so one scope's prefix never runs into another's question.
+     */
+    private static String scopeKey(DocumentScope scope) {
+        if (scope.isEmpty()) {
+            return "\n";
+        }
+        String group = scope.documentGroup() != null ? scope.documentGroup() : "";
+        return group + "\u0000" + String.join("\u0000", scope.fileNames().stream().sorted().toList()) + "\n";
+    }
+
+    private static String normalise(String question) {
+        return question.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static float[] normalise(float[] vector) {
+        double norm = Math.sqrt(dot(vector, vector));
+        if (norm == 0) {
+            return vector;
+        }
+        float[] unit = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            unit[i] = (float) (vector[i] / norm);
+        }
+        return unit;
+    }
+
+    private static double dot(float[] a, float[] b) {
+        if (a.length != b.length) {
+            return 0;
+        }
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Result of {@link #lookup}; {@code answer} is null on a miss.
+     */
+    public record Lookup(String key, float[] embedding, long version, CachedAnswer answer) {
+
+        public boolean isHit() {
+            return answer != null;
+        }
+    }
+
+    public record CachedAnswer(String text, EvaluationResponse evaluation) {
+    }
+
+    private record Entry(float[] embedding, CachedAnswer answer, Instant storedAt) {
+
+        boolean isExpired(Duration timeToLive) {
+            return storedAt.plus(timeToLive).isBefore(Instant.now());
+        }
+    }
+
+    private record Candidate(String key, float[] embedding, Instant storedAt) {
+
+        boolean isExpired(Duration timeToLive) {
+            return storedAt.plus(timeToLive).isBefore(Instant.now());
+        }
+    }
+
+    private record Snapshot(long version, Candidate[] candidates) {
+    }
+}
@@ -0,0 +1,17 @@
+package com.docintel.docintel.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.io.IOException;
+
+/**
+ * Raised when the upload spool cannot reserve room for another upload.
+ */
+@ResponseStatus(HttpStatus.INSUFFICIENT_STORAGE)
+public class SpoolCapacityException extends IOException {
+
+    public SpoolCapacityException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,54 @@
+package com.docintel.docintel.service;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Handle on an upload held in the {@link UploadSpool}.
+ * Closing it deletes the spooled file and returns its quota, whether ingestion succeeded or failed.
+ */
+public class SpooledUpload implements AutoCloseable {
+
+    private final Path path;
+    private final String name;
+    private final long reservedBytes;
+    private final boolean bulk;
+    private final UploadSpool spool;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    SpooledUpload(Path path, String name, long reservedBytes, boolean bulk, UploadSpool spool) {
+        this.path = path;
+        this.name = name;
+        this.reservedBytes = reservedBytes;
+        this.bulk = bulk;
+        this.spool = spool;
+    }
+
+    public File file() {
+        return this.path.toFile();
+    }
+
+    /**
+     * The name the upload is ingested under. For an archive entry this is its path within the archive,
+     * so entries with the same file name in different folders stay apart.
+     */
+    public String name() {
+        return this.name;
+    }
+
+    long reservedBytes() {
+        return this.reservedBytes;
+    }
+
+    boolean bulk() {
+        return this.bulk;
+    }
+
+    @Override
+    public void close() {
+        if (this.released.compareAndSet(false, true)) {
+            this.spool.release(this);
+        }
+    }
+}
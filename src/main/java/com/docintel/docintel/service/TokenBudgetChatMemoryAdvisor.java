@@ -0,0 +1,158 @@
+package com.docintel.docintel.service;
+
+import org.springframework.ai.chat.client.ChatClientMessageAggregator;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.Advisor;
+import org.springframework.ai.chat.client.advisor.api.AdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.BaseChatMemoryAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Chat memory advisor that replays a bounded amount of history into each prompt. The most recent turns are
+ * kept verbatim up to {@code recent-tokens}; everything older is represented by the conversation's rolling
+ * summary from the {@link ConversationSummarizer}, which is brought up to date in the background. Per-turn
+ * prompt size therefore stays the same however long the conversation gets. Turns that have just left the
+ * verbatim window are missing from the prompt until the background fold that covers them has finished.
+ */
+@Component
+public class TokenBudgetChatMemoryAdvisor implements BaseChatMemoryAdvisor {
+
+    private final ChatMemory chatMemory;
+    private final ConversationSummarizer summarizer;
+    private final TokenCountEstimator tokenCounter = new JTokkitTokenCountEstimator();
+    private final int recentTokens;
+
+    public TokenBudgetChatMemoryAdvisor(
+            ChatMemory chatMemory,
+            ConversationSummarizer summarizer,
+            @Value("${docintel.chat.history.recent-tokens:1500}") int recentTokens) {
+        Assert.isTrue(recentTokens >= 0, "recent-tokens must not be negative");
+        this.chatMemory = chatMemory;
+        this.summarizer = summarizer;
+        this.recentTokens = recentTokens;
+    }
+
+    @Override
+    public int getOrder() {
+        return Advisor.DEFAULT_CHAT_MEMORY_PRECEDENCE_ORDER;
+    }
+
+    @Override
+    public ChatClientRequest before(ChatClientRequest chatClientRequest, AdvisorChain advisorChain) {
+        String conversationId = getConversationId(chatClientRequest.context(), ChatMemory.DEFAULT_CONVERSATION_ID);
+        List<Message> history = chatMemory.get(conversationId);
+        int recentStart = recentStart(history);
+        ConversationSummarizer.Summary summary = summarizer.find(conversationId);
+        List<Message> unfolded = unfolded(history.subList(0, recentStart), summary);
+        if (!unfolded.isEmpty()) {
+            summarizer.fold(conversationId, unfolded, fingerprint(history, recentStart - 1));
+        }
+
+        List<Message> instructions = chatClientRequest.prompt().getInstructions();
+        List<Message> messages = new ArrayList<>();
+        // the system prompt stays first, ahead of the remembered conversation
+        instructions.stream().filter(m -> m.getMessageType() == MessageType.SYSTEM).forEach(messages::add);
+        if (summary != null) {
+            messages.add(new SystemMessage("Summary of the earlier conversation:\n" + summary.text()));
+        }
+        messages.addAll(history.subList(recentStart, history.size()));
+        instructions.stream().filter(m -> m.getMessageType() != MessageType.SYSTEM).forEach(messages::add);
+
+        ChatClientRequest processed = chatClientRequest.mutate()
+                .prompt(chatClientRequest.prompt().mutate().messages(messages).build())
+                .build();
+        chatMemory.add(conversationId, processed.prompt().getUserMessage());
+        return processed;
+    }
+
+    @Override
+    public ChatClientResponse after(ChatClientResponse chatClientResponse, AdvisorChain advisorChain) {
+        List<Message> assistantMessages = new ArrayList<>();
+        if (chatClientResponse.chatResponse() != null) {
+            chatClientResponse.chatResponse().getResults().forEach(g -> assistantMessages.add(g.getOutput()));
+        }
+        chatMemory.add(getConversationId(chatClientResponse.context(), ChatMemory.DEFAULT_CONVERSATION_ID),
+                assistantMessages);
+        return chatClientResponse;
+    }
+
+    @Override
+    public Flux<ChatClientResponse> adviseStream(ChatClientRequest chatClientRequest,
+                                                 StreamAdvisorChain streamAdvisorChain) {
+        // memory is written once, from the aggregated response
+        return Mono.just(chatClientRequest)
+                .publishOn(getScheduler())
+                .map(request -> before(request, streamAdvisorChain))
+                .flatMapMany(streamAdvisorChain::nextStream)
+                .transform(flux -> new ChatClientMessageAggregator().aggregateChatClientResponse(flux,
+                        response -> after(response, streamAdvisorChain)));
+    }
+
+    /**
+     * Index of the oldest message replayed verbatim: whole turns from the end, starting on a user message,
+     * while they fit the budget.
+     */
+    int recentStart(List<Message> history) {
+        int start = history.size();
+        int tokens = 0;
+        for (int i = history.size() - 1; i >= 0; i--) {
+            String text = history.get(i).getText();
+            tokens += text != null ? tokenCounter.estimate(text) : 0;
+            if (tokens > recentTokens) {
+                break;
+            }
+            if (history.get(i).getMessageType() == MessageType.USER) {
+                start = i;
+            }
+        }
+        return start;
+    }
+
+    /**
+     * The older messages the summary does not cover yet: those after its watermark, or all of them when the
+     * watermark has left the window, since the window only drops messages older than any still in it. The
+     * first message of the window has lost its predecessor, so there the watermark is matched on the message
+     * alone.
+     */
+    static List<Message> unfolded(List<Message> older, ConversationSummarizer.Summary summary) {
+        if (summary == null) {
+            return older;
+        }
+        for (int i = older.size() - 1; i >= 0; i--) {
+            String fingerprint = fingerprint(older, i);
+            boolean matches = i > 0
+                    ? fingerprint.equals(summary.watermark())
+                    : summary.watermark().startsWith(fingerprint.substring(0, fingerprint.indexOf(':') + 1));
+            if (matches) {
+                return older.subList(i + 1, older.size());
+            }
+        }
+        return older;
+    }
+
+    /**
+     * Identifies a message by its own text and, after a separator, its predecessor's, so repeated short replies
+     * stay distinct while the message part still matches once the predecessor has left the window.
+     */
+    private static String fingerprint(List<Message> messages, int index) {
+        Message message = messages.get(index);
+        String previous = index > 0 ? messages.get(index - 1).getText() : "";
+        return ContentHashHelper.sha256(message.getMessageType() + "\u0000" + message.getText())
+                + ":" + ContentHashHelper.sha256(String.valueOf(previous));
+    }
+}
@@ -0,0 +1,193 @@
+package com.docintel.docintel.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Fixed-size, managed spool area for uploads awaiting ingestion.
+ * Multipart bodies are streamed to disk through NIO channels, never buffered on the heap.
+ * Every upload reserves its quota up front and gives it back, file included, when its handle is closed;
+ * a stream is cut off at its reservation, so usage never exceeds capacity. Bulk uploads may only take
+ * their own share of the capacity, so a large batch cannot lock out single uploads.
+ */
+@Component
+public class UploadSpool {
+    private static final Logger logger = LoggerFactory.getLogger(UploadSpool.class);
+    private static final long TRANSFER_CHUNK = 1024 * 1024;
+    /**
+     * Written into every upload directory, so startup only purges directories the spool created itself.
+     */
+    static final String MARKER = ".docintel-spool";
+
+    private final Path root;
+    private final long capacityBytes;
+    private final long maxUploadBytes;
+    private final long bulkCapacityBytes;
+    private long reservedBytes;
+    private long bulkReservedBytes;
+
+    public UploadSpool(
+            @Value("${docintel.ingest.spool.directory:${java.io.tmpdir}/docintel-spool}") Path root,
+            @Value("${docintel.ingest.spool.capacity:2GB}") DataSize capacity,
+            @Value("${docintel.ingest.spool.max-upload-size:200MB}") DataSize maxUploadSize,
+            @Value("${docintel.ingest.spool.bulk-capacity:1GB}") DataSize bulkCapacity) throws IOException {
+        Assert.isTrue(maxUploadSize.toBytes() <= capacity.toBytes(), "max-upload-size must not exceed capacity");
+        Assert.isTrue(bulkCapacity.toBytes() <= capacity.toBytes(), "bulk-capacity must not exceed capacity");
+        this.root = root;
+        this.capacityBytes = capacity.toBytes();
+        this.maxUploadBytes = maxUploadSize.toBytes();
+        this.bulkCapacityBytes = bulkCapacity.toBytes();
+
+        Files.createDirectories(root);
+        purgeAbandoned();
+        logger.info("upload spool ready at {} (capacity {}, bulk share {}, per-upload quota {})",
+                root, capacity, bulkCapacity, maxUploadSize);
+    }
+
+    public SpooledUpload spool(MultipartFile file, String fileName) throws IOException {
+        try (InputStream in = file.getInputStream()) {
+            return spool(in, file.getSize(), fileName);
+        }
+    }
+
+    public SpooledUpload spool(InputStream in, long declaredSize, String fileName) throws IOException {
+        return spool(in, declaredSize, fileName, fileName, false);
+    }
+
+    /**
+     * Spools a stream the caller keeps ownership of, such as one entry of an archive being unpacked.
+     *
+     * @param declaredSize size in bytes if known up front, otherwise 0 or negative; a stream longer than its
+     *                     declared size is rejected rather than allowed past its reservation
+     * @param fileName     name of the spooled file, which must be a plain file name
+     * @param name         name the upload is ingested under, such as the path of an archive entry
+     * @param bulk         reserve from the bulk share of the capacity
+     */
+    public SpooledUpload spool(InputStream in, long declaredSize, String fileName, String name, boolean bulk)
+            throws IOException {
+        if (declaredSize > this.maxUploadBytes) {
+            throw new MaxUploadSizeExceededException(this.maxUploadBytes);
+        }
+
+        // reserve the full quota when the size is unknown, the stream is cut off at the quota anyway
+        long reservation = declaredSize > 0 ? declaredSize : this.maxUploadBytes;
+        reserve(reservation, bulk);
+
+        Path dir = null;
+        try {
+            dir = Files.createDirectory(this.root.resolve(UUID.randomUUID().toString()));
+            Files.createFile(dir.resolve(MARKER));
+            Path target = dir.resolve(fileName);
+            long written = transfer(in, target, reservation);
+            // hand back the unused part of an over-sized reservation straight away
+            unreserve(reservation - written, bulk);
+            reservation = written;
+            logger.info("spooled {} ({} bytes)", name, written);
+            return new SpooledUpload(target, name, written, bulk, this);
+        } catch (IOException | RuntimeException e) {
+            delete(dir);
+            unreserve(reservation, bulk);
+            throw e;
+        }
+    }
+
+    public synchronized long getReservedBytes() {
+        return this.reservedBytes;
+    }
+
+    void release(SpooledUpload upload) {
+        delete(upload.file().toPath().getParent());
+        unreserve(upload.reservedBytes(), upload.bulk());
+    }
+
+    /**
+     * Deletes uploads left behind by a previous process that never finished ingesting them. The directory is
+     * configurable, so anything in it without the spool's marker is left alone.
+     */
+    private void purgeAbandoned() throws IOException {
+        try (Stream<Path> entries = Files.list(this.root)) {
+            List<Path> abandoned = entries.filter(p -> Files.isRegularFile(p.resolve(MARKER))).toList();
+            abandoned.forEach(UploadSpool::delete);
+            if (!abandoned.isEmpty()) {
+                logger.info("purged {} abandoned uploads from {}", abandoned.size(), this.root);
+            }
+        }
+    }
+
+    private synchronized void reserve(long bytes, boolean bulk) throws SpoolCapacityException {
+        if (this.reservedBytes + bytes > this.capacityBytes) {
+            throw new SpoolCapacityException(
+                    "spool area full: %d of %d bytes reserved".formatted(this.reservedBytes, this.capacityBytes));
+        }
+        if (bulk && this.bulkReservedBytes + bytes > this.bulkCapacityBytes) {
+            throw new SpoolCapacityException("bulk share of the spool area full: %d of %d bytes reserved"
+                    .formatted(this.bulkReservedBytes, this.bulkCapacityBytes));
+        }
+        this.reservedBytes += bytes;
+        if (bulk) {
+            this.bulkReservedBytes += bytes;
+        }
+    }
+
+    private synchronized void unreserve(long bytes, boolean bulk) {
+        this.reservedBytes -= bytes;
+        if (bulk) {
+            this.bulkReservedBytes -= bytes;
+        }
+    }
+
+    /**
+     * Copies at most {@code limit} bytes and fails if the stream has more.
+     */
+    private long transfer(InputStream in, Path target, long limit) throws IOException {
+        // the channel is not closed here, closing it would close the caller's stream
+        ReadableByteChannel source = Channels.newChannel(in);
+        try (FileChannel sink = FileChannel.open(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long position = 0;
+            long transferred;
+            // one byte past the limit is enough to tell the stream is too long
+            while (position <= limit
+                    && (transferred = sink.transferFrom(source, position,
+                    Math.min(TRANSFER_CHUNK, limit + 1 - position))) > 0) {
+                position += transferred;
+            }
+            if (position > this.maxUploadBytes) {
+                throw new MaxUploadSizeExceededException(this.maxUploadBytes);
+            }
+            if (position > limit) {
+                throw new IOException("upload is larger than its declared size of " + limit + " bytes");
+            }
+            return position;
+        }
+    }
+
+    private static void delete(Path dir) {
+        if (dir == null) {
+            return;
+        }
+        try {
+            FileSystemUtils.deleteRecursively(dir);
+        } catch (IOException e) {
+            logger.warn("could not delete spooled upload {}", dir, e);
+        }
+    }
+}
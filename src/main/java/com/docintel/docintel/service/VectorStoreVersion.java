@@ -0,0 +1,188 @@
+package com.docintel.docintel.service;
+
+import io.qdrant.client.PointIdFactory;
+import io.qdrant.client.QdrantClient;
+import io.qdrant.client.ValueFactory;
+import io.qdrant.client.VectorsFactory;
+import io.qdrant.client.WithPayloadSelectorFactory;
+import io.qdrant.client.WithVectorsSelectorFactory;
+import io.qdrant.client.grpc.Collections;
+import io.qdrant.client.grpc.JsonWithInt;
+import io.qdrant.client.grpc.Points;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.vectorstore.qdrant.QdrantVectorStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic version of the vector store contents, advanced whenever this instance writes or deletes points.
+ * Caches of retrieval results compare against it to drop anything computed before the change.
+ * <p>
+ * Against Qdrant, replicas share the store but not this counter, so each write also stamps a random token on a
+ * single marker point in a small companion collection. Every replica polls the marker and advances its own
+ * version when the token changes, so another replica's ingest reaches this one's caches within a poll interval.
+ * Tokens are published from the poller thread, off the write path, and advances that arrive while a publish is
+ * still pending share it, so a burst of page deletes costs one upsert. Every Qdrant call is bounded by
+ * {@code timeout}.
+ */
+@Component
+public class VectorStoreVersion {
+    private static final Logger logger = LoggerFactory.getLogger(VectorStoreVersion.class);
+    private static final Points.PointId MARKER_ID = PointIdFactory.id(1);
+    private static final String TOKEN_KEY = "token";
+
+    private final AtomicLong version = new AtomicLong();
+    private final QdrantClient qdrantClient;
+    private final String markerCollectionName;
+    private final ScheduledExecutorService poller;
+    private final Duration timeout;
+    private final AtomicBoolean publishPending = new AtomicBoolean();
+    private volatile String lastToken;
+
+    /**
+     * A version local to this process.
+     */
+    public VectorStoreVersion() {
+        this.qdrantClient = null;
+        this.markerCollectionName = null;
+        this.poller = null;
+        this.timeout = null;
+    }
+
+    /**
+     * Shared through Qdrant when a client is configured, otherwise local to this process.
+     */
+    @Autowired
+    public VectorStoreVersion(
+            ObjectProvider<QdrantClient> qdrantClient,
+            @Value("${docintel.vectorstore.version.poll-interval:5s}") Duration pollInterval,
+            @Value("${docintel.vectorstore.version.timeout:5s}") Duration timeout) {
+        QdrantClient client = qdrantClient.getIfAvailable();
+        String collectionName = QdrantVectorStore.DEFAULT_COLLECTION_NAME + "_version";
+        if (client != null && !ensureMarkerCollection(client, collectionName, timeout)) {
+            client = null;
+        }
+        this.qdrantClient = client;
+        this.timeout = timeout;
+        this.markerCollectionName = collectionName;
+        if (client == null) {
+            this.poller = null;
+            return;
+        }
+        this.lastToken = readToken();
+        this.poller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "vector-store-version");
+            t.setDaemon(true);
+            return t;
+        });
+        poller.scheduleWithFixedDelay(this::poll, pollInterval.toMillis(), pollInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    private static boolean ensureMarkerCollection(QdrantClient client, String collectionName, Duration timeout) {
+        try {
+            if (!client.collectionExistsAsync(collectionName).get(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                client.createCollectionAsync(collectionName, Collections.VectorParams.newBuilder()
+                        .setSize(1)
+                        .setDistance(Collections.Distance.Dot)
+                        .build()).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            logger.warn("could not create version marker collection {}, other replicas' writes will not "
+                    + "invalidate this one's caches", collectionName, e);
+            return false;
+        }
+    }
+
+    public long current() {
+        return version.get();
+    }
+
+    public void advance() {
+        version.incrementAndGet();
+        if (qdrantClient != null && publishPending.compareAndSet(false, true)) {
+            try {
+                poller.execute(() -> {
+                    // advances from here on need a publish of their own
+                    publishPending.set(false);
+                    publish();
+                });
+            } catch (RejectedExecutionException e) {
+                // shutting down
+                publishPending.set(false);
+            }
+        }
+    }
+
+    private synchronized void publish() {
+        String token = UUID.randomUUID().toString();
+        try {
+            qdrantClient.upsertAsync(markerCollectionName, List.of(Points.PointStruct.newBuilder()
+                    .setId(MARKER_ID)
+                    .setVectors(VectorsFactory.vectors(0f))
+                    .putAllPayload(Map.of(TOKEN_KEY, ValueFactory.value(token)))
+                    .build())).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            lastToken = token;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // this replica already moved on; the others catch up with its next write
+            logger.warn("could not publish vector store version to {}", markerCollectionName, e);
+        }
+    }
+
+    synchronized void poll() {
+        String token = readToken();
+        if (token != null && !token.equals(lastToken)) {
+            lastToken = token;
+            version.incrementAndGet();
+            logger.info("vector store changed on another replica");
+        }
+    }
+
+    /** @return the marker's token, or null when there is none yet or it could not be read */
+    private String readToken() {
+        try {
+            List<Points.RetrievedPoint> marker = qdrantClient.retrieveAsync(markerCollectionName, List.of(MARKER_ID),
+                    WithPayloadSelectorFactory.enable(true), WithVectorsSelectorFactory.enable(false), null)
+                    .get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            if (marker.isEmpty()) {
+                return null;
+            }
+            JsonWithInt.Value token = marker.getFirst().getPayloadMap().get(TOKEN_KEY);
+            return token != null ? token.getStringValue() : null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            logger.debug("could not read vector store version from {}", markerCollectionName, e);
+            return null;
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (poller != null) {
+            poller.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.docintel.docintel.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Write-behind buffer in front of the {@link VectorStore} that coalesces documents from concurrent ingestions.
+ * Buffered documents are flushed once the document count, estimated token count or age threshold is reached.
+ * Up to {@code pipeline-depth} flushes run at once, so one batch is being embedded while the previous one
+ * is upserted, and as many more may wait for a writer. Beyond that, submitting threads block until a flush
+ * finishes, which throttles producers; flushes always run on the writer threads, never on a submitter or the timer.
+ * Each submission's future completes only after Qdrant has acknowledged all of its points.
+ */
+@Component
+public class VectorStoreWriteBehind {
+    private static final Logger logger = LoggerFactory.getLogger(VectorStoreWriteBehind.class);
+
+    private final VectorStore vectorStore;
+    private final VectorStoreVersion version;
+    private final TokenCountEstimator tokenCounter = new JTokkitTokenCountEstimator();
+    private final int maxDocuments;
+    private final int maxTokens;
+    private final Duration maxDelay;
+    private final ThreadPoolExecutor writers;
+    private final Semaphore flushSlots;
+    private final ScheduledExecutorService timer;
+
+    private final Deque<Pending> pending = new ArrayDeque<>();
+    private int pendingDocuments;
+    private int pendingTokens;
+    private ScheduledFuture<?> scheduledFlush;
+
+    public VectorStoreWriteBehind(
+            VectorStore vectorStore,
+            VectorStoreVersion version,
+            @Value("${docintel.vectorstore.write-behind.max-documents:96}") int maxDocuments,
+            @Value("${docintel.vectorstore.write-behind.max-tokens:20000}") int maxTokens,
+            @Value("${docintel.vectorstore.write-behind.max-delay:250ms}") Duration maxDelay,
+            @Value("${docintel.vectorstore.write-behind.pipeline-depth:2}") int pipelineDepth) {
+        Assert.isTrue(maxDocuments > 0, "max-documents must be greater than 0");
+        Assert.isTrue(maxTokens > 0, "max-tokens must be greater than 0");
+        Assert.isTrue(pipelineDepth > 0, "pipeline-depth must be greater than 0");
+        this.vectorStore = vectorStore;
+        this.version = version;
+        this.maxDocuments = maxDocuments;
+        this.maxTokens = maxTokens;
+        this.maxDelay = maxDelay;
+
+        AtomicInteger threadIds = new AtomicInteger();
+        // the queue itself is unbounded so the timer can always hand off an aged batch; producers are
+        // bounded by the flush slots instead
+        this.writers = new ThreadPoolExecutor(
+                pipelineDepth, pipelineDepth, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                r -> {
+                    Thread t = new Thread(r, "vector-writer-" + threadIds.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.flushSlots = new Semaphore(2 * pipelineDepth);
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "vector-writer-timer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Buffers the documents for a coalesced write.
+     *
+     * @return completes once every document has been embedded and upserted, or exceptionally if its batch failed
+     */
+    public CompletableFuture<Void> submit(List<Document> documents) {
+        if (documents.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        int tokens = documents.stream()
+                .mapToInt(d -> d.getText() != null ? tokenCounter.estimate(d.getText()) : 0)
+                .sum();
+        Pending entry = new Pending(List.copyOf(documents), tokens, new CompletableFuture<>());
+
+        List<List<Pending>> ready;
+        synchronized (this) {
+            pending.addLast(entry);
+            pendingDocuments += entry.documents().size();
+            pendingTokens += entry.tokens();
+            ready = drain(false);
+            if (pending.isEmpty()) {
+                cancelScheduledFlush();
+            } else if (scheduledFlush == null) {
+                scheduledFlush = timer.schedule(this::flushAged, maxDelay.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+        for (List<Pending> batch : ready) {
+            flushSlots.acquireUninterruptibly();
+            dispatch(batch, true);
+        }
+        return entry.acknowledged();
+    }
+
+    private void flushAged() {
+        List<List<Pending>> ready;
+        synchronized (this) {
+            scheduledFlush = null;
+            ready = drain(true);
+        }
+        // never block the timer; an aged batch may overshoot the slots by one
+        ready.forEach(batch -> dispatch(batch, flushSlots.tryAcquire()));
+    }
+
+    /**
+     * Cuts whole submissions into batches that fit the thresholds. Without {@code force},
+     * a trailing batch that has not reached any threshold stays buffered.
+     */
+    private List<List<Pending>> drain(boolean force) {
+        List<List<Pending>> batches = new ArrayList<>();
+        while (!pending.isEmpty()
+                && (force || pendingDocuments >= maxDocuments || pendingTokens >= maxTokens)) {
+            List<Pending> batch = new ArrayList<>();
+            int documents = 0;
+            int tokens = 0;
+            while (!pending.isEmpty()) {
+                Pending next = pending.peekFirst();
+                boolean fits = documents + next.documents().size() <= maxDocuments
+                        && tokens + next.tokens() <= maxTokens;
+                if (!batch.isEmpty() && !fits) {
+                    break;
+                }
+                pending.removeFirst();
+                batch.add(next);
+                documents += next.documents().size();
+                tokens += next.tokens();
+            }
+            pendingDocuments -= documents;
+            pendingTokens -= tokens;
+            batches.add(batch);
+        }
+        return batches;
+    }
+
+    private void cancelScheduledFlush() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+    }
+
+    private void dispatch(List<Pending> batch, boolean holdsSlot) {
+        try {
+            writers.execute(() -> write(batch, holdsSlot));
+        } catch (RejectedExecutionException e) {
+            // only after shutdown
+            write(batch, holdsSlot);
+        }
+    }
+
+    private void write(List<Pending> batch, boolean holdsSlot) {
+        List<Document> documents = new ArrayList<>();
+        batch.forEach(p -> documents.addAll(p.documents()));
+        try {
+            vectorStore.add(documents);
+            version.advance();
+            logger.info("flushed {} documents from {} submissions", documents.size(), batch.size());
+            batch.forEach(p -> p.acknowledged().complete(null));
+        } catch (RuntimeException e) {
+            logger.error("write-behind flush of {} documents failed", documents.size(), e);
+            batch.forEach(p -> p.acknowledged().completeExceptionally(e));
+        } finally {
+            if (holdsSlot) {
+                flushSlots.release();
+            }
+            // an Error skips the handlers above, and the submitters would otherwise wait forever
+            if (batch.stream().anyMatch(p -> !p.acknowledged().isDone())) {
+                IllegalStateException aborted = new IllegalStateException("write-behind flush aborted");
+                batch.forEach(p -> p.acknowledged().completeExceptionally(aborted));
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        timer.shutdownNow();
+        flushAged();
+        writers.shutdown();
+        if (!writers.awaitTermination(30, TimeUnit.SECONDS)) {
+            logger.warn("write-behind buffer did not drain before shutdown");
+        }
+    }
+
+    private record Pending(List<Document> documents, int tokens, CompletableFuture<Void> acknowledged) {
+    }
+}
@@ -0,0 +1,31 @@
+package com.docintel.docintel.config;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Dot product over the widest float lanes the CPU has. It lives in a source set of its own, the only code
+ * compiled with the incubator module, and is only referenced from {@link VectorSimilarity} once it has checked
+ * that the module is present at runtime.
+ */
+final class SimdDotProduct {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    private SimdDotProduct() {
+    }
+
+    static float dot(float[] a, float[] b) {
+        FloatVector sum = FloatVector.zero(SPECIES);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(a.length); i < bound; i += SPECIES.length()) {
+            sum = FloatVector.fromArray(SPECIES, a, i).fma(FloatVector.fromArray(SPECIES, b, i), sum);
+        }
+        float dot = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            dot += a[i] * b[i];
+        }
+        return dot;
+    }
+}
@@ -0,0 +1,72 @@
+package com.docintel.docintel.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.embedding.EmbeddingModel;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CachingEmbeddingModelTest {
+
+    private final EmbeddingModel delegate = mock(EmbeddingModel.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private CachingEmbeddingModel cachingModel(boolean offHeap) {
+        when(delegate.embed(anyString())).thenAnswer(i -> {
+            String text = i.getArgument(0);
+            return new float[]{text.length(), text.charAt(0), 1f};
+        });
+        return new CachingEmbeddingModel(delegate, 2, 3, offHeap, registry);
+    }
+
+    @Test
+    void embed_servesRepeatedQueriesFromCache() {
+        CachingEmbeddingModel model = cachingModel(false);
+
+        float[] first = model.embed("refund window");
+        float[] second = model.embed("refund window");
+
+        assertArrayEquals(first, second);
+        assertNotSame(first, second);
+        verify(delegate, times(1)).embed("refund window");
+        assertEquals(0.5, model.hitRatio());
+    }
+
+    @Test
+    void embed_reusesTheLeastRecentlyUsedSlotWhenFull() {
+        CachingEmbeddingModel model = cachingModel(true);
+
+        model.embed("alpha");
+        model.embed("beta");
+        model.embed("alpha");
+        float[] gamma = model.embed("gamma");
+
+        assertEquals(2, model.size());
+        assertArrayEquals(gamma, model.embed("gamma"));
+        assertArrayEquals(new float[]{5, 'a', 1}, model.embed("alpha"));
+        model.embed("beta");
+        verify(delegate, times(2)).embed("beta");
+        verify(delegate, times(1)).embed("alpha");
+    }
+
+    @Test
+    void rejectsASlabBeyondTwoGigabytes() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> new CachingEmbeddingModel(delegate, 1_000_000, 768, false, registry));
+
+        assertTrue(e.getMessage().contains("exceeds 2 GB"));
+    }
+
+    @Test
+    void bulkEmbeddingBypassesTheCache() {
+        CachingEmbeddingModel model = cachingModel(false);
+        when(delegate.embed(List.of("a", "b"))).thenReturn(List.of(new float[3], new float[3]));
+
+        model.embed(List.of("a", "b"));
+
+        assertEquals(0, model.size());
+    }
+}
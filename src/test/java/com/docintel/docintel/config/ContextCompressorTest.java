@@ -0,0 +1,100 @@
+package com.docintel.docintel.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContextCompressorTest {
+
+    private static Document page(int pageNumber, String text) {
+        return new Document(text, Map.of("file_name", "report.pdf", "page_number", pageNumber));
+    }
+
+    private static String regionTable() {
+        return IntStream.range(0, 40)
+                .mapToObj(i -> "| region-" + i + " | " + (100 + i) + " | stable |")
+                .collect(Collectors.joining("\n"));
+    }
+
+    @Test
+    void compress_keepsOnlyRelevantTableRowsUnderTheirHeader() {
+        String text = "Page 4\nTables:\n| Region | Revenue | Trend |\n|---|---|---|\n" + regionTable()
+                + "\n| Antarctica | 9 | growing |\nText:\nRevenue is reported in millions. The audit was completed in March.";
+        Document retrieved = page(4, text);
+        ContextCompressor compressor = new ContextCompressor(200);
+
+        List<Document> compressed = compressor.compress("What was the revenue trend in Antarctica?", List.of(retrieved));
+
+        String kept = compressed.get(0).getText();
+        assertTrue(kept.startsWith("Page 4 (file: report.pdf)\nTables:\n| Region | Revenue | Trend |\n|---|---|---|"));
+        assertTrue(kept.contains("| Antarctica | 9 | growing |"));
+        assertTrue(kept.contains("Revenue is reported in millions."));
+        assertFalse(kept.contains("region-17"));
+        assertFalse(kept.contains("audit"));
+        assertEquals(retrieved.getId(), compressed.get(0).getId());
+        assertEquals(4, compressed.get(0).getMetadata().get("page_number"));
+        assertTrue(compressor.estimateTokens(compressed) < compressor.estimateTokens(List.of(retrieved)) / 4);
+    }
+
+    @Test
+    void compress_extractsMatchingFragmentsOfLargeJsonBlocks() {
+        String json = "{\"invoice\":{\"number\":\"INV-2291\",\"lines\":["
+                + IntStream.range(0, 20).mapToObj(i -> "{\"sku\":\"SKU-" + i + "\",\"qty\":" + i + "}")
+                .collect(Collectors.joining(","))
+                + "],\"due_date\":\"2024-07-01\"}}";
+        ContextCompressor compressor = new ContextCompressor(300);
+
+        List<Document> compressed = compressor.compress("When is invoice INV-2291 due_date?",
+                List.of(page(2, "Page 2\nJSON Blocks:\n" + json)));
+
+        String kept = compressed.get(0).getText();
+        assertTrue(kept.endsWith("\n{\"invoice\":{\"number\":\"INV-2291\",\"due_date\":\"2024-07-01\"}}"), kept);
+        assertFalse(kept.contains("SKU-7"));
+    }
+
+    @Test
+    void compress_keepsTheLeadOfDocumentsWithoutMatchingTerms() {
+        ContextCompressor compressor = new ContextCompressor(500);
+
+        List<Document> compressed = compressor.compress("refund window", List.of(
+                page(1, "Page 1\nText:\nThe refund window is thirty days."),
+                page(2, "Page 2\nText:\nReturns must be unopened. Shipping is not reimbursed.")));
+
+        assertEquals(2, compressed.size());
+        assertTrue(compressed.get(1).getText().contains("Returns must be unopened."));
+    }
+
+    @Test
+    void compress_keepsArrayElementsOfJsonLeavesTogether() {
+        String json = "{\"lines\":["
+                + IntStream.range(0, 20).mapToObj(i -> "{\"sku\":\"SKU-" + i + "\",\"note\":\"n" + i + "\"}")
+                .collect(Collectors.joining(","))
+                + "]}";
+        ContextCompressor compressor = new ContextCompressor(300);
+
+        List<Document> compressed = compressor.compress("What about n7?",
+                List.of(page(2, "Page 2\nJSON Blocks:\n" + json)));
+
+        assertTrue(compressed.get(0).getText().endsWith("\n{\"lines\":[{\"note\":\"n7\"}]}"),
+                compressed.get(0).getText());
+    }
+
+    @Test
+    void compress_marksPagesThatDoNotFitTheBudget() {
+        ContextCompressor compressor = new ContextCompressor(20);
+
+        List<Document> compressed = compressor.compress("refund window", List.of(
+                page(1, "Page 1\nText:\nThe refund window is thirty days."),
+                page(2, "Page 2\nText:\nReturns must be unopened, undamaged and shipped back in their original "
+                        + "packaging with the receipt and the completed return form.")));
+
+        assertEquals(2, compressed.size());
+        assertEquals("Page 2 (file: report.pdf)\n" + ContextCompressor.OMITTED, compressed.get(1).getText());
+    }
+}
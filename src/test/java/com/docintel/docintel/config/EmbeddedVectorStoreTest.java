@@ -0,0 +1,118 @@
+package com.docintel.docintel.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.TokenCountBatchingStrategy;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class EmbeddedVectorStoreTest {
+
+    // texts are embedded as these directions, queries likewise
+    private static final Map<String, float[]> VECTORS = Map.of(
+            "north", new float[]{0, 2, 0},
+            "east", new float[]{3, 0, 0},
+            "north-east", new float[]{1, 1, 0},
+            "up", new float[]{0, 0, 1});
+
+    @TempDir
+    Path root;
+
+    private final EmbeddingModel embeddingModel = mock(EmbeddingModel.class);
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void stubEmbeddings() {
+        when(embeddingModel.embed(anyString())).thenAnswer(inv -> VECTORS.get(inv.<String>getArgument(0)));
+        when(embeddingModel.embed(anyList(), any(), any())).thenAnswer(inv -> inv.<List<Document>>getArgument(0)
+                .stream().map(d -> VECTORS.get(d.getText())).toList());
+    }
+
+    private EmbeddedVectorStore open(int segmentCapacity) throws Exception {
+        return new EmbeddedVectorStore(embeddingModel, new TokenCountBatchingStrategy(), root, segmentCapacity);
+    }
+
+    private static Document document(String id, String text, String group) {
+        return new Document(id, text, Map.of("document_group", group, "page_number", 1));
+    }
+
+    private static List<String> ids(List<Document> documents) {
+        return documents.stream().map(Document::getId).toList();
+    }
+
+    @Test
+    void similaritySearch_ranksByCosineAcrossSegmentsAndAppliesTheThreshold() throws Exception {
+        EmbeddedVectorStore store = open(2);
+        store.add(List.of(document("n", "north", "a"), document("e", "east", "a"),
+                document("ne", "north-east", "a"), document("u", "up", "a")));
+
+        List<Document> results = store.similaritySearch(
+                SearchRequest.builder().query("north").topK(3).similarityThreshold(0.5).build());
+
+        assertEquals(List.of("n", "ne"), ids(results));
+        assertEquals(1.0, results.get(0).getScore(), 1e-6);
+        assertEquals(Math.sqrt(0.5), results.get(1).getScore(), 1e-6);
+        assertTrue(Files.isRegularFile(root.resolve("segment-00001.vec")));
+    }
+
+    @Test
+    void similaritySearch_appliesMetadataFilters() throws Exception {
+        EmbeddedVectorStore store = open(16);
+        store.add(List.of(document("n", "north", "a"), document("ne", "north-east", "b")));
+        FilterExpressionBuilder b = new FilterExpressionBuilder();
+
+        List<Document> results = store.similaritySearch(SearchRequest.builder().query("north").topK(5)
+                .filterExpression(b.and(b.eq("document_group", "b"), b.gte("page_number", 1)).build()).build());
+
+        assertEquals(List.of("ne"), ids(results));
+    }
+
+    @Test
+    void reopen_restoresDocumentsVectorsAndDeletes() throws Exception {
+        EmbeddedVectorStore store = open(16);
+        store.add(List.of(document("n", "north", "a"), document("e", "east", "a"), document("u", "up", "b")));
+        store.delete(List.of("e"));
+        store.delete(new FilterExpressionBuilder().eq("document_group", "b").build());
+        // the freed slot is taken again, and re-adding an id replaces its document
+        store.add(List.of(document("ne", "north-east", "a"), document("n", "north", "c")));
+        store.close();
+
+        EmbeddedVectorStore reopened = open(16);
+
+        assertEquals(List.of("n", "ne"), ids(reopened.similaritySearch(
+                SearchRequest.builder().query("north").topK(5).build())));
+        assertEquals(2, reopened.documents().size());
+        assertEquals("c", reopened.documents().stream().filter(d -> d.getId().equals("n")).findFirst()
+                .orElseThrow().getMetadata().get("document_group"));
+        assertFalse(Files.exists(root.resolve("segment-00001.vec")));
+    }
+
+    @Test
+    void dot_matchesThePlainLoop() {
+        Random random = new Random(7);
+        float[] a = new float[771];
+        float[] b = new float[771];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = (float) random.nextGaussian();
+            b[i] = (float) random.nextGaussian();
+        }
+
+        assertEquals(VectorSimilarity.scalarDot(a, b), VectorSimilarity.dot(a, b), 1e-3);
+        assertEquals(VectorSimilarity.scalarDot(a, b), SimdDotProduct.dot(a, b), 1e-3);
+    }
+}
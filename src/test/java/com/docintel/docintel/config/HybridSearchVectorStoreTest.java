@@ -0,0 +1,85 @@
+package com.docintel.docintel.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class HybridSearchVectorStoreTest {
+
+    private final VectorStore dense = mock(VectorStore.class);
+    private final HybridSearchVectorStore store = new HybridSearchVectorStore(dense, new LexicalIndex(), 60, 4);
+
+    private static Document page(String id, String text, int pageNumber) {
+        return new Document(id, text, Map.of("file_name", "manual.pdf", "page_number", pageNumber));
+    }
+
+    @Test
+    void similaritySearch_fusesLexicalHitsForIdentifiersTheDenseSearchMissed() {
+        Document torque = page("a", "Torque settings for the PN-4471 mounting bracket are listed in table 7.2.1", 1);
+        Document intro = page("b", "Introduction to mounting hardware and general safety notes", 2);
+        store.add(List.of(torque, intro));
+        when(dense.similaritySearch(any(SearchRequest.class))).thenReturn(List.of(intro));
+
+        List<Document> results = store.similaritySearch(SearchRequest.builder().query("what is pn-4471?").topK(2).build());
+
+        // each is first in its own list, so they tie and the dense hit keeps its place
+        assertEquals(List.of("b", "a"), results.stream().map(Document::getId).toList());
+        assertEquals(results.get(0).getScore(), results.get(1).getScore());
+    }
+
+    @Test
+    void similaritySearch_ranksDocumentsFoundByBothRetrieversFirst() {
+        store.add(List.of(page("a", "refund window is thirty days", 1), page("b", "refund policy overview", 2)));
+        when(dense.similaritySearch(any(SearchRequest.class)))
+                .thenReturn(List.of(page("c", "returns and exchanges", 3), page("b", "refund policy overview", 2)));
+
+        List<Document> results = store.similaritySearch(SearchRequest.builder().query("refund policy").topK(1).build());
+
+        assertEquals("b", results.get(0).getId());
+        verify(dense).similaritySearch(argThat((SearchRequest r) -> r.getTopK() == 4));
+    }
+
+    @Test
+    void similaritySearch_leavesOutLexicalHitsThatOnlyShareWording() {
+        store.add(List.of(page("a", "Shipping schedule for the spring catalogue", 1),
+                page("b", "The refund window is thirty days from delivery", 2)));
+        when(dense.similaritySearch(any(SearchRequest.class))).thenReturn(List.of(page("b", "refund", 2)));
+
+        List<Document> results = store.similaritySearch(
+                SearchRequest.builder().query("What is the schedule for refunds?").topK(2).build());
+
+        assertEquals(List.of("b"), results.stream().map(Document::getId).toList());
+    }
+
+    @Test
+    void delete_byFilterRemovesMatchingPagesFromTheLexicalIndex() {
+        store.add(List.of(page("a", "PN-4471 bracket", 1), page("b", "PN-4471 housing", 2)));
+        when(dense.similaritySearch(any(SearchRequest.class))).thenReturn(List.of());
+        var b = new FilterExpressionBuilder();
+
+        store.delete(b.and(b.eq("file_name", "manual.pdf"), b.in("page_number", new ArrayList<Object>(List.of(1)))).build());
+
+        List<Document> results = store.similaritySearch(SearchRequest.builder().query("PN-4471").topK(3).build());
+        assertEquals(List.of("b"), results.stream().map(Document::getId).toList());
+    }
+
+    @Test
+    void tokenize_keepsIdentifiersWholeAndIndexesTheirParts() {
+        assertEquals(List.of("pn-4471", "pn", "4471", "bracket"), LexicalIndex.tokenize("PN-4471 bracket"));
+    }
+
+    @Test
+    void tokenize_dropsStopWords() {
+        assertEquals(List.of("torque", "bracket"), LexicalIndex.tokenize("What is the torque for the bracket?"));
+    }
+}
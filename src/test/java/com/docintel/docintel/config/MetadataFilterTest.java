@@ -0,0 +1,46 @@
+package com.docintel.docintel.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+import org.springframework.ai.vectorstore.filter.FilterExpressionTextParser;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetadataFilterTest {
+
+    private final FilterExpressionBuilder b = new FilterExpressionBuilder();
+    private final Document page = new Document("text", Map.of(
+            "document_group", "reports", "file_name", "q2.pdf", "page_number", 7, "tags", List.of("finance", "q2")));
+
+    @Test
+    void matching_comparesNumbersByValueAndCombinesConditions() {
+        Predicate<Document> scoped = MetadataFilter.matching(b.and(
+                b.eq("document_group", "reports"),
+                b.and(b.in("file_name", "q1.pdf", "q2.pdf"), b.gte("page_number", 7L))).build());
+
+        assertTrue(scoped.test(page));
+        assertFalse(MetadataFilter.matching(b.lt("page_number", 7.0).build()).test(page));
+        assertFalse(MetadataFilter.matching(b.not(b.eq("file_name", "q2.pdf")).build()).test(page));
+    }
+
+    @Test
+    void matching_missingKeysMatchOnlyNegatedConditions() {
+        assertFalse(MetadataFilter.matching(b.eq("section", "intro").build()).test(page));
+        assertFalse(MetadataFilter.matching(b.lt("chapter", 3).build()).test(page));
+        assertTrue(MetadataFilter.matching(b.ne("section", "intro").build()).test(page));
+        assertTrue(MetadataFilter.matching(b.nin("section", "intro", "outro").build()).test(page));
+    }
+
+    @Test
+    void matching_listValuesMatchOnAnyElementAndParsedKeysLoseTheirQuotes() {
+        assertTrue(MetadataFilter.matching(b.eq("tags", "q2").build()).test(page));
+        assertTrue(MetadataFilter.matching(
+                new FilterExpressionTextParser().parse("'file_name' == 'q2.pdf' && page_number > 6")).test(page));
+        assertTrue(MetadataFilter.matching(null).test(page));
+    }
+}
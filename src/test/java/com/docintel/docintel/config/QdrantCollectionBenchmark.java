@@ -0,0 +1,190 @@
+package com.docintel.docintel.config;
+
+import io.qdrant.client.QdrantClient;
+import io.qdrant.client.QdrantGrpcClient;
+import io.qdrant.client.grpc.Collections.CollectionInfo;
+import io.qdrant.client.grpc.Collections.CollectionStatus;
+import io.qdrant.client.grpc.Points.PointStruct;
+import io.qdrant.client.grpc.Points.QuantizationSearchParams;
+import io.qdrant.client.grpc.Points.ScoredPoint;
+import io.qdrant.client.grpc.Points.SearchParams;
+import io.qdrant.client.grpc.Points.SearchPoints;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static io.qdrant.client.PointIdFactory.id;
+import static io.qdrant.client.VectorsFactory.vectors;
+
+/**
+ * Loads the same synthetic corpus into one collection per storage profile and reports recall@k against exact
+ * search, search latency and an estimate of the vector RAM each profile needs. The estimate is computed from the
+ * settings, not measured on the server. Needs a Qdrant it may create and drop collections on: run with
+ * {@code QDRANT_BENCHMARK_HOST=localhost gradle qdrantBenchmark}. Corpus size and query count come from
+ * {@code QDRANT_BENCHMARK_POINTS} and {@code QDRANT_BENCHMARK_QUERIES}; a collection that is not indexed within
+ * {@code QDRANT_BENCHMARK_INDEX_TIMEOUT} seconds fails the run.
+ */
+@Tag("benchmark")
+@EnabledIfEnvironmentVariable(named = "QDRANT_BENCHMARK_HOST", matches = ".+")
+class QdrantCollectionBenchmark {
+
+    private static final int DIMENSIONS = 768;
+    private static final int K = 10;
+    private static final int CLUSTERS = 200;
+    private static final Duration INDEX_TIMEOUT = Duration.ofSeconds(
+            Long.parseLong(System.getenv().getOrDefault("QDRANT_BENCHMARK_INDEX_TIMEOUT", "600")));
+
+    /**
+     * Low indexing threshold so a benchmark-sized corpus is indexed at all.
+     */
+    private static Map<String, QdrantCollectionSettings> profiles() {
+        Map<String, QdrantCollectionSettings> profiles = new LinkedHashMap<>();
+        profiles.put("full-precision", settings(QdrantCollectionSettings.Quantization.NONE, 1.0, false));
+        profiles.put("scalar", settings(QdrantCollectionSettings.Quantization.SCALAR, 1.0, false));
+        profiles.put("scalar-on-disk", settings(QdrantCollectionSettings.Quantization.SCALAR, 2.0, true));
+        profiles.put("binary-on-disk", settings(QdrantCollectionSettings.Quantization.BINARY, 3.0, true));
+        return profiles;
+    }
+
+    private static QdrantCollectionSettings settings(QdrantCollectionSettings.Quantization quantization,
+                                                     double oversampling, boolean onDisk) {
+        return new QdrantCollectionSettings(quantization, true, true, oversampling, onDisk, onDisk,
+                16, 100, false, 128, 1_000, 0);
+    }
+
+    @Test
+    void reportRecallAndLatencyPerProfile() throws Exception {
+        int points = Integer.parseInt(System.getenv().getOrDefault("QDRANT_BENCHMARK_POINTS", "20000"));
+        int queries = Integer.parseInt(System.getenv().getOrDefault("QDRANT_BENCHMARK_QUERIES", "200"));
+        Random random = new Random(42);
+        float[][] centroids = randomVectors(random, CLUSTERS, null);
+        float[][] corpus = randomVectors(random, points, centroids);
+        float[][] questions = randomVectors(random, queries, centroids);
+
+        try (QdrantClient client = new QdrantClient(QdrantGrpcClient.newBuilder(
+                System.getenv("QDRANT_BENCHMARK_HOST"),
+                Integer.parseInt(System.getenv().getOrDefault("QDRANT_BENCHMARK_PORT", "6334")),
+                Boolean.parseBoolean(System.getenv().getOrDefault("QDRANT_BENCHMARK_TLS", "false"))).build())) {
+            System.out.printf("%d points, %d queries, %d dimensions, recall@%d against exact search%n",
+                    points, queries, DIMENSIONS, K);
+            System.out.printf("%-16s %9s %9s %9s %14s%n", "profile", "recall", "p50 ms", "p95 ms", "est. RAM MB");
+            for (Map.Entry<String, QdrantCollectionSettings> profile : profiles().entrySet()) {
+                String collection = "benchmark_" + profile.getKey().replace('-', '_');
+                try {
+                    QdrantCollectionInitializer.ensureCollection(client, collection, DIMENSIONS, profile.getValue());
+                    load(client, collection, corpus);
+                    report(client, collection, profile.getKey(), profile.getValue(), questions, points);
+                } finally {
+                    client.deleteCollectionAsync(collection).get();
+                }
+            }
+        }
+    }
+
+    private static void load(QdrantClient client, String collection, float[][] corpus) throws Exception {
+        for (int start = 0; start < corpus.length; start += 500) {
+            List<PointStruct> batch = new ArrayList<>();
+            for (int i = start; i < Math.min(start + 500, corpus.length); i++) {
+                batch.add(PointStruct.newBuilder().setId(id(i)).setVectors(vectors(corpus[i])).build());
+            }
+            client.upsertAsync(collection, batch).get();
+        }
+        // recall is only meaningful once the optimizers have built the index and quantized the vectors
+        long deadline = System.nanoTime() + INDEX_TIMEOUT.toNanos();
+        CollectionInfo info = client.getCollectionInfoAsync(collection).get();
+        while (info.getStatus() != CollectionStatus.Green || info.getIndexedVectorsCount() < corpus.length / 2) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException(collection + " was not indexed within " + INDEX_TIMEOUT
+                        + ": status " + info.getStatus() + ", " + info.getIndexedVectorsCount() + " of "
+                        + corpus.length + " vectors indexed");
+            }
+            Thread.sleep(500);
+            info = client.getCollectionInfoAsync(collection).get();
+        }
+    }
+
+    private static void report(QdrantClient client, String collection, String name,
+                               QdrantCollectionSettings settings, float[][] questions, int points) throws Exception {
+        SearchParams exact = SearchParams.newBuilder().setExact(true)
+                .setQuantization(QuantizationSearchParams.newBuilder().setIgnore(true)).build();
+        // quantized profiles are searched the way the two-stage strategy searches them
+        SearchParams params = settings.searchParams(
+                settings.quantization() != QdrantCollectionSettings.Quantization.NONE);
+        double recall = 0;
+        long[] nanos = new long[questions.length];
+        for (int q = 0; q < questions.length; q++) {
+            Set<Long> truth = ids(search(client, collection, questions[q], exact));
+            long start = System.nanoTime();
+            Set<Long> found = ids(search(client, collection, questions[q], params));
+            nanos[q] = System.nanoTime() - start;
+            found.retainAll(truth);
+            recall += (double) found.size() / K;
+        }
+        Arrays.sort(nanos);
+        System.out.printf("%-16s %9.3f %9.2f %9.2f %14.1f%n", name, recall / questions.length,
+                nanos[nanos.length / 2] / 1e6, nanos[(int) (nanos.length * 0.95)] / 1e6,
+                vectorRamBytes(settings, points) / 1e6);
+    }
+
+    /**
+     * Estimated vector bytes that have to stay resident: originals unless they are on disk, plus the quantized
+     * copies. It leaves out the HNSW graph, payloads and whatever the page cache keeps of on-disk vectors.
+     */
+    private static long vectorRamBytes(QdrantCollectionSettings settings, long points) {
+        long original = settings.vectorsOnDisk() ? 0 : points * DIMENSIONS * Float.BYTES;
+        long quantized = switch (settings.quantization()) {
+            case NONE -> 0;
+            case SCALAR -> points * DIMENSIONS;
+            case BINARY -> points * DIMENSIONS / 8;
+        };
+        return original + quantized;
+    }
+
+    private static List<ScoredPoint> search(QdrantClient client, String collection, float[] vector,
+                                            SearchParams params) throws Exception {
+        SearchPoints.Builder search = SearchPoints.newBuilder().setCollectionName(collection).setLimit(K);
+        for (float v : vector) {
+            search.addVector(v);
+        }
+        if (params != null) {
+            search.setParams(params);
+        }
+        return client.searchAsync(search.build()).get();
+    }
+
+    private static Set<Long> ids(List<ScoredPoint> points) {
+        return points.stream().map(p -> p.getId().getNum()).collect(Collectors.toCollection(HashSet::new));
+    }
+
+    /**
+     * Unit vectors, scattered around the given centroids when there are any, as embeddings of related text are.
+     */
+    private static float[][] randomVectors(Random random, int count, float[][] centroids) {
+        float[][] vectors = new float[count][DIMENSIONS];
+        for (int i = 0; i < count; i++) {
+            float[] centroid = centroids != null ? centroids[random.nextInt(centroids.length)] : null;
+            double norm = 0;
+            for (int d = 0; d < DIMENSIONS; d++) {
+                float v = (float) random.nextGaussian() * (centroid != null ? 0.03f : 1f);
+                vectors[i][d] = centroid != null ? centroid[d] + v : v;
+                norm += vectors[i][d] * vectors[i][d];
+            }
+            float scale = (float) (1 / Math.sqrt(norm));
+            for (int d = 0; d < DIMENSIONS; d++) {
+                vectors[i][d] *= scale;
+            }
+        }
+        return vectors;
+    }
+}
@@ -0,0 +1,94 @@
+package com.docintel.docintel.config;
+
+import io.qdrant.client.grpc.Collections.CollectionConfig;
+import io.qdrant.client.grpc.Collections.CollectionParams;
+import io.qdrant.client.grpc.Collections.CreateCollection;
+import io.qdrant.client.grpc.Collections.UpdateCollection;
+import io.qdrant.client.grpc.Points.SearchParams;
+import io.qdrant.client.grpc.Points.SearchPoints;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QdrantCollectionInitializerTest {
+
+    private static final QdrantCollectionSettings SCALAR_ON_DISK = new QdrantCollectionSettings(
+            QdrantCollectionSettings.Quantization.SCALAR, true, true, 2.0, true, true, 16, 128, false, 96, 20_000, 0);
+
+    /** The config Qdrant reports back for the collection {@code created} describes. */
+    private static CollectionConfig configOf(CreateCollection created) {
+        CollectionConfig.Builder config = CollectionConfig.newBuilder()
+                .setParams(CollectionParams.newBuilder()
+                        .setVectorsConfig(created.getVectorsConfig())
+                        .setOnDiskPayload(created.getOnDiskPayload()))
+                .setHnswConfig(created.getHnswConfig().toBuilder().setFullScanThreshold(10_000))
+                .setOptimizerConfig(created.getOptimizersConfig().toBuilder().setDeletedThreshold(0.2));
+        if (created.hasQuantizationConfig()) {
+            config.setQuantizationConfig(created.getQuantizationConfig());
+        }
+        return config.build();
+    }
+
+    @Test
+    void create_appliesQuantizationOnDiskVectorsAndHnswParameters() {
+        CreateCollection create = QdrantCollectionInitializer.create("docs", 768, SCALAR_ON_DISK);
+
+        assertEquals(768, create.getVectorsConfig().getParams().getSize());
+        assertTrue(create.getVectorsConfig().getParams().getOnDisk());
+        assertTrue(create.getQuantizationConfig().hasScalar());
+        assertTrue(create.getQuantizationConfig().getScalar().getAlwaysRam());
+        assertEquals(16, create.getHnswConfig().getM());
+        assertEquals(128, create.getHnswConfig().getEfConstruct());
+        assertEquals(20_000, create.getOptimizersConfig().getIndexingThreshold());
+        assertFalse(create.getOptimizersConfig().hasMemmapThreshold());
+    }
+
+    @Test
+    void update_isNullWhenTheCollectionAlreadyMatches() {
+        CollectionConfig existing = configOf(QdrantCollectionInitializer.create("docs", 768, SCALAR_ON_DISK));
+
+        assertNull(QdrantCollectionInitializer.update("docs", existing, SCALAR_ON_DISK));
+    }
+
+    @Test
+    void update_sendsOnlyWhatChanged() {
+        CollectionConfig existing = configOf(
+                QdrantCollectionInitializer.create("docs", 768, QdrantCollectionSettings.DEFAULTS));
+
+        UpdateCollection update = QdrantCollectionInitializer.update("docs", existing, SCALAR_ON_DISK);
+
+        assertTrue(update.getQuantizationConfig().hasScalar());
+        assertTrue(update.getVectorsConfig().getParams().getOnDisk());
+        assertEquals(16, update.getHnswConfig().getM());
+
+        UpdateCollection disable = QdrantCollectionInitializer.update("docs", configOf(
+                QdrantCollectionInitializer.create("docs", 768, SCALAR_ON_DISK)), new QdrantCollectionSettings(
+                QdrantCollectionSettings.Quantization.NONE, true, true, 2.0, true, true, 16, 128, false, 96, 20_000, 0));
+        assertTrue(disable.getQuantizationConfig().hasDisabled());
+        assertFalse(disable.hasVectorsConfig());
+        assertFalse(disable.hasHnswConfig());
+    }
+
+    @Test
+    void searchParams_rescoreOversampledQuantizedCandidatesOnlyInTwoStageSearches() {
+        SearchParams params = SCALAR_ON_DISK.searchParams(true);
+
+        assertEquals(96, params.getHnswEf());
+        assertTrue(params.getQuantization().getRescore());
+        assertEquals(2.0, params.getQuantization().getOversampling());
+        assertTrue(SCALAR_ON_DISK.searchParams(false).getQuantization().getIgnore());
+        assertEquals(96, SCALAR_ON_DISK.searchParams(false).getHnswEf());
+        assertNull(QdrantCollectionSettings.DEFAULTS.searchParams(true));
+    }
+
+    @Test
+    void interceptor_keepsParametersASearchAlreadyCarries() {
+        SearchParamsInterceptor interceptor = new SearchParamsInterceptor(SCALAR_ON_DISK.searchParams(true));
+        SearchPoints exact = SearchPoints.newBuilder().setCollectionName("docs")
+                .setParams(SearchParams.newBuilder().setExact(true)).build();
+
+        assertSame(exact, interceptor.withDefaults(exact));
+        assertEquals(96, interceptor.withDefaults(SearchPoints.newBuilder().setCollectionName("docs").build())
+                .getParams().getHnswEf());
+    }
+}
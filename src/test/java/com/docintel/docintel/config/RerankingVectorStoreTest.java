@@ -0,0 +1,95 @@
+package com.docintel.docintel.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class RerankingVectorStoreTest {
+
+    private final VectorStore dense = mock(VectorStore.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ThreadPoolExecutor workers = RerankingVectorStore.workerPool(2, 8);
+
+    @AfterEach
+    void tearDown() {
+        workers.shutdownNow();
+    }
+
+    private static List<Document> candidates(int count) {
+        return IntStream.range(0, count).mapToObj(i -> new Document("d" + i, "passage " + i, Map.of())).toList();
+    }
+
+    private RerankingVectorStore store(Reranker reranker, Duration budget) {
+        return new RerankingVectorStore(dense, reranker, 30, 4, workers, budget, registry);
+    }
+
+    @Test
+    void similaritySearch_overFetchesAndKeepsTheBestScoredCandidatesInBatches() {
+        when(dense.similaritySearch(any(SearchRequest.class))).thenReturn(candidates(10));
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        // later passages score higher, reversing the dense order
+        Reranker reranker = (query, passages) -> {
+            batchSizes.add(passages.size());
+            float[] scores = new float[passages.size()];
+            for (int i = 0; i < scores.length; i++) {
+                scores[i] = Float.parseFloat(passages.get(i).substring("passage ".length()));
+            }
+            return scores;
+        };
+
+        List<Document> results = store(reranker, Duration.ofSeconds(5))
+                .similaritySearch(SearchRequest.builder().query("q").topK(3).build());
+
+        assertEquals(List.of("d9", "d8", "d7"), results.stream().map(Document::getId).toList());
+        assertEquals(List.of(2, 4, 4), batchSizes.stream().sorted().toList());
+        verify(dense).similaritySearch(argThat((SearchRequest r) -> r.getTopK() == 30));
+        assertEquals(1.0, registry.counter("docintel.retrieval.rerank", "outcome", "reranked").count());
+    }
+
+    @Test
+    void similaritySearch_keepsTheRetrievalOrderWhenTheBudgetIsExceeded() {
+        when(dense.similaritySearch(any(SearchRequest.class))).thenReturn(candidates(5));
+        Reranker slow = (query, passages) -> {
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new float[passages.size()];
+        };
+
+        List<Document> results = store(slow, Duration.ofMillis(20))
+                .similaritySearch(SearchRequest.builder().query("q").topK(2).build());
+
+        assertEquals(List.of("d0", "d1"), results.stream().map(Document::getId).toList());
+        assertEquals(1.0, registry.counter("docintel.retrieval.rerank", "outcome", "timeout").count());
+    }
+
+    @Test
+    void similaritySearch_keepsTheRetrievalOrderWhenScoringFails() {
+        when(dense.similaritySearch(any(SearchRequest.class))).thenReturn(candidates(3));
+        Reranker broken = (query, passages) -> {
+            throw new IllegalStateException("cross-encoder inference failed");
+        };
+
+        List<Document> results = store(broken, Duration.ofSeconds(5))
+                .similaritySearch(SearchRequest.builder().query("q").topK(2).build());
+
+        assertEquals(List.of("d0", "d1"), results.stream().map(Document::getId).toList());
+        assertEquals(1.0, registry.counter("docintel.retrieval.rerank", "outcome", "failed").count());
+    }
+}
@@ -1,5 +1,9 @@
 package com.docintel.docintel.controller;
 
+import com.docintel.docintel.service.ChatStreamEvent;
+import com.docintel.docintel.service.DocumentScope;
+import com.docintel.docintel.service.EvaluationRecord;
+import com.docintel.docintel.service.EvaluationService;
 import com.docintel.docintel.service.GenAiChatService;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -9,9 +13,18 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import reactor.core.publisher.Flux;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -28,6 +41,9 @@ class GenAiChatControllerTest {
     @Autowired
     private ChatMemory chatMemory;
 
+    @Autowired
+    private EvaluationService evaluationService;
+
     @TestConfiguration
     static class MockConfig {
 
@@ -40,11 +56,16 @@ class GenAiChatControllerTest {
         ChatMemory chatMemory() {
             return Mockito.mock(ChatMemory.class);
         }
+
+        @Bean
+        EvaluationService evaluationService() {
+            return Mockito.mock(EvaluationService.class);
+        }
     }
 
     @Test
     void testChatEndpoint_ReturnsResponse() throws Exception {
-        Mockito.when(chatService.getRelevantInfoFromRag("hello", "5z65c1d8"))
+        Mockito.when(chatService.getRelevantInfoFromRag("hello", "5z65c1d8", DocumentScope.ALL))
                 .thenReturn("Mock response");
 
         mockMvc.perform(get("/ai/chat")
@@ -54,4 +75,81 @@ class GenAiChatControllerTest {
                 .andExpect(content().string(containsString("Response:Mock response")))
                 .andExpect(content().string(containsString("[Conversation Id]: 5z65c1d8")));
     }
+
+    @Test
+    void testChatEndpoint_ScopesRetrievalToDocuments() throws Exception {
+        DocumentScope scope = new DocumentScope("acme", List.of("contract.pdf", "annex.pdf"));
+        Mockito.when(chatService.getRelevantInfoFromRag("hello", "5z65c1d8", scope))
+                .thenReturn("Scoped response");
+
+        mockMvc.perform(get("/ai/chat")
+                        .param("message", "hello")
+                        .param("conversationId", "5z65c1d8")
+                        .param("documentGroup", "acme")
+                        .param("fileName", "contract.pdf", "annex.pdf"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("Response:Scoped response")));
+    }
+
+    @Test
+    void testChatEndpoint_RejectsInvalidDocumentGroup() throws Exception {
+        mockMvc.perform(get("/ai/chat")
+                        .param("message", "hello")
+                        .param("documentGroup", "acme corp"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testChatStreamEndpoint_StreamsTokensThenEvaluation() throws Exception {
+        Mockito.when(chatService.streamRelevantInfoFromRag("hello", "5z65c1d8", DocumentScope.ALL))
+                .thenReturn(Flux.just(
+                        ChatStreamEvent.token("Mock "),
+                        ChatStreamEvent.token("response"),
+                        ChatStreamEvent.evaluation(Map.of("pass", true))));
+
+        MvcResult result = mockMvc.perform(get("/ai/chat/stream")
+                        .param("message", "hello")
+                        .param("conversationId", "5z65c1d8"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(content().string(containsString("event:token\ndata:Mock \n")))
+                .andExpect(content().string(containsString("event:evaluation\ndata:{\"pass\":true}")));
+    }
+
+    @Test
+    void testChatEndpoint_DefersEvaluation() throws Exception {
+        Mockito.when(chatService.getRelevantInfoFromRagDeferringEvaluation("hello", "5z65c1d8", DocumentScope.ALL, null))
+                .thenReturn("Mock response\n\nEvaluation: PENDING\n[Evaluation Id]: eval-1");
+        Mockito.when(evaluationService.find("eval-1"))
+                .thenReturn(Optional.of(new EvaluationRecord("eval-1", "5z65c1d8")));
+
+        mockMvc.perform(get("/ai/chat")
+                        .param("message", "hello")
+                        .param("conversationId", "5z65c1d8")
+                        .param("deferEvaluation", "true"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("[Evaluation Id]: eval-1")));
+
+        mockMvc.perform(get("/ai/evaluations/eval-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("PENDING"));
+        mockMvc.perform(get("/ai/evaluations/missing"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testChatEndpoint_RejectsCallbackToUnlistedHost() throws Exception {
+        Mockito.when(evaluationService.isCallbackAllowed(URI.create("http://169.254.169.254/latest")))
+                .thenReturn(false);
+
+        mockMvc.perform(get("/ai/chat")
+                        .param("message", "hello")
+                        .param("deferEvaluation", "true")
+                        .param("callbackUrl", "http://169.254.169.254/latest"))
+                .andExpect(status().isBadRequest());
+    }
 }
@@ -1,23 +1,31 @@
 package com.docintel.docintel.controller;
 
-import com.docintel.docintel.service.GenAiIMultiModalIngestionService;
+import com.docintel.docintel.service.IngestionBatch;
+import com.docintel.docintel.service.IngestionJob;
+import com.docintel.docintel.service.IngestionJobService;
+import com.docintel.docintel.service.IngestionQueueFullException;
 import com.docintel.docintel.service.PdfService;
+import com.docintel.docintel.service.SpooledUpload;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.boot.test.context.TestConfiguration;
 
-import java.io.File;
-import java.nio.file.Files;
+import java.util.List;
+import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -32,7 +40,7 @@ class IngestControllerTest {
     private PdfService pdfService;
 
     @Autowired
-    private GenAiIMultiModalIngestionService ingestService;
+    private IngestionJobService jobService;
 
     @TestConfiguration
     static class MockConfig {
@@ -41,36 +49,144 @@ class IngestControllerTest {
             return mock(PdfService.class);
         }
         @Bean
-        GenAiIMultiModalIngestionService genAiIMultiModalIngestionService() {
-            return mock(GenAiIMultiModalIngestionService.class);
+        IngestionJobService ingestionJobService() {
+            return mock(IngestionJobService.class);
         }
     }
 
-    @Test
-    void ingestDirectToGenAi_returnsJsonBody() throws Exception {
-        MockMultipartFile multipartFile = new MockMultipartFile(
-                "file",
-                "test.pdf",
-                "application/pdf",
-                "dummy-pdf-bytes".getBytes()
-        );
+    private final MockMultipartFile multipartFile = new MockMultipartFile(
+            "file",
+            "test.pdf",
+            "application/pdf",
+            "dummy-pdf-bytes".getBytes()
+    );
+
+    @BeforeEach
+    void resetMocks() {
+        reset(pdfService, jobService);
+    }
 
-        File tmp = Files.createTempFile("test-upload-", ".pdf").toFile();
-        tmp.deleteOnExit();
+    @Test
+    void ingestDirectToGenAi_acceptsJob() throws Exception {
+        SpooledUpload upload = mock(SpooledUpload.class);
+        IngestionJob job = new IngestionJob("job-1", "test.pdf");
 
-        when(pdfService.saveToTemp(any(), anyString())).thenReturn(tmp);
-        when(ingestService.extractFromPdf(tmp)).thenReturn("{\"status\":\"ok\",\"pages\":5}");
+        when(pdfService.saveToTemp(any(), anyString())).thenReturn(upload);
+        when(jobService.submit(upload, "test.pdf", false, "default")).thenReturn(job);
 
         // Act & Assert
         mockMvc.perform(multipart("/ingest/pdf/genai")
                         .file(multipartFile)
                         .contentType(MediaType.MULTIPART_FORM_DATA))
-                .andExpect(status().isOk())
-                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
-                .andExpect(content().string("{\"status\":\"ok\",\"pages\":5}"));
+                .andExpect(status().isAccepted())
+                .andExpect(header().string(HttpHeaders.LOCATION, "/ingest/jobs/job-1"))
+                .andExpect(jsonPath("$.jobId").value("job-1"))
+                .andExpect(jsonPath("$.stage").value("QUEUED"));
 
         // Verify interactions
         verify(pdfService, times(1)).saveToTemp(any(), anyString());
-        verify(ingestService, times(1)).extractFromPdf(tmp);
+        verify(jobService, times(1)).submit(upload, "test.pdf", false, "default");
+    }
+
+    @Test
+    void ingestDirectToGenAi_passesReingestFlag() throws Exception {
+        SpooledUpload upload = mock(SpooledUpload.class);
+        IngestionJob job = new IngestionJob("job-2", "test.pdf");
+
+        when(pdfService.saveToTemp(any(), anyString())).thenReturn(upload);
+        when(jobService.submit(upload, "test.pdf", true, "default")).thenReturn(job);
+
+        mockMvc.perform(multipart("/ingest/pdf/genai")
+                        .file(multipartFile)
+                        .param("reingest", "true")
+                        .contentType(MediaType.MULTIPART_FORM_DATA))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.jobId").value("job-2"));
+
+        verify(jobService, times(1)).submit(upload, "test.pdf", true, "default");
+    }
+
+    @Test
+    void ingestDirectToGenAi_rejectsInvalidDocumentGroup() throws Exception {
+        mockMvc.perform(multipart("/ingest/pdf/genai")
+                        .file(multipartFile)
+                        .param("documentGroup", "../acme")
+                        .contentType(MediaType.MULTIPART_FORM_DATA))
+                .andExpect(status().isBadRequest());
+
+        verify(pdfService, never()).saveToTemp(any(), anyString());
+    }
+
+    @Test
+    void ingestDirectToGenAi_pushesBackWhenQueueIsFull() throws Exception {
+        SpooledUpload upload = mock(SpooledUpload.class);
+
+        when(pdfService.saveToTemp(any(), anyString())).thenReturn(upload);
+        when(jobService.submit(upload, "test.pdf", false, "default")).thenThrow(new IngestionQueueFullException(32));
+
+        mockMvc.perform(multipart("/ingest/pdf/genai")
+                        .file(multipartFile)
+                        .contentType(MediaType.MULTIPART_FORM_DATA))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "30"));
+    }
+
+    @Test
+    void ingestDirectToGenAi_refusesBeforeSpoolingWhenQueueIsFull() throws Exception {
+        doThrow(new IngestionQueueFullException(32)).when(jobService).checkCapacity(false);
+
+        mockMvc.perform(multipart("/ingest/pdf/genai")
+                        .file(multipartFile)
+                        .contentType(MediaType.MULTIPART_FORM_DATA))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "30"));
+
+        verify(pdfService, never()).saveToTemp(any(), anyString());
+    }
+
+    @Test
+    void ingestBulk_returnsPerFileManifest() throws Exception {
+        SpooledUpload upload = mock(SpooledUpload.class);
+        List<IngestionBatch.SkippedFile> skipped = List.of(new IngestionBatch.SkippedFile("notes.txt", "not a PDF"));
+        IngestionBatch batch = new IngestionBatch("batch-1", List.of(new IngestionJob("job-1", "a.pdf")), skipped);
+
+        when(pdfService.saveAllToTemp(any())).thenReturn(new PdfService.SpooledFiles(List.of(upload), skipped));
+        when(jobService.submitBatch(List.of(upload), skipped, false, "default")).thenReturn(batch);
+
+        mockMvc.perform(multipart("/ingest/pdf/genai/bulk")
+                        .file(new MockMultipartFile("files", "a.pdf", "application/pdf", new byte[1]))
+                        .file(new MockMultipartFile("files", "notes.txt", "text/plain", new byte[1]))
+                        .contentType(MediaType.MULTIPART_FORM_DATA))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string(HttpHeaders.LOCATION, "/ingest/batches/batch-1"))
+                .andExpect(jsonPath("$.files[0].id").value("job-1"))
+                .andExpect(jsonPath("$.files[0].stage").value("QUEUED"))
+                .andExpect(jsonPath("$.skipped[0].fileName").value("notes.txt"))
+                .andExpect(jsonPath("$.counts.QUEUED").value(1));
+    }
+
+    @Test
+    void ingestBulk_rejectsRequestWithoutPdfs() throws Exception {
+        when(pdfService.saveAllToTemp(any())).thenReturn(new PdfService.SpooledFiles(List.of(), List.of()));
+
+        mockMvc.perform(multipart("/ingest/pdf/genai/bulk")
+                        .file(new MockMultipartFile("files", "notes.txt", "text/plain", new byte[1]))
+                        .contentType(MediaType.MULTIPART_FORM_DATA))
+                .andExpect(status().isBadRequest());
+        verify(jobService, never()).submitBatch(any(), any(), anyBoolean(), any());
+    }
+
+    @Test
+    void jobStatus_returnsProgressOrNotFound() throws Exception {
+        when(jobService.find("job-1")).thenReturn(Optional.of(new IngestionJob("job-1", "test.pdf")));
+        when(jobService.find("missing")).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/ingest/jobs/job-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.fileName").value("test.pdf"))
+                .andExpect(jsonPath("$.stages[0].stage").value("QUEUED"));
+
+        mockMvc.perform(get("/ingest/jobs/missing"))
+                .andExpect(status().isNotFound());
     }
 }
@@ -0,0 +1,91 @@
+package com.docintel.docintel.evaluator;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.evaluation.EvaluationRequest;
+import org.springframework.ai.evaluation.EvaluationResponse;
+import org.springframework.ai.evaluation.Evaluator;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class GroundingPreCheckTest {
+
+    private static final List<Document> CONTEXT = List.of(new Document("""
+            Page 4
+            Text:
+            The supplier shall deliver the goods within thirty days of the purchase order.
+            Late deliveries incur a penalty of two percent per week."""));
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final Evaluator judge = mock(Evaluator.class);
+
+    private Evaluator gated(double auditRate) {
+        when(judge.evaluate(any())).thenReturn(new EvaluationResponse(true, "judge", Map.of()));
+        return new GroundingPreCheck(registry, true, 0.9, 0.2, 0.6, auditRate).gate(judge);
+    }
+
+    private double outcomes(String outcome) {
+        return registry.get("docintel.evaluation.precheck").tag("outcome", outcome).counter().count();
+    }
+
+    @Test
+    void passesNearVerbatimAnswerWithoutTheJudge() {
+        EvaluationResponse response = gated(0).evaluate(new EvaluationRequest(
+                "When must the supplier deliver the goods?", CONTEXT,
+                "The supplier shall deliver the goods within thirty days of the purchase order.\nReferences: Page 4"));
+
+        assertTrue(response.isPass());
+        assertEquals("local-precheck", response.getMetadata().get("source"));
+        verifyNoInteractions(judge);
+        assertEquals(1, outcomes("local_pass"));
+    }
+
+    @Test
+    void failsUnrelatedAnswerWithoutTheJudge() {
+        EvaluationResponse response = gated(0).evaluate(new EvaluationRequest(
+                "When must the supplier deliver the goods?", CONTEXT,
+                "Quarterly revenue rose sharply because marketing campaigns attracted many new customers."));
+
+        assertFalse(response.isPass());
+        verifyNoInteractions(judge);
+        assertEquals(1, outcomes("local_fail"));
+    }
+
+    @Test
+    void escalatesParaphrasedAnswer() {
+        EvaluationResponse response = gated(0).evaluate(new EvaluationRequest(
+                "When must the supplier deliver the goods?", CONTEXT,
+                "Goods arrive no later than a month after ordering, otherwise the supplier pays a weekly penalty."));
+
+        assertEquals("judge", response.getFeedback());
+        verify(judge).evaluate(any());
+        assertEquals(1, outcomes("escalated"));
+    }
+
+    @Test
+    void escalatesAnswerSayingTheDocumentsDoNotCoverTheQuestion() {
+        EvaluationResponse response = gated(0).evaluate(new EvaluationRequest(
+                "Who signed the purchase order?", CONTEXT,
+                "I could not find this information in the provided documents."));
+
+        assertEquals("judge", response.getFeedback());
+        verify(judge).evaluate(any());
+        assertEquals(1, outcomes("escalated"));
+    }
+
+    @Test
+    void auditsConfidentCasesAtTheSamplingRate() {
+        gated(1.0).evaluate(new EvaluationRequest(
+                "When must the supplier deliver the goods?", CONTEXT,
+                "The supplier shall deliver the goods within thirty days of the purchase order."));
+
+        verify(judge).evaluate(any());
+        assertEquals(1, outcomes("audited"));
+    }
+}
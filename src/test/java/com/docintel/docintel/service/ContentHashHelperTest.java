@@ -0,0 +1,59 @@
+package com.docintel.docintel.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentHashHelperTest {
+
+    private static final String EMPTY_SHA256 = "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
+    private static final String ABC_SHA256 = "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void sha256_matchesKnownDigestsForTextAndFiles() throws Exception {
+        File abc = Files.writeString(tempDir.resolve("abc.txt"), "abc").toFile();
+
+        assertEquals(ABC_SHA256, ContentHashHelper.sha256("abc"));
+        assertEquals(ABC_SHA256, ContentHashHelper.sha256(abc));
+        assertEquals(EMPTY_SHA256, ContentHashHelper.sha256(""));
+    }
+
+    @Test
+    void sha256_ofAFileLargerThanTheBufferEqualsTheHashOfItsText() throws Exception {
+        char[] text = new char[200_000];
+        Arrays.fill(text, 'x');
+        File large = Files.writeString(tempDir.resolve("large.txt"), new String(text)).toFile();
+
+        assertEquals(ContentHashHelper.sha256(new String(text)), ContentHashHelper.sha256(large));
+    }
+
+    @Test
+    void pointId_isStableAndDependsOnEveryPart() {
+        String id = ContentHashHelper.pointId(ABC_SHA256, 3);
+
+        assertEquals(id, ContentHashHelper.pointId(ABC_SHA256, 3));
+        assertEquals(36, id.length());
+        assertNotEquals(id, ContentHashHelper.pointId(ABC_SHA256, 4));
+        assertNotEquals(id, ContentHashHelper.pointId(ABC_SHA256, 3, 0));
+        assertNotEquals(id, ContentHashHelper.pointId(EMPTY_SHA256, 3));
+    }
+
+    @Test
+    void scopedHash_keepsTheContentHashForTheDefaultGroupOnly() {
+        assertEquals(ABC_SHA256, ContentHashHelper.scopedHash(ABC_SHA256, null));
+        assertEquals(ABC_SHA256, ContentHashHelper.scopedHash(ABC_SHA256, DocumentScope.DEFAULT_GROUP));
+        String acme = ContentHashHelper.scopedHash(ABC_SHA256, "acme");
+        assertNotEquals(ABC_SHA256, acme);
+        assertEquals(acme, ContentHashHelper.scopedHash(ABC_SHA256, "acme"));
+        assertNotEquals(acme, ContentHashHelper.scopedHash(ABC_SHA256, "globex"));
+    }
+}
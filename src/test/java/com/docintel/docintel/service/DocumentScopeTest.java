@@ -0,0 +1,39 @@
+package com.docintel.docintel.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DocumentScopeTest {
+
+    private final FilterExpressionBuilder b = new FilterExpressionBuilder();
+
+    @Test
+    void toFilterExpression_matchesTheGroupAndAnyOfItsFiles() {
+        DocumentScope scope = new DocumentScope("acme", List.of("contract.pdf", "annex.pdf"));
+
+        assertEquals(b.and(b.eq("document_group", "acme"), b.in("file_name", List.of("contract.pdf", "annex.pdf")))
+                .build(), scope.toFilterExpression());
+    }
+
+    @Test
+    void toFilterExpression_isNullForAnEmptyScope() {
+        DocumentScope scope = new DocumentScope(" ", Arrays.asList("", null));
+
+        assertTrue(scope.isEmpty());
+        assertNull(scope.toFilterExpression());
+        assertEquals(b.eq("file_name", "contract.pdf").build(),
+                new DocumentScope(null, List.of("contract.pdf")).toFilterExpression());
+    }
+
+    @Test
+    void rejectsGroupsOutsideTheSafeAlphabet() {
+        assertThrows(IllegalArgumentException.class, () -> new DocumentScope("../acme", List.of()));
+        assertFalse(DocumentScope.isValidGroup("x".repeat(65)));
+        assertTrue(DocumentScope.isValidGroup(DocumentScope.DEFAULT_GROUP));
+    }
+}
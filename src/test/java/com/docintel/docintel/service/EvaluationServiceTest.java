@@ -0,0 +1,66 @@
+package com.docintel.docintel.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.evaluation.EvaluationResponse;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class EvaluationServiceTest {
+
+    private final ResponseHelper responseHelper = mock(ResponseHelper.class);
+
+    @Test
+    void submit_evaluatesOffThreadAndRejectsWhenQueueIsFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        EvaluationResponse pass = new EvaluationResponse(true, "", Map.of());
+        when(responseHelper.getCustomEvaluation(anyString(), anyList(), anyString())).thenAnswer(i -> {
+            started.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return pass;
+        });
+        EvaluationService service = new EvaluationService(responseHelper, 1, 1, Duration.ofHours(1), Set.of());
+        AtomicReference<EvaluationResponse> delivered = new AtomicReference<>();
+        CountDownLatch finished = new CountDownLatch(2);
+
+        EvaluationRecord running = service.submit("c", "q", List.of(), "a", null, e -> {
+            delivered.set(e);
+            finished.countDown();
+        });
+        // the single worker has taken the first record off the queue once the judge is called
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        EvaluationRecord queued = service.submit("c", "q", List.of(), "a", null, e -> finished.countDown());
+        EvaluationRecord rejected = service.submit("c", "q", List.of(), "a", null, e -> { });
+
+        assertEquals(EvaluationRecord.Status.PENDING, running.getStatus());
+        assertEquals(EvaluationRecord.Status.REJECTED, rejected.getStatus());
+
+        release.countDown();
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertEquals(EvaluationRecord.Status.COMPLETED, running.getStatus());
+        assertEquals(EvaluationRecord.Status.COMPLETED, queued.getStatus());
+        assertSame(pass, delivered.get());
+        assertSame(running, service.find(running.getId()).orElseThrow());
+    }
+
+    @Test
+    void isCallbackAllowed_onlyForListedHttpHosts() {
+        EvaluationService service = new EvaluationService(responseHelper, 1, 1, Duration.ofHours(1),
+                Set.of("hooks.example.com"));
+
+        assertTrue(service.isCallbackAllowed(URI.create("https://hooks.example.com/eval")));
+        assertFalse(service.isCallbackAllowed(URI.create("http://169.254.169.254/latest")));
+        assertFalse(service.isCallbackAllowed(URI.create("file://hooks.example.com/etc/passwd")));
+    }
+}
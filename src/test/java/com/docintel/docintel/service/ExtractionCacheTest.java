@@ -0,0 +1,119 @@
+package com.docintel.docintel.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalInt;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExtractionCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static PageExtraction page(int pageNumber, String text) {
+        PageExtraction page = new PageExtraction();
+        page.pageNumber = pageNumber;
+        page.setTextContent(text);
+        return page;
+    }
+
+    private static List<PageExtraction> read(ExtractionCache cache, String contentHash) throws Exception {
+        List<PageExtraction> pages = new ArrayList<>();
+        assertEquals(cache.readExtraction(contentHash, pages::add), pages.size());
+        return pages;
+    }
+
+    @Test
+    void extraction_missesUntilCommittedAndThenReplaysPagesInOrder() throws Exception {
+        ExtractionCache cache = new ExtractionCache(tempDir, true);
+
+        try (ExtractionCache.EntryWriter writer = cache.openWriter("abc")) {
+            writer.write(page(1, "first"));
+            writer.write(page(2, "second"));
+            assertFalse(cache.hasExtraction("abc"));
+            writer.commit();
+        }
+
+        assertTrue(cache.hasExtraction("abc"));
+        assertFalse(cache.hasExtraction("other"));
+        List<PageExtraction> pages = read(cache, "abc");
+        assertEquals(List.of(1, 2), pages.stream().map(PageExtraction::getPageNumber).toList());
+        assertEquals("second", pages.get(1).getTextContent());
+    }
+
+    @Test
+    void extraction_closedWithoutCommitLeavesNothingBehind() throws Exception {
+        ExtractionCache cache = new ExtractionCache(tempDir, true);
+
+        try (ExtractionCache.EntryWriter writer = cache.openWriter("abc")) {
+            writer.write(page(1, "first"));
+        }
+
+        assertFalse(cache.hasExtraction("abc"));
+        try (var files = Files.list(tempDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void entriesAndMarkers_surviveARestart() throws Exception {
+        ExtractionCache cache = new ExtractionCache(tempDir, true);
+        try (ExtractionCache.EntryWriter writer = cache.openWriter("abc")) {
+            writer.write(page(1, "first"));
+            writer.commit();
+        }
+        cache.markIndexed("abc", 3);
+
+        ExtractionCache restarted = new ExtractionCache(tempDir, true);
+
+        assertTrue(restarted.hasExtraction("abc"));
+        assertEquals("first", read(restarted, "abc").getFirst().getTextContent());
+        assertEquals(OptionalInt.of(3), restarted.indexedDocuments("abc"));
+        assertEquals(OptionalInt.empty(), restarted.indexedDocuments("other"));
+    }
+
+    @Test
+    void clearIndexed_forgetsTheMarkerButKeepsTheExtraction() throws Exception {
+        ExtractionCache cache = new ExtractionCache(tempDir, true);
+        try (ExtractionCache.EntryWriter writer = cache.openWriter("abc")) {
+            writer.write(page(1, "first"));
+            writer.commit();
+        }
+        cache.markIndexed("abc", 1);
+
+        cache.clearIndexed("abc");
+        cache.clearIndexed("other");
+
+        assertEquals(OptionalInt.empty(), cache.indexedDocuments("abc"));
+        assertTrue(cache.hasExtraction("abc"));
+    }
+
+    @Test
+    void indexedDocuments_ignoresAnUnreadableMarker() throws Exception {
+        ExtractionCache cache = new ExtractionCache(tempDir, true);
+        Files.writeString(tempDir.resolve("abc.indexed"), "not a number");
+
+        assertEquals(OptionalInt.empty(), cache.indexedDocuments("abc"));
+    }
+
+    @Test
+    void disabledCache_neverHits() throws Exception {
+        ExtractionCache cache = new ExtractionCache(tempDir.resolve("disabled"), false);
+
+        try (ExtractionCache.EntryWriter writer = cache.openWriter("abc")) {
+            writer.write(page(1, "first"));
+            writer.commit();
+        }
+        cache.markIndexed("abc", 1);
+
+        assertFalse(cache.hasExtraction("abc"));
+        assertEquals(OptionalInt.empty(), cache.indexedDocuments("abc"));
+        assertFalse(Files.exists(tempDir.resolve("disabled")));
+    }
+}
@@ -0,0 +1,161 @@
+package com.docintel.docintel.service;
+
+import com.google.genai.Client;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.transformer.splitter.TokenTextSplitter;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Every page is prose, so the text layer classifier keeps extraction local and Gemini is never called.
+ */
+class GenAiIMultiModalIngestionServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private VectorStore vectorStore;
+    private GenAiIMultiModalIngestionService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        vectorStore = mock(VectorStore.class);
+        VectorStoreVersion version = new VectorStoreVersion();
+        service = new GenAiIMultiModalIngestionService(
+                mock(Client.class),
+                vectorStore,
+                version,
+                new VectorStoreWriteBehind(vectorStore, version, 96, 20_000, Duration.ofMillis(10), 1),
+                new PdfShardSplitter(),
+                new PdfTextLayerClassifier(true, 200, 10),
+                new ExtractionCache(tempDir.resolve("cache"), true),
+                new PageChunker(new TokenTextSplitter(), false, 800),
+                new IngestManifestStore(tempDir.resolve("manifests")),
+                true, 10, 1, true);
+    }
+
+    /**
+     * Writes report.pdf into its own directory, one page per word, each page ten lines mentioning its word.
+     */
+    private File report(String revision, String... pageWords) throws Exception {
+        Path dir = Files.createDirectories(tempDir.resolve(revision));
+        File file = dir.resolve("report.pdf").toFile();
+        try (PDDocument document = new PDDocument()) {
+            for (String word : pageWords) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 10);
+                    content.newLineAtOffset(50, 750);
+                    for (int line = 0; line < 10; line++) {
+                        content.showText("The " + word + " section describes the quarterly delivery schedule.");
+                        content.newLineAtOffset(0, -14);
+                    }
+                    content.endText();
+                }
+            }
+            document.save(file);
+        }
+        return file;
+    }
+
+    private List<Integer> addedPages() {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Document>> added = ArgumentCaptor.forClass(List.class);
+        verify(vectorStore, atLeast(0)).add(added.capture());
+        return added.getAllValues().stream().flatMap(List::stream)
+                .map(d -> (Integer) d.getMetadata().get("page_number")).sorted().toList();
+    }
+
+    private List<Object> deletedPages() {
+        ArgumentCaptor<Filter.Expression> deleted = ArgumentCaptor.forClass(Filter.Expression.class);
+        verify(vectorStore, atLeast(0)).delete(deleted.capture());
+        List<Object> pages = new ArrayList<>();
+        for (Filter.Expression filter : deleted.getAllValues()) {
+            // (group == g && file_name == f) && page_number in [...]
+            Filter.Expression pageNumbers = (Filter.Expression) filter.right();
+            pages.addAll((List<?>) ((Filter.Value) pageNumbers.right()).value());
+        }
+        return pages;
+    }
+
+    @Test
+    void identicalReupload_isDeduplicated() throws Exception {
+        File v1 = report("v1", "alpha", "bravo");
+        service.extractFromPdf(v1);
+        clearInvocations(vectorStore);
+
+        IngestionResult again = service.extractFromPdf(v1, true, IngestionProgressListener.NONE);
+
+        assertTrue(again.deduplicated());
+        assertEquals(2, again.documents());
+        verify(vectorStore, never()).add(any());
+    }
+
+    @Test
+    void incremental_skipsUnchangedReplacesChangedAndDeletesRemovedPages() throws Exception {
+        service.extractFromPdf(report("v1", "alpha", "bravo", "charlie"));
+        assertEquals(List.of(1, 2, 3), addedPages());
+        clearInvocations(vectorStore);
+
+        IngestionResult result = service.extractFromPdf(report("v2", "alpha", "delta"), true,
+                IngestionProgressListener.NONE);
+
+        assertFalse(result.deduplicated());
+        assertEquals(1, result.documents());
+        assertEquals(1, result.unchangedPages());
+        assertEquals(1, result.removedPages());
+        assertEquals(List.of(2), addedPages());
+        assertEquals(List.of(2, 3), deletedPages());
+    }
+
+    @Test
+    void reuploadingAnEarlierRevision_restoresItInsteadOfDeduplicating() throws Exception {
+        File v1 = report("v1", "alpha", "bravo", "charlie");
+        service.extractFromPdf(v1);
+        service.extractFromPdf(report("v2", "alpha", "delta"), true, IngestionProgressListener.NONE);
+        clearInvocations(vectorStore);
+
+        IngestionResult restored = service.extractFromPdf(v1, true, IngestionProgressListener.NONE);
+
+        assertFalse(restored.deduplicated());
+        assertEquals(2, restored.documents());
+        assertEquals(1, restored.unchangedPages());
+        assertEquals(List.of(2, 3), addedPages());
+        assertEquals(List.of(2), deletedPages());
+    }
+
+    @Test
+    void replacedRevision_isNoLongerDeduplicatedUnderAnotherName() throws Exception {
+        File v1 = report("v1", "alpha", "bravo");
+        service.extractFromPdf(v1);
+        service.extractFromPdf(report("v2", "alpha", "delta"), true, IngestionProgressListener.NONE);
+
+        File copy = Files.copy(v1.toPath(), tempDir.resolve("copy.pdf")).toFile();
+        IngestionResult result = service.extractFromPdf(copy);
+
+        assertFalse(result.deduplicated());
+        assertEquals(2, result.documents());
+    }
+}
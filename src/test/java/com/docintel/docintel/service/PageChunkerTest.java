@@ -0,0 +1,59 @@
+package com.docintel.docintel.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.transformer.splitter.TokenTextSplitter;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageChunkerTest {
+
+    private final PageChunker chunker = new PageChunker(
+            TokenTextSplitter.builder().withChunkSize(60).build(), true, 80);
+
+    private static Document page(String body) {
+        return new Document("Page 7\n" + body,
+                Map.of("page_number", 7, "file_name", "contract.pdf", "content_hash", "abc", "tables", List.of("t")));
+    }
+
+    @Test
+    void chunk_keepsShortPagesWhole() {
+        Document page = page("Tables:\n| a | b |\n|---|---|\n| 1 | 2 |");
+        assertSame(page, chunker.chunk(page).getFirst());
+    }
+
+    @Test
+    void chunk_splitsLongTablesBetweenRowsAndRepeatsHeader() {
+        String rows = IntStream.range(0, 40)
+                .mapToObj(i -> "| PN-" + i + " | widget number " + i + " |")
+                .collect(Collectors.joining("\n"));
+        String json = "{\"content\":{\"raw\":\"clause 4.2 applies to every part listed above\"}}";
+        Document page = page("Tables:\n| Part | Description |\n|---|---|\n" + rows + "\nJSON Blocks:\n" + json);
+
+        List<Document> chunks = chunker.chunk(page);
+
+        assertTrue(chunks.size() > 2);
+        for (Document chunk : chunks) {
+            assertTrue(chunk.getText().startsWith("Page 7\n"));
+            assertEquals(7, chunk.getMetadata().get("page_number"));
+            assertEquals("contract.pdf", chunk.getMetadata().get("file_name"));
+            assertEquals(chunks.size(), chunk.getMetadata().get("chunk_count"));
+            if (chunk.getText().contains("| PN-")) {
+                assertTrue(chunk.getText().contains("| Part | Description |\n|---|---|"));
+            }
+        }
+        // every row survives intact exactly once and the JSON block is never cut
+        IntStream.range(0, 40).forEach(i -> assertEquals(1, chunks.stream()
+                .filter(c -> c.getText().contains("| PN-" + i + " | widget number " + i + " |")).count()));
+        assertEquals(1, chunks.stream().filter(c -> c.getText().contains(json)).count());
+        assertTrue(chunks.getFirst().getMetadata().containsKey("tables"));
+        assertFalse(chunks.getLast().getMetadata().containsKey("tables"));
+        assertEquals(chunks.size(), new HashSet<>(chunks.stream().map(Document::getId).toList()).size());
+    }
+}
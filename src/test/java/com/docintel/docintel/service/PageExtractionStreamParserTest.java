@@ -0,0 +1,54 @@
+package com.docintel.docintel.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageExtractionStreamParserTest {
+
+    private static final String JSON = """
+            [{"page_number":1,"extracted_tables":["| a | b |"],"json_blocks":[{"content":{"raw":"{\\"k\\":[1,2]}"}}]},
+             {"page_number":2,"images":[{"caption":"Sample Chart Figure","source":"p2"}],"text_content":"héllo ✓"},
+             {"page_number":3}]
+            """;
+
+    @Test
+    void feed_emitsEachPageAsItsObjectCloses() throws IOException {
+        for (int chunkSize : new int[]{1, 3, 7, JSON.length()}) {
+            List<PageExtraction> pages = new ArrayList<>();
+            List<Integer> emittedAtOffset = new ArrayList<>();
+            int[] offset = {0};
+            PageExtractionStreamParser parser = new PageExtractionStreamParser(new ObjectMapper(), p -> {
+                pages.add(p);
+                emittedAtOffset.add(offset[0]);
+            });
+
+            for (int i = 0; i < JSON.length(); i += chunkSize) {
+                offset[0] = i;
+                parser.feed(JSON.substring(i, Math.min(JSON.length(), i + chunkSize)));
+            }
+
+            assertEquals(3, parser.finish());
+            assertEquals(List.of(1, 2, 3), pages.stream().map(PageExtraction::getPageNumber).toList());
+            assertEquals("héllo ✓", pages.get(1).getTextContent());
+            assertEquals("Sample Chart Figure", pages.get(1).getImages().getFirst().get("caption"));
+            if (chunkSize < JSON.length()) {
+                assertTrue(emittedAtOffset.getFirst() < JSON.indexOf("\"page_number\":2"),
+                        "first page must be emitted before the second one is received");
+            }
+        }
+    }
+
+    @Test
+    void finish_rejectsTruncatedOutput() throws IOException {
+        PageExtractionStreamParser parser = new PageExtractionStreamParser(new ObjectMapper(), p -> {
+        });
+        parser.feed("[{\"page_number\":1},{\"page_number\":");
+        assertThrows(IOException.class, parser::finish);
+    }
+}
@@ -0,0 +1,60 @@
+package com.docintel.docintel.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PdfServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static byte[] zip(String... entries) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (String entry : entries) {
+                zip.putNextEntry(new ZipEntry(entry));
+                if (!entry.endsWith("/")) {
+                    zip.write(entry.getBytes());
+                }
+                zip.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    @Test
+    void saveAllToTemp_unpacksArchivesAndSkipsNonPdfs() throws Exception {
+        UploadSpool spool = new UploadSpool(tempDir.resolve("spool"), DataSize.ofKilobytes(10),
+                DataSize.ofKilobytes(4), DataSize.ofKilobytes(10));
+        PdfService pdfService = new PdfService(spool);
+
+        PdfService.SpooledFiles spooled = pdfService.saveAllToTemp(List.of(
+                new MockMultipartFile("files", "single.pdf", "application/pdf", new byte[100]),
+                new MockMultipartFile("files", "set.zip", "application/zip",
+                        zip("docs/", "docs/a.pdf", "../b.PDF", "readme.txt", "other/a.pdf")),
+                new MockMultipartFile("files", "image.png", "image/png", new byte[10])));
+
+        assertEquals(List.of("single.pdf", "a.pdf", "b.PDF", "a.pdf"),
+                spooled.uploads().stream().map(u -> u.file().getName()).toList());
+        // entries are ingested under their path, so the two a.pdf files stay apart
+        assertEquals(List.of("single.pdf", "docs/a.pdf", "b.PDF", "other/a.pdf"),
+                spooled.uploads().stream().map(SpooledUpload::name).toList());
+        assertArrayEquals("docs/a.pdf".getBytes(), Files.readAllBytes(spooled.uploads().get(1).file().toPath()));
+        assertEquals(List.of("readme.txt", "image.png"),
+                spooled.skipped().stream().map(IngestionBatch.SkippedFile::fileName).toList());
+
+        spooled.uploads().forEach(SpooledUpload::close);
+        assertEquals(0, spool.getReservedBytes());
+    }
+}
@@ -0,0 +1,98 @@
+package com.docintel.docintel.service;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PdfShardSplitterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final PdfShardSplitter splitter = new PdfShardSplitter();
+
+    /**
+     * Page n is 100 + n points wide, so shard pages can be traced back to their source page.
+     */
+    private File pdf(int pages) throws Exception {
+        File file = tempDir.resolve("source.pdf").toFile();
+        try (PDDocument document = new PDDocument()) {
+            for (int page = 1; page <= pages; page++) {
+                document.addPage(new PDPage(new PDRectangle(100 + page, 200)));
+            }
+            document.save(file);
+        }
+        return file;
+    }
+
+    private static List<Integer> sourcePagesIn(PdfShardSplitter.PdfShard shard) throws Exception {
+        List<Integer> pages = new ArrayList<>();
+        try (PDDocument part = Loader.loadPDF(shard.bytes())) {
+            for (PDPage page : part.getPages()) {
+                pages.add(Math.round(page.getMediaBox().getWidth()) - 100);
+            }
+        }
+        return pages;
+    }
+
+    private static PageExtraction page(int pageNumber) {
+        PageExtraction page = new PageExtraction();
+        page.pageNumber = pageNumber;
+        return page;
+    }
+
+    @Test
+    void plan_coversEveryPageInOrderWithAShorterLastShard() throws Exception {
+        File source = pdf(7);
+
+        List<List<Integer>> shards = splitter.plan(source, 3);
+
+        assertEquals(7, splitter.countPages(source));
+        assertEquals(List.of(List.of(1, 2, 3), List.of(4, 5, 6), List.of(7)), shards);
+        for (List<Integer> pages : shards) {
+            assertEquals(pages, sourcePagesIn(splitter.render(source, pages)));
+        }
+    }
+
+    @Test
+    void render_keepsTheOrderOfSelectedPages() throws Exception {
+        File source = pdf(6);
+        List<List<Integer>> shards = splitter.plan(source, List.of(6, 2, 4), 2);
+
+        assertEquals(List.of(List.of(6, 2), List.of(4)), shards);
+        PdfShardSplitter.PdfShard shard = splitter.render(source, shards.getFirst());
+        assertEquals(List.of(6, 2), sourcePagesIn(shard));
+        assertEquals(6, shard.firstPage());
+        assertEquals(2, shard.lastPage());
+        assertEquals(2, shard.pageCount());
+        assertEquals(2, shard.sourcePage(2));
+    }
+
+    @Test
+    void plan_rejectsEmptyShards() throws Exception {
+        File source = pdf(1);
+
+        assertThrows(IllegalArgumentException.class, () -> splitter.plan(source, 0));
+    }
+
+    @Test
+    void rebase_mapsShardPagesToSourcePagesAndLeavesOthers() {
+        PdfShardSplitter.PdfShard shard = new PdfShardSplitter.PdfShard(List.of(11, 12, 15), new byte[0]);
+
+        assertEquals(11, shard.rebase(page(1)).getPageNumber());
+        assertEquals(15, shard.rebase(page(3)).getPageNumber());
+        // numbers the model did not take from the shard cannot be mapped
+        assertEquals(0, shard.rebase(page(0)).getPageNumber());
+        assertEquals(12, shard.rebase(page(12)).getPageNumber());
+    }
+}
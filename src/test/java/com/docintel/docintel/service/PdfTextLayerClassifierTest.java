@@ -0,0 +1,124 @@
+package com.docintel.docintel.service;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDFormContentStream;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PdfTextLayerClassifierTest {
+
+    private static final String SENTENCE = "The supplier shall deliver the goods within thirty days of the order.";
+
+    @TempDir
+    Path tempDir;
+
+    private static void writeText(PDPageContentStream content, int lines) throws Exception {
+        content.beginText();
+        content.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 10);
+        content.newLineAtOffset(50, 750);
+        for (int i = 0; i < lines; i++) {
+            content.showText(SENTENCE);
+            content.newLineAtOffset(0, -14);
+        }
+        content.endText();
+    }
+
+    /**
+     * Page 1 is prose, page 2 prose drawn inside a ruled grid, page 3 almost empty.
+     */
+    private File samplePdf() throws Exception {
+        File file = tempDir.resolve("sample.pdf").toFile();
+        try (PDDocument document = new PDDocument()) {
+            for (int pageIndex = 0; pageIndex < 3; pageIndex++) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    if (pageIndex == 2) {
+                        writeText(content, 1);
+                        continue;
+                    }
+                    writeText(content, 10);
+                    if (pageIndex == 1) {
+                        for (int row = 0; row < 12; row++) {
+                            content.addRect(50, 600 - row * 20, 400, 20);
+                        }
+                        content.stroke();
+                    }
+                }
+            }
+            document.save(file);
+        }
+        return file;
+    }
+
+    @Test
+    void classify_keepsProseLocalAndSendsTablesAndSparsePagesRemote() throws Exception {
+        PdfTextLayerClassifier classifier = new PdfTextLayerClassifier(true, 200, 10);
+
+        PdfTextLayerClassifier.PageClassification result = classifier.classify(samplePdf());
+
+        assertEquals(1, result.textOnlyPages().size());
+        PageExtraction page = result.textOnlyPages().getFirst();
+        assertEquals(1, page.getPageNumber());
+        assertTrue(page.getTextContent().startsWith(SENTENCE));
+        assertEquals(List.of(2, 3), result.richPages());
+    }
+
+    @Test
+    void classify_countsShapesDrawnInsideFormXObjects() throws Exception {
+        File file = tempDir.resolve("figure.pdf").toFile();
+        try (PDDocument document = new PDDocument()) {
+            PDFormXObject table = new PDFormXObject(document);
+            table.setBBox(new PDRectangle(400, 300));
+            table.setResources(new PDResources());
+            try (PDFormContentStream form = new PDFormContentStream(table)) {
+                for (int row = 0; row < 12; row++) {
+                    form.addRect(0, row * 20, 400, 20);
+                }
+                form.stroke();
+            }
+            PDPage page = new PDPage();
+            document.addPage(page);
+            try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                writeText(content, 10);
+                content.drawForm(table);
+            }
+            document.save(file);
+        }
+
+        PdfTextLayerClassifier.PageClassification result =
+                new PdfTextLayerClassifier(true, 200, 10).classify(file);
+
+        assertTrue(result.textOnlyPages().isEmpty());
+        assertEquals(List.of(1), result.richPages());
+    }
+
+    @Test
+    void split_selectsPagesAndMapsThemBack() throws Exception {
+        File pdf = samplePdf();
+
+        PdfShardSplitter splitter = new PdfShardSplitter();
+        List<List<Integer>> shards = splitter.plan(pdf, List.of(1, 3), 10);
+
+        assertEquals(1, shards.size());
+        PdfShardSplitter.PdfShard shard = splitter.render(pdf, shards.getFirst());
+        assertEquals(3, shard.sourcePage(2));
+        try (PDDocument part = Loader.loadPDF(shard.bytes())) {
+            assertEquals(2, part.getNumberOfPages());
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.docintel.docintel.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentChatMemoryRepositoryTest {
+
+    @TempDir
+    Path root;
+
+    private PersistentChatMemoryRepository repository(int maxConversations, DataSize maxMemory, Duration timeToLive)
+            throws IOException {
+        return new PersistentChatMemoryRepository(new SimpleMeterRegistry(), root, maxConversations, maxMemory,
+                timeToLive, Duration.ofHours(1));
+    }
+
+    private static List<String> texts(List<Message> messages) {
+        return messages.stream().map(Message::getText).toList();
+    }
+
+    @Test
+    void findByConversationId_loadsConversationsPersistedByAnEarlierInstance() throws IOException {
+        PersistentChatMemoryRepository first = repository(10, DataSize.ofMegabytes(1), Duration.ofDays(1));
+        first.saveAll("conv-1", List.of(new UserMessage("refund window?"), new AssistantMessage("30 days")));
+        first.shutdown();
+
+        PersistentChatMemoryRepository second = repository(10, DataSize.ofMegabytes(1), Duration.ofDays(1));
+
+        assertEquals(0, second.cachedConversations());
+        List<Message> loaded = second.findByConversationId("conv-1");
+        assertEquals(List.of("refund window?", "30 days"), texts(loaded));
+        assertInstanceOf(AssistantMessage.class, loaded.get(1));
+        assertEquals(List.of("conv-1"), second.findConversationIds());
+    }
+
+    private Path conversationFile() throws IOException {
+        try (var files = Files.list(root)) {
+            return files.filter(p -> p.toString().endsWith(".jsonl")).findFirst().orElseThrow();
+        }
+    }
+
+    @Test
+    void saveAll_appendsNewTurnsAndTrimsWhenTheWindowDropsMessages() throws IOException {
+        PersistentChatMemoryRepository repository = repository(10, DataSize.ofMegabytes(1), Duration.ofDays(1));
+        List<Message> messages = new ArrayList<>(List.of(new UserMessage("q1"), new AssistantMessage("a1")));
+        repository.saveAll("conv-1", messages);
+        messages.addAll(List.of(new UserMessage("q2"), new AssistantMessage("a2")));
+        repository.saveAll("conv-1", messages);
+        Path file = conversationFile();
+        assertEquals(5, Files.readAllLines(file).size());
+
+        repository.saveAll("conv-1", messages.subList(2, 4));
+
+        // a trim record rather than a rewrite
+        assertEquals(6, Files.readAllLines(file).size());
+        assertEquals(List.of("q2", "a2"), texts(repository(10, DataSize.ofMegabytes(1), Duration.ofDays(1))
+                .findByConversationId("conv-1")));
+    }
+
+    @Test
+    void saveAll_rewritesOnceTheFileHoldsTwiceTheWindow() throws IOException {
+        PersistentChatMemoryRepository repository = repository(10, DataSize.ofMegabytes(1), Duration.ofDays(1));
+        List<Message> turns = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            turns.add(new UserMessage("q" + i));
+            turns.add(new AssistantMessage("a" + i));
+            // a window of four messages
+            repository.saveAll("conv-1", turns.subList(Math.max(0, turns.size() - 4), turns.size()));
+            assertTrue(Files.readAllLines(conversationFile()).size() <= 1 + 8 + 4);
+        }
+
+        assertEquals(List.of("q8", "a8", "q9", "a9"), texts(repository(10, DataSize.ofMegabytes(1),
+                Duration.ofDays(1)).findByConversationId("conv-1")));
+    }
+
+    @Test
+    void saveAll_evictsLeastRecentlyUsedConversationsFromMemoryButKeepsThemOnDisk() throws IOException {
+        PersistentChatMemoryRepository repository = repository(2, DataSize.ofMegabytes(1), Duration.ofDays(1));
+
+        repository.saveAll("conv-1", List.of(new UserMessage("one")));
+        repository.saveAll("conv-2", List.of(new UserMessage("two")));
+        repository.saveAll("conv-3", List.of(new UserMessage("three")));
+
+        assertEquals(2, repository.cachedConversations());
+        assertEquals(List.of("one"), texts(repository.findByConversationId("conv-1")));
+        assertEquals(2, repository.cachedConversations());
+    }
+
+    @Test
+    void saveAll_keepsCachedMessagesUnderTheMemoryCap() throws IOException {
+        PersistentChatMemoryRepository repository = repository(100, DataSize.ofBytes(2_000), Duration.ofDays(1));
+
+        for (int i = 0; i < 20; i++) {
+            repository.saveAll("conv-" + i, List.of(new UserMessage("x".repeat(300))));
+        }
+
+        assertTrue(repository.cachedBytes() <= 2_000);
+        assertEquals(20, repository.findConversationIds().size());
+    }
+
+    @Test
+    void findByConversationId_forgetsConversationsIdleLongerThanTheTimeToLive() throws Exception {
+        PersistentChatMemoryRepository repository = repository(10, DataSize.ofMegabytes(1), Duration.ofMillis(50));
+        repository.saveAll("conv-1", List.of(new UserMessage("stale")));
+
+        Thread.sleep(100);
+
+        assertTrue(repository.findByConversationId("conv-1").isEmpty());
+        assertTrue(repository.findConversationIds().isEmpty());
+    }
+
+    @Test
+    void findByConversationId_leavesTheFileUntouched() throws IOException {
+        PersistentChatMemoryRepository repository = repository(10, DataSize.ofMegabytes(1), Duration.ofDays(1));
+        repository.saveAll("conv-1", List.of(new UserMessage("hello")));
+        Files.setLastModifiedTime(conversationFile(), FileTime.from(Instant.now().minusSeconds(60)));
+        FileTime written = Files.getLastModifiedTime(conversationFile());
+
+        repository(10, DataSize.ofMegabytes(1), Duration.ofDays(1)).findByConversationId("conv-1");
+        repository.findByConversationId("conv-1");
+
+        assertEquals(written, Files.getLastModifiedTime(conversationFile()));
+    }
+
+    @Test
+    void deleteByConversationId_removesTheConversationFromDisk() throws IOException {
+        PersistentChatMemoryRepository repository = repository(10, DataSize.ofMegabytes(1), Duration.ofDays(1));
+        repository.saveAll("conv-1", List.of(new UserMessage("hello")));
+
+        repository.deleteByConversationId("conv-1");
+
+        assertTrue(repository(10, DataSize.ofMegabytes(1), Duration.ofDays(1)).findByConversationId("conv-1").isEmpty());
+    }
+
+    @Test
+    void saveSummary_survivesRestartsAndRewritesAndLeavesWithTheConversation() throws IOException {
+        PersistentChatMemoryRepository first = repository(10, DataSize.ofMegabytes(1), Duration.ofDays(1));
+        first.saveAll("conv-1", List.of(new UserMessage("refund window?"), new AssistantMessage("30 days")));
+        first.saveSummary("conv-1", new ConversationSummarizer.Summary("refunds take 30 days", "w1"));
+        // dropping every earlier message forces a rewrite
+        first.saveAll("conv-1", List.of(new UserMessage("exchanges?")));
+        first.shutdown();
+
+        PersistentChatMemoryRepository second = repository(10, DataSize.ofMegabytes(1), Duration.ofDays(1));
+
+        assertEquals(new ConversationSummarizer.Summary("refunds take 30 days", "w1"), second.findSummary("conv-1"));
+        assertEquals(List.of("exchanges?"), texts(second.findByConversationId("conv-1")));
+        second.deleteByConversationId("conv-1");
+        second.saveSummary("conv-1", new ConversationSummarizer.Summary("late fold", "w2"));
+        assertNull(second.findSummary("conv-1"));
+    }
+}
@@ -0,0 +1,110 @@
+package com.docintel.docintel.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.evaluation.EvaluationResponse;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SemanticAnswerCacheTest {
+
+    private final EmbeddingModel embeddingModel = mock(EmbeddingModel.class);
+    private final VectorStoreVersion version = new VectorStoreVersion();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private SemanticAnswerCache cache;
+
+    private static SemanticAnswerCache.CachedAnswer answer(String text) {
+        return new SemanticAnswerCache.CachedAnswer(text, new EvaluationResponse(true, "", Map.of()));
+    }
+
+    private double lookups(String result) {
+        return registry.get("docintel.chat.answer_cache.lookups").tag("result", result).counter().count();
+    }
+
+    @BeforeEach
+    void setUp() {
+        when(embeddingModel.embed("What is the refund window?")).thenReturn(new float[]{1f, 0f, 0f});
+        when(embeddingModel.embed("what's the refund window")).thenReturn(new float[]{0.99f, 0.05f, 0f});
+        when(embeddingModel.embed("Who signed the contract?")).thenReturn(new float[]{0f, 1f, 0f});
+        cache = new SemanticAnswerCache(embeddingModel, version, registry, true, 2, 0.95, Duration.ofHours(1));
+    }
+
+    @Test
+    void lookup_servesExactAndSimilarQuestionsFromCache() {
+        SemanticAnswerCache.Lookup miss = cache.lookup("What is the refund window?");
+        assertFalse(miss.isHit());
+        cache.put(miss, answer("30 days"));
+
+        assertEquals("30 days", cache.lookup("  what is the REFUND window? ").answer().text());
+        assertEquals("30 days", cache.lookup("what's the refund window").answer().text());
+        assertFalse(cache.lookup("Who signed the contract?").isHit());
+
+        // the exact hit needed no embedding call
+        verify(embeddingModel, times(1)).embed("What is the refund window?");
+        verify(embeddingModel, never()).embed("  what is the REFUND window? ");
+        assertEquals(1, lookups("exact_hit"));
+        assertEquals(1, lookups("semantic_hit"));
+        assertEquals(2, lookups("miss"));
+    }
+
+    @Test
+    void lookup_dropsEverythingWhenTheVectorStoreChanges() {
+        cache.put(cache.lookup("What is the refund window?"), answer("30 days"));
+
+        version.advance();
+
+        assertFalse(cache.lookup("What is the refund window?").isHit());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void put_skipsAnswersProducedAcrossAnIngest() {
+        SemanticAnswerCache.Lookup miss = cache.lookup("What is the refund window?");
+        version.advance();
+
+        cache.put(miss, answer("30 days"));
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void put_evictsLeastRecentlyUsed() {
+        cache.put(cache.lookup("What is the refund window?"), answer("30 days"));
+        cache.put(cache.lookup("Who signed the contract?"), answer("Alice"));
+        cache.lookup("What is the refund window?");
+
+        cache.put(cache.lookup("third question"), answer("third"));
+
+        assertEquals(2, cache.size());
+        assertTrue(cache.lookup("What is the refund window?").isHit());
+        assertFalse(cache.lookup("Who signed the contract?").isHit());
+        assertEquals(1, registry.get("docintel.chat.answer_cache.evictions").counter().count());
+    }
+
+    @Test
+    void lookup_doesNotServeSimilarQuestionsFromEvictedEntries() {
+        cache.put(cache.lookup("What is the refund window?"), answer("30 days"));
+        cache.put(cache.lookup("Who signed the contract?"), answer("Alice"));
+        cache.put(cache.lookup("third question"), answer("third"));
+
+        assertFalse(cache.lookup("what's the refund window").isHit());
+    }
+
+    @Test
+    void lookup_onlyServesAnswersCachedForTheSameScope() {
+        DocumentScope reports = new DocumentScope("reports", List.of("q2.pdf", "q1.pdf"));
+        cache.put(cache.lookup("What is the refund window?", reports), answer("30 days"));
+
+        assertFalse(cache.lookup("What is the refund window?").isHit());
+        assertFalse(cache.lookup("what's the refund window", new DocumentScope("reports", List.of())).isHit());
+        assertEquals("30 days", cache.lookup("what's the refund window",
+                new DocumentScope("reports", List.of("q1.pdf", "q2.pdf"))).answer().text());
+    }
+}
@@ -0,0 +1,117 @@
+package com.docintel.docintel.service;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.advisor.api.AdvisorChain;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.memory.MessageWindowChatMemory;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TokenBudgetChatMemoryAdvisorTest {
+
+    private final ChatMemory chatMemory = MessageWindowChatMemory.builder().maxMessages(60).build();
+    private final ConversationSummarizer summarizer = mock(ConversationSummarizer.class);
+    private final TokenBudgetChatMemoryAdvisor advisor = new TokenBudgetChatMemoryAdvisor(chatMemory, summarizer, 60);
+
+    private static ChatClientRequest request(String question) {
+        return ChatClientRequest.builder()
+                .prompt(new Prompt(List.of(new SystemMessage("You are DocIntel AI."), new UserMessage(question))))
+                .context(Map.of(ChatMemory.CONVERSATION_ID, "conv-1"))
+                .build();
+    }
+
+    private void remember(int turns) {
+        for (int i = 0; i < turns; i++) {
+            chatMemory.add("conv-1", List.of(new UserMessage("question number " + i + " about the refund policy"),
+                    new AssistantMessage("answer number " + i + " citing page " + i + " of the policy document")));
+        }
+    }
+
+    @Test
+    void before_replaysOnlyRecentTurnsWithinTheBudgetAfterTheSummary() {
+        remember(10);
+        when(summarizer.find("conv-1")).thenReturn(new ConversationSummarizer.Summary("refunds take 30 days", "w"));
+
+        List<Message> messages = advisor.before(request("and exchanges?"), mock(AdvisorChain.class))
+                .prompt().getInstructions();
+
+        assertEquals(MessageType.SYSTEM, messages.get(0).getMessageType());
+        assertEquals("Summary of the earlier conversation:\nrefunds take 30 days", messages.get(1).getText());
+        List<String> replayed = messages.subList(2, messages.size() - 1).stream().map(Message::getText).toList();
+        assertFalse(replayed.isEmpty());
+        assertTrue(replayed.size() < 20);
+        assertTrue(replayed.get(0).startsWith("question number"));
+        assertEquals("answer number 9 citing page 9 of the policy document", replayed.getLast());
+        assertEquals("and exchanges?", messages.getLast().getText());
+    }
+
+    @Test
+    void before_foldsTurnsLeavingTheVerbatimWindowInTheBackground() {
+        remember(10);
+
+        advisor.before(request("and exchanges?"), mock(AdvisorChain.class));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Message>> folded = ArgumentCaptor.forClass(List.class);
+        verify(summarizer).fold(eq("conv-1"), folded.capture(), anyString());
+        assertEquals("question number 0 about the refund policy", folded.getValue().get(0).getText());
+        assertEquals(MessageType.ASSISTANT, folded.getValue().getLast().getMessageType());
+    }
+
+    @Test
+    void before_keepsPromptSizeFlatAsTheConversationGrows() {
+        remember(5);
+        int shortConversation = advisor.before(request("next?"), mock(AdvisorChain.class)).prompt().getInstructions().size();
+        remember(20);
+        int longConversation = advisor.before(request("next?"), mock(AdvisorChain.class)).prompt().getInstructions().size();
+
+        assertEquals(shortConversation, longConversation);
+    }
+
+    @Test
+    void before_foldsNothingForANewConversation() {
+        advisor.before(request("first question"), mock(AdvisorChain.class));
+
+        verify(summarizer, never()).fold(any(), any(), any());
+    }
+
+    @Test
+    void before_foldsOnlyTurnsAfterTheWatermarkOnceItsPredecessorLeftTheWindow() {
+        remember(10);
+        advisor.before(request("and exchanges?"), mock(AdvisorChain.class));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Message>> folded = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<String> watermark = ArgumentCaptor.forClass(String.class);
+        verify(summarizer).fold(eq("conv-1"), folded.capture(), watermark.capture());
+        Message last = folded.getValue().getLast();
+
+        // the window drops everything before the watermark message
+        List<Message> history = chatMemory.get("conv-1");
+        List<Message> window = List.copyOf(history.subList(history.indexOf(last), history.size()));
+        chatMemory.clear("conv-1");
+        chatMemory.add("conv-1", window);
+        remember(3);
+        when(summarizer.find("conv-1")).thenReturn(new ConversationSummarizer.Summary("summary", watermark.getValue()));
+        clearInvocations(summarizer);
+
+        advisor.before(request("and returns?"), mock(AdvisorChain.class));
+
+        verify(summarizer).fold(eq("conv-1"), folded.capture(), anyString());
+        assertFalse(folded.getValue().contains(last));
+        assertNotEquals(last.getText(), folded.getValue().getFirst().getText());
+        assertEquals(MessageType.USER, folded.getValue().getFirst().getMessageType());
+    }
+}
@@ -0,0 +1,126 @@
+package com.docintel.docintel.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UploadSpoolTest {
+
+    @TempDir
+    Path tempDir;
+
+    private UploadSpool newSpool(int capacityKilobytes) throws Exception {
+        return newSpool(tempDir.resolve("spool"), capacityKilobytes, capacityKilobytes);
+    }
+
+    private static UploadSpool newSpool(Path root, int capacityKilobytes, int bulkKilobytes) throws Exception {
+        return new UploadSpool(root, DataSize.ofKilobytes(capacityKilobytes), DataSize.ofKilobytes(4),
+                DataSize.ofKilobytes(bulkKilobytes));
+    }
+
+    private static MockMultipartFile upload(int size) {
+        return new MockMultipartFile("file", "test.pdf", "application/pdf", new byte[size]);
+    }
+
+    @Test
+    void spool_streamsToDiskAndReleasesOnClose() throws Exception {
+        UploadSpool spool = newSpool(10);
+
+        File spooled;
+        try (SpooledUpload handle = spool.spool(upload(3000), "test.pdf")) {
+            spooled = handle.file();
+            assertEquals("test.pdf", spooled.getName());
+            assertEquals(3000, Files.size(spooled.toPath()));
+            assertEquals(3000, spool.getReservedBytes());
+        }
+
+        assertFalse(spooled.exists());
+        assertFalse(spooled.getParentFile().exists());
+        assertEquals(0, spool.getReservedBytes());
+    }
+
+    @Test
+    void spool_rejectsUploadOverQuota() throws Exception {
+        UploadSpool spool = newSpool(10);
+
+        assertThrows(MaxUploadSizeExceededException.class, () -> spool.spool(upload(5000), "big.pdf"));
+        assertEquals(0, spool.getReservedBytes());
+    }
+
+    @Test
+    void spool_rejectsWhenAreaIsFull() throws Exception {
+        UploadSpool spool = newSpool(6);
+
+        try (SpooledUpload ignored = spool.spool(upload(4000), "first.pdf")) {
+            assertThrows(SpoolCapacityException.class, () -> spool.spool(upload(4000), "second.pdf"));
+        }
+        spool.spool(upload(4000), "third.pdf").close();
+    }
+
+    @Test
+    void spool_trimsReservationOfStreamWithUnknownSize() throws Exception {
+        UploadSpool spool = newSpool(6);
+
+        try (SpooledUpload first = spool.spool(new ByteArrayInputStream(new byte[1000]), -1, "first.pdf");
+             SpooledUpload second = spool.spool(new ByteArrayInputStream(new byte[1000]), -1, "second.pdf")) {
+            assertEquals(1000, Files.size(first.file().toPath()));
+            assertEquals(2000, spool.getReservedBytes());
+        }
+        assertEquals(0, spool.getReservedBytes());
+    }
+
+    @Test
+    void constructor_purgesOnlyUploadsTheSpoolCreated() throws Exception {
+        Path root = tempDir.resolve("spool");
+        UploadSpool previous = newSpool(root, 10, 10);
+        File abandoned = previous.spool(upload(100), "abandoned.pdf").file();
+        Path unrelatedFile = Files.writeString(root.resolve("notes.txt"), "keep");
+        Path unrelatedDir = Files.createDirectories(root.resolve("reports"));
+        Files.writeString(unrelatedDir.resolve("q2.pdf"), "keep");
+
+        newSpool(root, 10, 10);
+
+        assertFalse(abandoned.getParentFile().exists());
+        assertTrue(Files.exists(unrelatedFile));
+        assertTrue(Files.exists(unrelatedDir.resolve("q2.pdf")));
+    }
+
+    @Test
+    void spool_rejectsAStreamLongerThanItsDeclaredSizeWithoutOvershooting() throws Exception {
+        UploadSpool spool = newSpool(6);
+
+        IOException e = assertThrows(IOException.class,
+                () -> spool.spool(new ByteArrayInputStream(new byte[3000]), 1000, "entry.pdf", "docs/entry.pdf", true));
+
+        assertTrue(e.getMessage().contains("declared size"));
+        assertEquals(0, spool.getReservedBytes());
+        try (var dirs = Files.list(tempDir.resolve("spool"))) {
+            assertEquals(0, dirs.count());
+        }
+    }
+
+    @Test
+    void spool_keepsBulkUploadsWithinTheirShare() throws Exception {
+        UploadSpool spool = newSpool(tempDir.resolve("spool"), 10, 5);
+
+        try (SpooledUpload bulk =
+                     spool.spool(new ByteArrayInputStream(new byte[4000]), 4000, "a.pdf", "docs/a.pdf", true)) {
+            assertEquals("docs/a.pdf", bulk.name());
+            assertThrows(SpoolCapacityException.class,
+                    () -> spool.spool(new ByteArrayInputStream(new byte[2000]), 2000, "b.pdf", "b.pdf", true));
+            spool.spool(upload(4000), "single.pdf").close();
+        }
+        spool.spool(new ByteArrayInputStream(new byte[4000]), 4000, "c.pdf", "c.pdf", true).close();
+        assertEquals(0, spool.getReservedBytes());
+    }
+}
@@ -0,0 +1,95 @@
+package com.docintel.docintel.service;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.SettableFuture;
+import io.qdrant.client.QdrantClient;
+import io.qdrant.client.ValueFactory;
+import io.qdrant.client.grpc.Points;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.vectorstore.qdrant.QdrantVectorStore;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class VectorStoreVersionTest {
+
+    private final QdrantClient qdrantClient = mock(QdrantClient.class);
+    private VectorStoreVersion version;
+
+    @AfterEach
+    void tearDown() {
+        version.shutdown();
+    }
+
+    private VectorStoreVersion shared() {
+        @SuppressWarnings("unchecked")
+        ObjectProvider<QdrantClient> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(qdrantClient);
+        when(qdrantClient.collectionExistsAsync(anyString())).thenReturn(Futures.immediateFuture(true));
+        return new VectorStoreVersion(provider, Duration.ofHours(1), Duration.ofMillis(200));
+    }
+
+    private void markerToken(String token) {
+        Points.RetrievedPoint marker = Points.RetrievedPoint.newBuilder()
+                .putPayload("token", ValueFactory.value(token))
+                .build();
+        when(qdrantClient.retrieveAsync(anyString(), anyList(), any(), any(), any()))
+                .thenReturn(Futures.immediateFuture(List.of(marker)));
+    }
+
+    @Test
+    void poll_advancesWhenAnotherReplicaChangedTheStore() {
+        markerToken("a");
+        version = shared();
+
+        version.poll();
+        assertEquals(0, version.current());
+
+        markerToken("b");
+        version.poll();
+        version.poll();
+        assertEquals(1, version.current());
+    }
+
+    @Test
+    void advance_publishesATokenItDoesNotPickUpAgain() {
+        markerToken("a");
+        version = shared();
+        when(qdrantClient.upsertAsync(anyString(), anyList())).thenAnswer(i -> {
+            List<Points.PointStruct> points = i.getArgument(1);
+            markerToken(points.getFirst().getPayloadMap().get("token").getStringValue());
+            return Futures.immediateFuture(Points.UpdateResult.getDefaultInstance());
+        });
+
+        version.advance();
+        verify(qdrantClient, timeout(1000)).upsertAsync(eq(QdrantVectorStore.DEFAULT_COLLECTION_NAME + "_version"),
+                anyList());
+        version.poll();
+
+        assertEquals(1, version.current());
+    }
+
+    @Test
+    void advance_burstSharesAPendingPublishAndNeverWaitsOnQdrant() throws InterruptedException {
+        markerToken("a");
+        version = shared();
+        // a Qdrant that never answers: each publish gives up after the timeout
+        when(qdrantClient.upsertAsync(anyString(), anyList())).thenReturn(SettableFuture.create());
+
+        for (int i = 0; i < 10; i++) {
+            version.advance();
+        }
+        assertEquals(10, version.current());
+
+        Thread.sleep(600);
+        // the first publish, plus at most one for the advances that arrived while it was waiting
+        verify(qdrantClient, atLeastOnce()).upsertAsync(anyString(), anyList());
+        verify(qdrantClient, atMost(2)).upsertAsync(anyString(), anyList());
+    }
+}
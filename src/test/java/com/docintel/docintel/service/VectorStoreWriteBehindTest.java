@@ -0,0 +1,92 @@
+package com.docintel.docintel.service;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.VectorStore;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class VectorStoreWriteBehindTest {
+
+    private static List<Document> docs(int count) {
+        return IntStream.range(0, count).mapToObj(i -> new Document("page text " + i)).toList();
+    }
+
+    @Test
+    void submit_coalescesConcurrentSubmissionsIntoOneWrite() throws Exception {
+        VectorStore store = mock(VectorStore.class);
+        VectorStoreWriteBehind writeBehind = new VectorStoreWriteBehind(store, new VectorStoreVersion(), 6, 10_000, Duration.ofSeconds(30), 2);
+
+        CompletableFuture<Void> first = writeBehind.submit(docs(2));
+        CompletableFuture<Void> second = writeBehind.submit(docs(2));
+        assertFalse(first.isDone());
+        CompletableFuture<Void> third = writeBehind.submit(docs(2));
+
+        CompletableFuture.allOf(first, second, third).get(5, TimeUnit.SECONDS);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Document>> written = ArgumentCaptor.forClass(List.class);
+        verify(store, times(1)).add(written.capture());
+        assertEquals(6, written.getValue().size());
+    }
+
+    @Test
+    void submit_flushesAgedDocumentsBelowThresholds() throws Exception {
+        VectorStore store = mock(VectorStore.class);
+        VectorStoreWriteBehind writeBehind = new VectorStoreWriteBehind(store, new VectorStoreVersion(), 100, 10_000, Duration.ofMillis(20), 2);
+
+        writeBehind.submit(docs(1)).get(5, TimeUnit.SECONDS);
+        verify(store, times(1)).add(anyList());
+    }
+
+    @Test
+    void submit_failsTheOwningSubmissionWhenTheWriteFails() {
+        VectorStore store = mock(VectorStore.class);
+        doThrow(new IllegalStateException("qdrant unavailable")).when(store).add(anyList());
+        VectorStoreWriteBehind writeBehind = new VectorStoreWriteBehind(store, new VectorStoreVersion(), 2, 10_000, Duration.ofMillis(20), 1);
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> writeBehind.submit(docs(2)).get(5, TimeUnit.SECONDS));
+        assertEquals("qdrant unavailable", e.getCause().getMessage());
+    }
+
+    @Test
+    void submit_failsTheOwningSubmissionWhenTheWriteThrowsAnError() {
+        VectorStore store = mock(VectorStore.class);
+        doThrow(new OutOfMemoryError("embedding batch")).when(store).add(anyList());
+        VectorStoreWriteBehind writeBehind = new VectorStoreWriteBehind(store, new VectorStoreVersion(), 2, 10_000, Duration.ofMillis(20), 1);
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> writeBehind.submit(docs(2)).get(5, TimeUnit.SECONDS));
+        assertEquals("write-behind flush aborted", e.getCause().getMessage());
+    }
+
+    @Test
+    void flushes_runOnWriterThreadsOnly() throws Exception {
+        VectorStore store = mock(VectorStore.class);
+        List<String> threads = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            Thread.sleep(20);
+            return null;
+        }).when(store).add(anyList());
+        VectorStoreWriteBehind writeBehind = new VectorStoreWriteBehind(store, new VectorStoreVersion(), 1, 10_000, Duration.ofMillis(1), 1);
+
+        List<CompletableFuture<Void>> submissions = IntStream.range(0, 6).mapToObj(i -> writeBehind.submit(docs(1))).toList();
+
+        CompletableFuture.allOf(submissions.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+        assertEquals(6, threads.size());
+        assertTrue(threads.stream().allMatch(t -> t.startsWith("vector-writer-") && !t.equals("vector-writer-timer")),
+                threads.toString());
+    }
+}